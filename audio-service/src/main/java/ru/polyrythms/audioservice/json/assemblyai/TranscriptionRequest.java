@@ -1,21 +1,34 @@
 package ru.polyrythms.audioservice.json.assemblyai;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TranscriptionRequest {
     @JsonProperty("audio_url")
     private String audioUrl;
     @JsonProperty("language_code")
     private LanguageCode languageCode;
+    // Окно распознавания в миллисекундах (для разбиения длинных записей на фрагменты)
+    @JsonProperty("audio_start_from")
+    private Integer audioStartFrom;
+    @JsonProperty("audio_end_at")
+    private Integer audioEndAt;
 
     public TranscriptionRequest(String audioUrl, LanguageCode languageCode) {
         this.audioUrl = audioUrl;
         this.languageCode = languageCode;
     }
+
+    public TranscriptionRequest(String audioUrl, LanguageCode languageCode, Integer audioStartFrom, Integer audioEndAt) {
+        this(audioUrl, languageCode);
+        this.audioStartFrom = audioStartFrom;
+        this.audioEndAt = audioEndAt;
+    }
     public enum LanguageCode {
         ru
     }
@@ -23,17 +23,39 @@ public class AudioResultProducer extends BaseKafkaProducer<AudioDecryptionResult
                 task.getTaskId(),
                 task.getAudioId(), task.getChatId(),
                 transcription);
+        result.setReplyMessageId(task.getReplyMessageId());
 
         return send(task.getAudioId(), result)
                 .doOnSuccess(v -> log.info("Success result sent for task: {}", task.getTaskId()))
                 .doOnError(e -> log.error("Failed to send success result for task: {}", task.getTaskId(), e));
     }
 
+    /**
+     * Промежуточный результат потоковой расшифровки. Ошибка отправки не прерывает обработку задачи -
+     * следующий фрагмент или финальный результат все равно будут отправлены.
+     */
+    public Mono<Void> sendPartialResult(AudioDecryptionTask task, TranscriptionProgress progress) {
+        AudioDecryptionResult result = AudioDecryptionResult.createStreamingPartialResult(
+                task.getTaskId(),
+                task.getAudioId(), task.getChatId(),
+                progress.text(), progress.completedParts(), progress.totalParts());
+        result.setReplyMessageId(task.getReplyMessageId());
+
+        return send(task.getAudioId(), result)
+                .doOnSuccess(v -> log.debug("Partial result {}/{} sent for task: {}",
+                        progress.completedParts(), progress.totalParts(), task.getTaskId()))
+                .onErrorResume(e -> {
+                    log.warn("Failed to send partial result for task: {}", task.getTaskId(), e);
+                    return Mono.empty();
+                });
+    }
+
     public Mono<Void> sendErrorResult(AudioDecryptionTask task, String errorMessage) {
         AudioDecryptionResult result = AudioDecryptionResult.createFailedResult(
                 task.getTaskId(),
                 task.getAudioId(), task.getChatId(),
                 errorMessage);
+        result.setReplyMessageId(task.getReplyMessageId());
 
         return send(task.getAudioId(), result)
                 .doOnSuccess(v -> log.info("Error result sent for task: {}", task.getTaskId()))
@@ -34,8 +34,12 @@ public class AudioTaskConsumer {
         log.info("Received audio task: {} for audio: {}, created at: {}",
                 task.getTaskId(), task.getAudioId(), task.getCreatedAtAsInstant());
 
-        assemblyAIService.transcribeAudio(task.getAudioId())
-                .flatMap(transcription -> resultProducer.sendSuccessResult(task, transcription))
+        // Промежуточные результаты и финальный отправляются строго по порядку (ключ - audioId, одна партиция)
+        assemblyAIService.transcribeAudioProgressively(task.getAudioId(), task.getDurationSeconds())
+                .concatMap(progress -> progress.isComplete()
+                        ? resultProducer.sendSuccessResult(task, progress.text())
+                        : resultProducer.sendPartialResult(task, progress))
+                .then()
                 .doOnSuccess(v -> {
                     ack.acknowledge();
                     log.info("Task processed successfully: {}", task.getTaskId());
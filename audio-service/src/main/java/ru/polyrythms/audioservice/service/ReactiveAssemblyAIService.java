@@ -1,6 +1,7 @@
 package ru.polyrythms.audioservice.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -13,6 +14,8 @@ import ru.polyrythms.audioservice.json.assemblyai.TranscriptionStatus;
 import ru.polyrythms.audioservice.json.assemblyai.UploadResponse;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Сервис для взаимодействия с AssemblyAI API для транскрипции аудио.
@@ -35,6 +38,13 @@ import java.time.Duration;
  *   <li>Когда статус становится "completed", возвращается распознанный текст</li>
  * </ol>
  *
+ * <p><b>Потоковый режим:</b> длинная запись загружается один раз, а распознается
+ * фрагментами фиксированной длины (audio_start_from/audio_end_at) параллельно.
+ * Готовые фрагменты отдаются по порядку накопленным текстом - первый текст
+ * доступен через время распознавания одного фрагмента, а не всей записи.
+ * Одновременно запись распознается целиком: финальный текст берется из полной
+ * транскрипции, а не склеивается из фрагментов с обрезанными на границах словами.
+ *
  * <p>Сервис использует экспоненциальный бэк-офф для повторных попыток и таймауты
  * для предотвращения бесконечного ожидания.
  *
@@ -47,13 +57,22 @@ public class ReactiveAssemblyAIService {
 
     private final WebClient webClient;
     private final MinioService minioService;
+    private final boolean streamingEnabled;
+    private final int chunkSeconds;
+    private final int maxParallelChunks;
 
     public ReactiveAssemblyAIService(
             WebClient webClient,
-            MinioService minioService) {
+            MinioService minioService,
+            @Value("${assemblyai.streaming.enabled:true}") boolean streamingEnabled,
+            @Value("${assemblyai.streaming.chunk-seconds:30}") int chunkSeconds,
+            @Value("${assemblyai.streaming.max-parallel-chunks:3}") int maxParallelChunks) {
 
         this.webClient = webClient;
         this.minioService = minioService;
+        this.streamingEnabled = streamingEnabled;
+        this.chunkSeconds = chunkSeconds;
+        this.maxParallelChunks = maxParallelChunks;
     }
 
     /**
@@ -84,6 +103,70 @@ public class ReactiveAssemblyAIService {
                 .onErrorResume(e -> Mono.error(new RuntimeException("Transcription failed: " + e.getMessage(), e)));
     }
 
+    /**
+     * Транскрипция с промежуточными результатами.
+     *
+     * <p>Если потоковый режим выключен, длительность неизвестна или запись короче одного фрагмента,
+     * выполняется обычная транскрипция и возвращается единственный завершенный результат.
+     * Иначе запись распознается фрагментами по chunkSeconds (до maxParallelChunks одновременно),
+     * и после каждого готового фрагмента (в порядке следования) отдается накопленный текст.
+     * Параллельно выполняется транскрипция всей записи; как только она готова, промежуточные
+     * результаты прекращаются, и последним элементом отдается ее текст
+     * ({@link TranscriptionProgress#isComplete()}). Ошибка фрагмента не прерывает транскрипцию -
+     * пропадают только промежуточные результаты.
+     *
+     * @param audioId         идентификатор аудио файла в MinIO
+     * @param durationSeconds длительность записи, может быть null
+     * @return Flux с накопленным текстом по мере распознавания фрагментов
+     */
+    public Flux<TranscriptionProgress> transcribeAudioProgressively(String audioId, Integer durationSeconds) {
+        if (!streamingEnabled || durationSeconds == null || durationSeconds <= chunkSeconds) {
+            return transcribeAudio(audioId).map(TranscriptionProgress::complete).flux();
+        }
+
+        List<int[]> windows = splitIntoWindows(durationSeconds);
+        log.info("Transcribing audio {} ({} s) in {} chunks of {} s", audioId, durationSeconds, windows.size(), chunkSeconds);
+
+        return minioService.downloadAudio(audioId)
+                .flatMap(this::uploadToAssemblyAI)
+                .flatMapMany(uploadUrl -> {
+                    Mono<String> fullText = submitTranscription(uploadUrl)
+                            .flatMap(this::pollTranscriptionResult)
+                            .cache();
+
+                    Flux<TranscriptionProgress> partials = Flux.fromIterable(windows)
+                            .flatMapSequential(window -> submitTranscription(uploadUrl, window[0], window[1])
+                                            .flatMap(this::pollTranscriptionResult),
+                                    maxParallelChunks)
+                            .scan(TranscriptionProgress.start(windows.size()), TranscriptionProgress::append)
+                            .skip(1)
+                            .onErrorResume(e -> {
+                                log.warn("Chunked transcription of audio {} failed, waiting for the full transcript",
+                                        audioId, e);
+                                return Flux.empty();
+                            });
+
+                    // takeUntilOther подписывается на полный текст сразу - оба распознавания идут параллельно
+                    return Flux.concat(
+                            partials.takeUntilOther(fullText),
+                            fullText.map(TranscriptionProgress::complete));
+                })
+                .timeout(Duration.ofMinutes(10))
+                .onErrorResume(e -> Mono.error(new RuntimeException("Transcription failed: " + e.getMessage(), e)));
+    }
+
+    /**
+     * Окна [start, end) в миллисекундах; последнее окно без верхней границы (до конца записи).
+     */
+    private List<int[]> splitIntoWindows(int durationSeconds) {
+        List<int[]> windows = new ArrayList<>();
+        for (int start = 0; start < durationSeconds; start += chunkSeconds) {
+            boolean last = start + chunkSeconds >= durationSeconds;
+            windows.add(new int[]{start * 1000, last ? 0 : (start + chunkSeconds) * 1000});
+        }
+        return windows;
+    }
+
     /**
      * Загружает аудио данные в AssemblyAI и возвращает URL загруженного файла.
      *
@@ -156,8 +239,21 @@ public class ReactiveAssemblyAIService {
      * AssemblyAI Transcription Request Documentation</a>
      */
     private Mono<String> submitTranscription(String assemblyAiAudioUrl) {
-        TranscriptionRequest request = new TranscriptionRequest(assemblyAiAudioUrl, TranscriptionRequest.LanguageCode.ru);
+        return submitTranscription(new TranscriptionRequest(assemblyAiAudioUrl, TranscriptionRequest.LanguageCode.ru));
+    }
+
+    /**
+     * Запрос на транскрипцию фрагмента записи.
+     *
+     * @param startMs начало окна в миллисекундах
+     * @param endMs   конец окна в миллисекундах, 0 - до конца записи
+     */
+    private Mono<String> submitTranscription(String assemblyAiAudioUrl, int startMs, int endMs) {
+        return submitTranscription(new TranscriptionRequest(assemblyAiAudioUrl, TranscriptionRequest.LanguageCode.ru,
+                startMs, endMs > 0 ? endMs : null));
+    }
 
+    private Mono<String> submitTranscription(TranscriptionRequest request) {
         return webClient.post()
                 .uri("/transcript")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,35 @@
+package ru.polyrythms.audioservice.service;
+
+/**
+ * Состояние потоковой транскрипции.
+ * <p>
+ * Промежуточные состояния содержат текст уже распознанных фрагментов (по порядку) и служат только
+ * для показа прогресса. Финальное состояние ({@link #complete(String)}) содержит текст, распознанный
+ * по всей записи целиком: на границах фрагментов слова обрезаются, поэтому склейка фрагментов
+ * финальным текстом не используется.
+ *
+ * @param text           накопленный текст первых completedParts фрагментов или полный текст
+ * @param completedParts количество распознанных фрагментов
+ * @param totalParts     общее количество фрагментов
+ * @param complete       true - полный текст записи
+ */
+public record TranscriptionProgress(String text, int completedParts, int totalParts, boolean complete) {
+
+    public static TranscriptionProgress start(int totalParts) {
+        return new TranscriptionProgress("", 0, totalParts, false);
+    }
+
+    public static TranscriptionProgress complete(String text) {
+        return new TranscriptionProgress(text, 1, 1, true);
+    }
+
+    public TranscriptionProgress append(String partText) {
+        String joined = partText == null || partText.isBlank() ? text
+                : text.isEmpty() ? partText.trim() : text + " " + partText.trim();
+        return new TranscriptionProgress(joined, completedParts + 1, totalParts, false);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -3,5 +3,6 @@ package ru.polyrythms.kafka;
 public class Topics {
     public static final String AUDIO_DECRYPTION_REQUESTS = "audio-topic";
     public static final String AUDIO_DECRYPTION_RESULTS = "audio-transcription-topic";
+    public static final String TELEGRAM_GROUP_EVENTS = "telegram-group-events-topic";
 
-}
\ No newline at end of file
+}
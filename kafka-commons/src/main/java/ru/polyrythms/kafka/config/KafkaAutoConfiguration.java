@@ -34,6 +34,7 @@ import java.util.Map;
  * <ul>
  *   <li>{@value ru.polyrythms.kafka.Topics#AUDIO_DECRYPTION_REQUESTS} - для запросов на расшифровку аудио</li>
  *   <li>{@value ru.polyrythms.kafka.Topics#AUDIO_DECRYPTION_RESULTS} - для результатов расшифровки</li>
+ *   <li>{@value ru.polyrythms.kafka.Topics#TELEGRAM_GROUP_EVENTS} - для событий изменения групп</li>
  * </ul>
  *
  * <h2>Условия активации:</h2>
@@ -172,4 +173,37 @@ public class KafkaAutoConfiguration {
                 .config("cleanup.policy", "delete")
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Создает топик событий изменения Telegram групп.
+     *
+     * <p>Топик используется для рассылки инвалидаций кэша разрешенных групп
+     * всем экземплярам Telegram бота. События короткоживущие: при старте узел
+     * загружает полный снимок из БД, поэтому хранение ограничено одним днем.</p>
+     *
+     * <p>Бин создается только если:</p>
+     * <ul>
+     *   <li>Отсутствует бин с именем {@code telegramGroupEventsTopic}</li>
+     *   <li>Свойство {@code app.kafka.topics.auto-create} не равно {@code false}</li>
+     * </ul>
+     *
+     * @return конфигурация топика событий групп
+     * @see org.apache.kafka.clients.admin.NewTopic
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "telegramGroupEventsTopic")
+    @ConditionalOnProperty(name = "app.kafka.topics.auto-create", havingValue = "true", matchIfMissing = true)
+    public NewTopic telegramGroupEventsTopic() {
+        log.info("Автосоздание Kafka топика: {} с 1 партицией и {} репликами",
+                Topics.TELEGRAM_GROUP_EVENTS,
+                properties.getReplicas());
+
+        // Одна партиция - события применяются всеми узлами в порядке публикации
+        return TopicBuilder.name(Topics.TELEGRAM_GROUP_EVENTS)
+                .partitions(1)
+                .replicas(properties.getReplicas())
+                .config("retention.ms", String.valueOf(86400000L))
+                .config("cleanup.policy", "delete")
+                .build();
+    }
+}
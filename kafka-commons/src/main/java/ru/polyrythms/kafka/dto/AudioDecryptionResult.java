@@ -20,6 +20,9 @@ public class AudioDecryptionResult implements Serializable {
     private DecryptionStatus status;
     private Long processedAt;
     private String errorMessage;
+    private Integer replyMessageId; // из AudioDecryptionTask
+    private Integer partIndex;      // для промежуточных результатов: сколько фрагментов уже распознано
+    private Integer partCount;      // для промежуточных результатов: всего фрагментов
 
     // Конвертеры для удобства работы с датами
     public Instant getProcessedAtAsInstant() {
@@ -62,6 +65,23 @@ public class AudioDecryptionResult implements Serializable {
                 .build();
     }
 
+    /**
+     * Промежуточный результат потоковой расшифровки: накопленный текст первых partIndex фрагментов из partCount
+     */
+    public static AudioDecryptionResult createStreamingPartialResult(String taskId, String audioId, Long chatId,
+                                                                     String decryptedText, int partIndex, int partCount) {
+        return AudioDecryptionResult.builder()
+                .taskId(taskId)
+                .audioId(audioId)
+                .chatId(chatId)
+                .decryptedText(decryptedText)
+                .status(DecryptionStatus.PARTIALLY_DECRYPTED)
+                .processedAt(System.currentTimeMillis())
+                .partIndex(partIndex)
+                .partCount(partCount)
+                .build();
+    }
+
     public enum DecryptionStatus {
         SUCCESSFULLY_DECRYPTED, DECRYPTION_FAILED, PARTIALLY_DECRYPTED
     }
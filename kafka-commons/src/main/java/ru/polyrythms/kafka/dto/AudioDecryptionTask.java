@@ -20,6 +20,8 @@ public class AudioDecryptionTask implements Serializable {
     private String audioUrl;
     private Long createdAt;
     private AudioType audioType;
+    private Integer replyMessageId; // сообщение-заглушка в чате, редактируется по мере обработки
+    private Integer durationSeconds; // длительность аудио, нужна для разбиения на фрагменты
 
     public static AudioDecryptionTask createVoiceTask(String audioId, Long chatId, String audioUrl) {
         return AudioDecryptionTask.builder()
@@ -32,6 +34,20 @@ public class AudioDecryptionTask implements Serializable {
                 .build();
     }
 
+    public static AudioDecryptionTask createVoiceTask(String taskId, String audioId, Long chatId, String audioUrl,
+                                                      Integer replyMessageId, Integer durationSeconds) {
+        return AudioDecryptionTask.builder()
+                .taskId(taskId)
+                .audioId(audioId)
+                .chatId(chatId)
+                .audioUrl(audioUrl)
+                .createdAt(System.currentTimeMillis())
+                .audioType(AudioType.VOICE_MESSAGE)
+                .replyMessageId(replyMessageId)
+                .durationSeconds(durationSeconds)
+                .build();
+    }
+
     public Instant getCreatedAtAsInstant() {
         return Instant.ofEpochMilli(createdAt);
     }
@@ -0,0 +1,30 @@
+package ru.polyrythms.kafka.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Событие изменения статуса Telegram группы (добавление, активация, деактивация).
+ * Используется для инвалидации локальных кэшей разрешенных групп на всех узлах.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupChangedEvent implements Serializable {
+    private Long chatId;
+    private Boolean active;
+    private Long changedAt;
+
+    public static GroupChangedEvent of(Long chatId, boolean active) {
+        return GroupChangedEvent.builder()
+                .chatId(chatId)
+                .active(active)
+                .changedAt(System.currentTimeMillis())
+                .build();
+    }
+}
@@ -2,6 +2,8 @@ package ru.polyrythms.telegrambot.application.dto;
 
 import lombok.Builder;
 import lombok.Value;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.MaybeInaccessibleMessage;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import ru.polyrythms.telegrambot.domain.model.VoiceMessage;
@@ -32,10 +34,19 @@ public class TelegramUpdateDto {
     Integer duration;
     boolean hasVoice;
 
+    // Нажатие inline-кнопки (callback_query)
+    String callbackQueryId;
+    String callbackData;
+    Integer callbackMessageId;  // сообщение с клавиатурой, которое нужно отредактировать
+    boolean hasCallback;
+
     /**
      * Фабричный метод для создания DTO из Telegram Update
      */
     public static TelegramUpdateDto fromUpdate(Update update) {
+        if (update != null && update.hasCallbackQuery()) {
+            return fromCallbackQuery(update.getCallbackQuery());
+        }
         if (update == null || !update.hasMessage()) {
             return null;
         }
@@ -88,6 +99,29 @@ public class TelegramUpdateDto {
         return builder.build();
     }
 
+    private static TelegramUpdateDto fromCallbackQuery(CallbackQuery callbackQuery) {
+        MaybeInaccessibleMessage message = callbackQuery.getMessage();
+        if (message == null) {
+            // Кнопка под inline-сообщением - редактировать нечего
+            return null;
+        }
+        boolean groupChat = message.isGroupMessage() || message.isSuperGroupMessage();
+
+        return TelegramUpdateDto.builder()
+                .chatId(message.getChatId())
+                .userId(callbackQuery.getFrom().getId())
+                .username(callbackQuery.getFrom().getUserName())
+                .firstName(callbackQuery.getFrom().getFirstName())
+                .lastName(callbackQuery.getFrom().getLastName())
+                .isGroupChat(groupChat)
+                .groupChatId(groupChat ? message.getChatId() : null)
+                .hasCallback(true)
+                .callbackQueryId(callbackQuery.getId())
+                .callbackData(callbackQuery.getData())
+                .callbackMessageId(message.getMessageId())
+                .build();
+    }
+
     /**
      * Конвертация в доменную модель VoiceMessage
      */
@@ -2,4 +2,9 @@ package ru.polyrythms.telegrambot.application.port.input;
 
 public interface CommandHandlingUseCase {
     void handleCommand(Long chatId, Long userId, String command, String[] args, String fullText);
+
+    /**
+     * Нажатие inline-кнопки под сообщением бота (например, навигация по страницам списков)
+     */
+    void handleCallback(Long chatId, Long userId, Integer messageId, String callbackQueryId, String data);
 }
\ No newline at end of file
@@ -1,5 +1,18 @@
 package ru.polyrythms.telegrambot.application.port.input;
 
+import ru.polyrythms.telegrambot.domain.model.DecryptionResult;
+
+import java.util.concurrent.CompletableFuture;
+
 public interface DecryptionResultHandlingUseCase {
-    void handleDecryptionResult(String taskId, String status, String decryptedText, String errorMessage, Long chatId);
+    /**
+     * @return future, завершающийся после доставки результата в чат
+     */
+    CompletableFuture<Void> handleDecryptionResult(DecryptionResult result);
+
+    /**
+     * Учитывает итог задачи в статистике. Вызывается один раз на результат - после доставки
+     * или исчерпания попыток, а не на каждую попытку handleDecryptionResult.
+     */
+    void recordOutcome(DecryptionResult result);
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package ru.polyrythms.telegrambot.application.port.input;
 
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
 
 import java.util.List;
@@ -9,6 +11,7 @@ public interface GroupManagementUseCase {
     void deactivateGroup(Long chatId, Long userId);
     void activateGroup(Long chatId, Long userId);
     List<TelegramGroup> getAllGroups();
+    KeysetPage<TelegramGroup> getGroupsPage(PageCursor cursor, int size);
     List<TelegramGroup> getActiveGroups();
     boolean isGroupAllowed(Long chatId);
     long getActiveGroupsCount();
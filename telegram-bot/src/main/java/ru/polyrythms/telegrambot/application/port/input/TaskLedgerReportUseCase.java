@@ -0,0 +1,17 @@
+package ru.polyrythms.telegrambot.application.port.input;
+
+import ru.polyrythms.telegrambot.domain.model.GroupLatencyReport;
+import ru.polyrythms.telegrambot.domain.model.TaskLedgerEntry;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Отчеты по журналу заданий: медленные задания и задержки стадий по группам.
+ */
+public interface TaskLedgerReportUseCase {
+
+    List<TaskLedgerEntry> getSlowTasks(Duration period, long thresholdMs, int limit);
+
+    List<GroupLatencyReport> getGroupLatency(Duration period);
+}
@@ -1,8 +1,25 @@
 package ru.polyrythms.telegrambot.application.port.input;
 
-import java.io.File;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
 
 public interface TelegramFileDownloader {
-    File downloadFile(String fileId);
-    String getFilePath(String fileId);
+    /**
+     * Открывает поток скачивания файла без сохранения на диск.
+     * Поток нужно закрыть после использования.
+     */
+    FileStream openFile(String fileId);
+
+    /**
+     * Поток содержимого файла Telegram.
+     *
+     * @param size размер в байтах из getFile или -1, если Telegram его не вернул
+     */
+    record FileStream(InputStream stream, long size) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
 }
\ No newline at end of file
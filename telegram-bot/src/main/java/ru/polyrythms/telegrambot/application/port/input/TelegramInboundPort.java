@@ -42,4 +42,12 @@ public interface TelegramInboundPort {
      * @param textUpdate DTO с текстовым сообщением
      */
     void handlePlainText(TelegramUpdateDto textUpdate);
+
+    /**
+     * Обработка нажатия inline-кнопки (callback_query).
+     * Вызывается из handleUpdate() для обновлений с callback данными.
+     *
+     * @param callbackUpdate DTO с данными нажатия
+     */
+    void handleCallbackQuery(TelegramUpdateDto callbackUpdate);
 }
\ No newline at end of file
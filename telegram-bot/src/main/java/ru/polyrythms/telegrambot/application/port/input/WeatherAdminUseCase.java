@@ -1,12 +1,18 @@
 package ru.polyrythms.telegrambot.application.port.input;
 
 import ru.polyrythms.telegrambot.domain.model.City;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface WeatherAdminUseCase {
     City addCity(String name);
     List<City> listCities();
+    KeysetPage<City> listCitiesPage(PageCursor cursor, int size);
     void assignCityToGroup(Long groupChatId, Long cityId, Long adminId);
     void removeCityFromGroup(Long groupChatId, Long cityId, Long adminId);
     List<City> getCitiesForGroup(Long groupChatId);
+    Map<Long, List<City>> getCitiesForGroups(Collection<Long> groupChatIds);
 }
\ No newline at end of file
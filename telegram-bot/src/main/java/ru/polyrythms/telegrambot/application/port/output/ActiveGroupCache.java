@@ -0,0 +1,14 @@
+package ru.polyrythms.telegrambot.application.port.output;
+
+/**
+ * Локальный кэш активных групп. Проверка не обращается к БД.
+ */
+public interface ActiveGroupCache {
+
+    boolean isActive(Long chatId);
+
+    /**
+     * Применяет изменение статуса группы (локальное или пришедшее с другого узла).
+     */
+    void apply(Long chatId, boolean active);
+}
@@ -1,8 +1,18 @@
 package ru.polyrythms.telegrambot.application.port.output;
 
-import java.io.File;
+import java.io.InputStream;
 
 public interface AudioStorage {
-    String storeAudio(File audioFile, String uniqueId);
+    /**
+     * Сохранение из потока: size >= 0 - загрузка известной длины, -1 - multipart загрузка частями
+     */
+    String storeAudio(InputStream stream, long size, String uniqueId);
     String getPublicUrl(String objectName);
+
+    /**
+     * Поиск уже сохраненного аудио по fileUniqueId.
+     *
+     * @return имя объекта или null, если аудио еще не сохранено
+     */
+    String findAudio(String uniqueId);
 }
\ No newline at end of file
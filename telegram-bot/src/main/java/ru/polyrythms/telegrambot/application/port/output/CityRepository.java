@@ -1,11 +1,14 @@
 package ru.polyrythms.telegrambot.application.port.output;
 
 import ru.polyrythms.telegrambot.domain.model.City;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
 import java.util.List;
 import java.util.Optional;
 
 public interface CityRepository {
     List<City> findAll();
+    KeysetPage<City> findPage(PageCursor cursor, int size);
     Optional<City> findById(Long id);
     Optional<City> findByName(String name);
     City save(City city);
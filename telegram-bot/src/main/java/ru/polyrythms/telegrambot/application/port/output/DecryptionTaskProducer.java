@@ -2,6 +2,11 @@ package ru.polyrythms.telegrambot.application.port.output;
 
 import ru.polyrythms.telegrambot.domain.model.DecryptionTask;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface DecryptionTaskProducer {
-    void sendTask(DecryptionTask task);
+    /**
+     * @return future, завершающийся после подтверждения записи брокером
+     */
+    CompletableFuture<Void> sendTask(DecryptionTask task);
 }
\ No newline at end of file
@@ -1,10 +1,19 @@
 package ru.polyrythms.telegrambot.application.port.output;
 
+import ru.polyrythms.telegrambot.domain.model.City;
 import ru.polyrythms.telegrambot.domain.model.GroupCity;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface GroupCityRepository {
     List<GroupCity> findByGroupChatId(Long groupChatId);
+
+    /**
+     * Города для нескольких групп одним запросом: groupChatId -> города.
+     * Группы без городов в результат не попадают.
+     */
+    Map<Long, List<City>> findCitiesByGroupChatIds(Collection<Long> groupChatIds);
     void assignCityToGroup(Long groupChatId, Long cityId);
     void removeCityFromGroup(Long groupChatId, Long cityId);
 }
\ No newline at end of file
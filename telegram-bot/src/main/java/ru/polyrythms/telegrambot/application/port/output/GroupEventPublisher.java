@@ -0,0 +1,8 @@
+package ru.polyrythms.telegrambot.application.port.output;
+
+/**
+ * Публикация событий изменения статуса групп для всех экземпляров бота.
+ */
+public interface GroupEventPublisher {
+    void publishGroupChanged(Long chatId, boolean active);
+}
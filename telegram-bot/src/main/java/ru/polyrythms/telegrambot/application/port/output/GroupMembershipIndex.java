@@ -0,0 +1,28 @@
+package ru.polyrythms.telegrambot.application.port.output;
+
+import ru.polyrythms.telegrambot.domain.model.GroupMembership;
+
+import java.util.List;
+
+/**
+ * Обратный индекс членства: пользователь -> группы, в которых бот видел его участником или выходом.
+ * <p>
+ * Заполняется из входящих обновлений и ответов GetChatMember, читается из памяти.
+ * Методы record* вызываются из потока опроса Telegram и не обращаются к БД.
+ */
+public interface GroupMembershipIndex {
+
+    void recordMember(Long groupChatId, Long userId);
+
+    void recordNotMember(Long groupChatId, Long userId);
+
+    /**
+     * Бот удален из группы - ее членство больше не отслеживается
+     */
+    void removeGroup(Long groupChatId);
+
+    /**
+     * Все известные записи пользователя (пустой список, если пользователь не встречался)
+     */
+    List<GroupMembership> findByUser(Long userId);
+}
@@ -0,0 +1,20 @@
+package ru.polyrythms.telegrambot.application.port.output;
+
+/**
+ * Приоритет исходящего сообщения. При ограничении скорости отправки первыми уходят
+ * сообщения с более высоким приоритетом (порядок объявления).
+ */
+public enum MessagePriority {
+    /**
+     * Результаты расшифровки и ответы на команды
+     */
+    HIGH,
+    /**
+     * Служебные сообщения обработки (заглушка, ошибки обработки)
+     */
+    NORMAL,
+    /**
+     * Подтверждения и уведомления - могут быть отброшены при перегрузке или устаревании
+     */
+    LOW
+}
@@ -1,10 +1,38 @@
 package ru.polyrythms.telegrambot.application.port.output;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface MessageSender {
+    /**
+     * Отправка без ожидания: вызывающий поток не ждет очереди чата и результата отправки
+     */
     void sendMessage(Long chatId, String text);
 
     // Добавляем асинхронную отправку
     default void sendMessageAsync(Long chatId, String text) {
+        sendMessageAsync(chatId, text, MessagePriority.NORMAL);
+    }
+
+    /**
+     * Асинхронная отправка с приоритетом: LOW сообщения могут быть отброшены при перегрузке
+     */
+    default CompletableFuture<Void> sendMessageAsync(Long chatId, String text, MessagePriority priority) {
         sendMessage(chatId, text); // Базовая реализация
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Асинхронная отправка с возвратом messageId - для последующего редактирования
+     */
+    CompletableFuture<Integer> sendMessageReturningIdAsync(Long chatId, String text);
+
+    /**
+     * Редактирование ранее отправленного сообщения без ожидания
+     */
+    void editMessage(Long chatId, Integer messageId, String text);
+
+    default CompletableFuture<Void> editMessageAsync(Long chatId, Integer messageId, String text) {
+        editMessage(chatId, messageId, text); // Базовая реализация
+        return CompletableFuture.completedFuture(null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package ru.polyrythms.telegrambot.application.port.output;
+
+import ru.polyrythms.telegrambot.domain.model.GroupLatencyReport;
+import ru.polyrythms.telegrambot.domain.model.TaskLedgerEntry;
+import ru.polyrythms.telegrambot.domain.model.TaskStage;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Журнал заданий расшифровки: время прохождения стадий для анализа задержек.
+ * <p>
+ * Методы record* вызываются из потоков конвейера и не должны блокироваться:
+ * запись в хранилище выполняется асинхронно, при переполнении буфера события теряются.
+ * Для каждой стадии сохраняется первое записанное время - повторы доставки его не меняют.
+ */
+public interface TaskLedger {
+
+    void recordReceived(String taskId, Long chatId, Integer durationSeconds);
+
+    void recordStage(String taskId, Long chatId, TaskStage stage);
+
+    void recordFailed(String taskId, Long chatId, String error);
+
+    /**
+     * Самые медленные задания, принятые после since, с временем обработки не меньше thresholdMs.
+     * Незавершенные задания учитываются с временем до момента запроса.
+     */
+    List<TaskLedgerEntry> findSlowTasks(Instant since, long thresholdMs, int limit);
+
+    /**
+     * Задержки стадий по чатам для заданий, принятых после since.
+     */
+    List<GroupLatencyReport> getGroupLatency(Instant since);
+}
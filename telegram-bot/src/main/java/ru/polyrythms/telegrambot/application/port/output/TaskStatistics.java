@@ -0,0 +1,26 @@
+package ru.polyrythms.telegrambot.application.port.output;
+
+import ru.polyrythms.telegrambot.domain.model.TaskStatisticsSummary;
+
+/**
+ * Счетчики заданий расшифровки по чатам.
+ * Обновляются инкрементально по событиям конвейера, чтение - из памяти без запросов к БД.
+ */
+public interface TaskStatistics {
+
+    void recordTaskCreated(Long chatId);
+
+    void recordTaskCompleted(Long chatId);
+
+    void recordTaskFailed(Long chatId);
+
+    /**
+     * Сводка по всем чатам.
+     */
+    TaskStatisticsSummary getSummary();
+
+    /**
+     * Сводка по одному чату (нулевая, если заданий не было).
+     */
+    TaskStatisticsSummary getSummary(Long chatId);
+}
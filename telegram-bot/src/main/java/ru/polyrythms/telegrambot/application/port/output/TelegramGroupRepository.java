@@ -1,5 +1,7 @@
 package ru.polyrythms.telegrambot.application.port.output;
 
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
 
 import java.util.List;
@@ -9,6 +11,19 @@ public interface TelegramGroupRepository {
     Optional<TelegramGroup> findByChatId(Long chatId);
     List<TelegramGroup> findAllActive();
     List<TelegramGroup> findAll();
+
+    /**
+     * Группы с заполненным addedByUsername, выбираются одним запросом.
+     */
+    List<TelegramGroup> findAllWithUsernames();
+    List<TelegramGroup> findAllActiveWithUsernames();
+    Optional<TelegramGroup> findByChatIdWithUsername(Long chatId);
+
+    /**
+     * Страница групп (с addedByUsername) по возрастанию id, keyset-пагинация.
+     */
+    KeysetPage<TelegramGroup> findPage(PageCursor cursor, int size);
+
     List<TelegramGroup> findByAddedBy(Long addedBy);
     boolean existsByChatId(Long chatId);
     TelegramGroup save(TelegramGroup group);
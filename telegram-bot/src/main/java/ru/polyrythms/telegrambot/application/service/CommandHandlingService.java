@@ -4,21 +4,31 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.webapp.WebAppInfo;
 import ru.polyrythms.telegrambot.application.dto.AdminUserDto;
 import ru.polyrythms.telegrambot.application.dto.TelegramGroupDto;
 import ru.polyrythms.telegrambot.application.port.input.*;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.application.port.output.MessageSender;
+import ru.polyrythms.telegrambot.application.port.output.TaskStatistics;
 import ru.polyrythms.telegrambot.domain.model.AdminRole;
 import ru.polyrythms.telegrambot.domain.model.AdminUser;
 import ru.polyrythms.telegrambot.domain.model.City;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
+import ru.polyrythms.telegrambot.domain.model.TaskCounts;
+import ru.polyrythms.telegrambot.domain.model.TaskStatisticsSummary;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
 import ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram.TelegramBotClient;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.ToLongFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,10 +44,21 @@ public class CommandHandlingService implements CommandHandlingUseCase {
     private final WeatherUserUseCase weatherUserUseCase;
     private final TelegramBotClient botClient;
     private final GroupMembershipService membershipService;
+    private final TaskStatistics taskStatistics;
 
     @Value("${weather.webapp.url}")
     private String weatherWebAppUrl;
 
+    /**
+     * Размер страницы /listgroups и /listcities (сообщение должно укладываться в 4096 символов)
+     */
+    @Value("${telegram.commands.page-size:10}")
+    private int pageSize;
+
+    // Префиксы callback данных навигации: <префикс>:<a|b>:<id> - страница после/перед id
+    private static final String GROUPS_PAGE_CALLBACK = "lg";
+    private static final String CITIES_PAGE_CALLBACK = "lc";
+
     // Паттерны для команд
     private static final Pattern ADD_ADMIN_PATTERN = Pattern.compile("/addadmin\\s+(\\S+)\\s+(OWNER|ADMIN|MODERATOR)", Pattern.CASE_INSENSITIVE);
     private static final Pattern REMOVE_ADMIN_PATTERN = Pattern.compile("/removeadmin\\s+(\\S+)");
@@ -216,16 +237,21 @@ public class CommandHandlingService implements CommandHandlingUseCase {
             messageSender.sendMessage(chatId, "❌ Доступно только администраторам.");
             return;
         }
-        List<TelegramGroup> groups = groupManagementUseCase.getAllGroups();
-        if (groups.isEmpty()) {
+        KeysetPage<TelegramGroup> page = groupManagementUseCase.getGroupsPage(PageCursor.first(), pageSize);
+        if (page.getItems().isEmpty()) {
             messageSender.sendMessage(chatId, "📝 Список групп пуст");
             return;
         }
-        List<TelegramGroupDto> groupDtos = groups.stream()
-                .map(TelegramGroupDto::fromDomain)
-                .toList();
+        sendPage(chatId, renderGroupsPage(page), pageKeyboard(GROUPS_PAGE_CALLBACK, page, TelegramGroup::getId));
+    }
+
+    private String renderGroupsPage(KeysetPage<TelegramGroup> page) {
+        if (page.getItems().isEmpty()) {
+            return "📝 Список групп пуст";
+        }
         StringBuilder response = new StringBuilder("📋 Список групп:\n\n");
-        for (TelegramGroupDto group : groupDtos) {
+        for (TelegramGroup domain : page.getItems()) {
+            TelegramGroupDto group = TelegramGroupDto.fromDomain(domain);
             response.append(group.getIsActive() ? "✅ " : "❌ ")
                     .append(group.getTitle())
                     .append("\nID: ")
@@ -234,7 +260,7 @@ public class CommandHandlingService implements CommandHandlingUseCase {
                     .append(group.getAddedByUsername())
                     .append("\n\n");
         }
-        messageSender.sendMessage(chatId, response.toString());
+        return response.toString();
     }
 
     private void handleListAdminsCommand(Long chatId, Long userId) {
@@ -272,11 +298,27 @@ public class CommandHandlingService implements CommandHandlingUseCase {
         long totalGroups = groupManagementUseCase.getActiveGroupsCount();
         long userGroups = groupManagementUseCase.getUserGroupsCount(userId);
         long totalAdmins = adminManagementUseCase.getAdminCount();
-        String stats = String.format(
+        StringBuilder stats = new StringBuilder(String.format(
                 "📊 Статистика:\n\nАктивных групп: %d\nВаших групп: %d\nВсего администраторов: %d",
                 totalGroups, userGroups, totalAdmins
-        );
-        messageSender.sendMessage(chatId, stats);
+        ));
+
+        appendTaskStatistics(stats, "\n\n🎙 Расшифровки (всего / за сутки / за час):", taskStatistics.getSummary());
+        // В группе дополнительно показываем статистику этой группы
+        if (!chatId.equals(userId)) {
+            appendTaskStatistics(stats, "\n\n👥 В этой группе:", taskStatistics.getSummary(chatId));
+        }
+        messageSender.sendMessage(chatId, stats.toString());
+    }
+
+    private void appendTaskStatistics(StringBuilder stats, String title, TaskStatisticsSummary summary) {
+        TaskCounts total = summary.getTotal();
+        TaskCounts day = summary.getLastDay();
+        TaskCounts hour = summary.getLastHour();
+        stats.append(title)
+                .append(String.format("\nСоздано: %d / %d / %d", total.getCreated(), day.getCreated(), hour.getCreated()))
+                .append(String.format("\nВыполнено: %d / %d / %d", total.getCompleted(), day.getCompleted(), hour.getCompleted()))
+                .append(String.format("\nОшибок: %d / %d / %d", total.getFailed(), day.getFailed(), hour.getFailed()));
     }
 
     private void handleHelpCommand(Long chatId, Long userId) {
@@ -343,16 +385,130 @@ public class CommandHandlingService implements CommandHandlingUseCase {
             messageSender.sendMessage(chatId, "❌ Недостаточно прав.");
             return;
         }
-        List<City> cities = weatherAdminUseCase.listCities();
-        if (cities.isEmpty()) {
+        KeysetPage<City> page = weatherAdminUseCase.listCitiesPage(PageCursor.first(), pageSize);
+        if (page.getItems().isEmpty()) {
             messageSender.sendMessage(chatId, "📝 Список городов пуст");
             return;
         }
+        sendPage(chatId, renderCitiesPage(page), pageKeyboard(CITIES_PAGE_CALLBACK, page, City::getId));
+    }
+
+    private String renderCitiesPage(KeysetPage<City> page) {
+        if (page.getItems().isEmpty()) {
+            return "📝 Список городов пуст";
+        }
         StringBuilder sb = new StringBuilder("🌍 Список городов:\n");
-        for (City city : cities) {
+        for (City city : page.getItems()) {
             sb.append("• ").append(city.getName()).append(" (id: ").append(city.getId()).append(")\n");
         }
-        messageSender.sendMessage(chatId, sb.toString());
+        return sb.toString();
+    }
+
+    @Override
+    public void handleCallback(Long chatId, Long userId, Integer messageId, String callbackQueryId, String data) {
+        log.debug("Handling callback: {} from user: {} in chat: {}", data, userId, chatId);
+
+        String[] parts = data != null ? data.split(":") : new String[0];
+        if (parts.length != 3 || messageId == null) {
+            answerCallback(callbackQueryId, null);
+            return;
+        }
+        if (!adminManagementUseCase.isAdmin(userId)) {
+            answerCallback(callbackQueryId, "❌ Доступно только администраторам.");
+            return;
+        }
+
+        try {
+            long id = Long.parseLong(parts[2]);
+            PageCursor cursor = "b".equals(parts[1]) ? PageCursor.before(id) : PageCursor.after(id);
+
+            switch (parts[0]) {
+                case GROUPS_PAGE_CALLBACK -> {
+                    KeysetPage<TelegramGroup> page = groupManagementUseCase.getGroupsPage(cursor, pageSize);
+                    editPage(chatId, messageId, renderGroupsPage(page),
+                            pageKeyboard(GROUPS_PAGE_CALLBACK, page, TelegramGroup::getId));
+                }
+                case CITIES_PAGE_CALLBACK -> {
+                    KeysetPage<City> page = weatherAdminUseCase.listCitiesPage(cursor, pageSize);
+                    editPage(chatId, messageId, renderCitiesPage(page),
+                            pageKeyboard(CITIES_PAGE_CALLBACK, page, City::getId));
+                }
+                default -> log.debug("Unknown callback data: {}", data);
+            }
+            answerCallback(callbackQueryId, null);
+        } catch (Exception e) {
+            log.error("Error handling callback: {}", data, e);
+            answerCallback(callbackQueryId, "❌ Ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Кнопки "назад"/"вперед": курсор - id первого или последнего элемента текущей страницы
+     */
+    private <T> InlineKeyboardMarkup pageKeyboard(String prefix, KeysetPage<T> page, ToLongFunction<T> idOf) {
+        List<InlineKeyboardButton> row = new ArrayList<>(2);
+        if (!page.getItems().isEmpty()) {
+            if (page.isHasPrevious()) {
+                row.add(callbackButton("◀️ Назад", prefix + ":b:" + idOf.applyAsLong(page.getItems().get(0))));
+            }
+            if (page.isHasNext()) {
+                row.add(callbackButton("Вперед ▶️",
+                        prefix + ":a:" + idOf.applyAsLong(page.getItems().get(page.getItems().size() - 1))));
+            }
+        }
+        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+        markup.setKeyboard(row.isEmpty() ? List.of() : List.of(row));
+        return markup;
+    }
+
+    private InlineKeyboardButton callbackButton(String text, String data) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(data);
+        return button;
+    }
+
+    private void sendPage(Long chatId, String text, InlineKeyboardMarkup markup) {
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(text);
+        message.setReplyMarkup(markup);
+        sendAsync(chatId, message);
+    }
+
+    private void editPage(Long chatId, Integer messageId, String text, InlineKeyboardMarkup markup) {
+        EditMessageText edit = new EditMessageText();
+        edit.setChatId(chatId.toString());
+        edit.setMessageId(messageId);
+        edit.setText(text);
+        edit.setReplyMarkup(markup);
+        botClient.editMessageAsync(edit).exceptionally(e -> {
+            log.warn("Failed to edit page {} in chatId {}", messageId, chatId, e);
+            return null;
+        });
+    }
+
+    /**
+     * Отправка через планировщик без ожидания очереди чата: поток команд не блокируется
+     */
+    private void sendAsync(Long chatId, SendMessage message) {
+        botClient.sendMessageAsync(message, MessagePriority.HIGH).exceptionally(e -> {
+            log.warn("Failed to send message to chatId {}", chatId, e);
+            return null;
+        });
+    }
+
+    /**
+     * Ответ на callback_query убирает индикатор загрузки на кнопке; не блокирует обработку
+     */
+    private void answerCallback(String callbackQueryId, String text) {
+        if (callbackQueryId == null) {
+            return;
+        }
+        AnswerCallbackQuery answer = new AnswerCallbackQuery();
+        answer.setCallbackQueryId(callbackQueryId);
+        answer.setText(text);
+        botClient.executeMethodAsync(answer);
     }
 
     private void handleAssignCityCommand(Long chatId, Long userId, String fullText) {
@@ -426,7 +582,7 @@ public class CommandHandlingService implements CommandHandlingUseCase {
             message.setChatId(chatId.toString());
             message.setText("Нажмите кнопку, чтобы открыть прогноз погоды:");
             message.setReplyMarkup(markup);
-            botClient.execute(message);
+            sendAsync(chatId, message);
         } catch (Exception e) {
             log.error("Weather command failed for chatId {}: {}", chatId, e.getMessage());
             messageSender.sendMessage(chatId, "❌ Не удалось сформировать запрос: " + e.getMessage());
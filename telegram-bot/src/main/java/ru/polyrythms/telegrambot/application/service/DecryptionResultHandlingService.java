@@ -1,39 +1,224 @@
 package ru.polyrythms.telegrambot.application.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.util.HtmlUtils;
 import ru.polyrythms.telegrambot.application.port.input.DecryptionResultHandlingUseCase;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.application.port.output.MessageSender;
+import ru.polyrythms.telegrambot.application.port.output.TaskLedger;
+import ru.polyrythms.telegrambot.application.port.output.TaskStatistics;
+import ru.polyrythms.telegrambot.domain.model.DecryptionResult;
+import ru.polyrythms.telegrambot.domain.model.TaskStage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
-@RequiredArgsConstructor
 public class DecryptionResultHandlingService implements DecryptionResultHandlingUseCase {
 
+    // Порог, после которого из таблицы троттлинга удаляются задачи без финального результата
+    private static final int THROTTLE_CLEANUP_THRESHOLD = 1024;
+    private static final long THROTTLE_ENTRY_TTL_MS = 15 * 60 * 1000L;
+    // Лимит длины текста сообщения Telegram; считается по тексту после разбора HTML, т.е. до экранирования
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final String ELLIPSIS = "…";
+
     private final MessageSender messageSender;
+    private final TaskStatistics taskStatistics;
+    private final TaskLedger taskLedger;
+    private final PlaceholderRegistry placeholderRegistry;
+    private final long partialEditIntervalMs;
+
+    // taskId -> время последней правки промежуточным результатом
+    private final Map<String, Long> lastPartialEditAt = new ConcurrentHashMap<>();
+
+    public DecryptionResultHandlingService(MessageSender messageSender, TaskStatistics taskStatistics,
+                                           TaskLedger taskLedger, PlaceholderRegistry placeholderRegistry,
+                                           long partialEditIntervalMs) {
+        this.messageSender = messageSender;
+        this.taskStatistics = taskStatistics;
+        this.taskLedger = taskLedger;
+        this.placeholderRegistry = placeholderRegistry;
+        this.partialEditIntervalMs = partialEditIntervalMs;
+    }
 
     @Override
-    public void handleDecryptionResult(String taskId, String status, String decryptedText, String errorMessage, Long chatId) {
-        log.info("Handling decryption result for taskId: {}, status: {}", taskId, status);
+    public CompletableFuture<Void> handleDecryptionResult(DecryptionResult result) {
+        if (result.isStreamingPartial()) {
+            handleStreamingPartial(result);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.info("Handling decryption result for taskId: {}, status: {}", result.getTaskId(), result.getStatus());
+        lastPartialEditAt.remove(result.getTaskId());
+
+        List<String> responseMessages = buildResponseMessages(result);
+        return replyMessageId(result)
+                .thenCompose(replyMessageId -> deliverAll(result, replyMessageId, responseMessages))
+                .whenComplete((sent, error) -> {
+                    placeholderRegistry.remove(result.getTaskId());
+                    if (error == null) {
+                        taskLedger.recordStage(result.getTaskId(), result.getChatId(), TaskStage.DELIVERED);
+                    }
+                });
+    }
+
+    /**
+     * Id заглушки из задания, а если задание ушло раньше заглушки - из {@link PlaceholderRegistry}
+     */
+    private CompletableFuture<Integer> replyMessageId(DecryptionResult result) {
+        if (result.getReplyMessageId() != null) {
+            return CompletableFuture.completedFuture(result.getReplyMessageId());
+        }
+        return placeholderRegistry.find(result.getTaskId());
+    }
+
+    /**
+     * Длинная расшифровка - несколько сообщений: первое заменяет заглушку, остальные отправляются по порядку
+     */
+    private CompletableFuture<Void> deliverAll(DecryptionResult result, Integer replyMessageId, List<String> messages) {
+        CompletableFuture<Void> delivery = deliver(result, replyMessageId, messages.get(0));
+        for (String message : messages.subList(1, messages.size())) {
+            delivery = delivery.thenCompose(sent ->
+                    messageSender.sendMessageAsync(result.getChatId(), message, MessagePriority.HIGH));
+        }
+        return delivery;
+    }
+
+    private CompletableFuture<Void> deliver(DecryptionResult result, Integer replyMessageId, String responseMessage) {
+        // Есть сообщение-заглушка - редактируем его вместо отправки нового
+        if (replyMessageId != null) {
+            return messageSender.editMessageAsync(result.getChatId(), replyMessageId, responseMessage)
+                    .exceptionallyCompose(e -> {
+                        log.warn("Failed to edit message {} for taskId: {}, sending a new one",
+                                replyMessageId, result.getTaskId(), e);
+                        return messageSender.sendMessageAsync(result.getChatId(), responseMessage, MessagePriority.HIGH);
+                    });
+        }
+
+        return messageSender.sendMessageAsync(result.getChatId(), responseMessage, MessagePriority.HIGH);
+    }
 
-        String responseMessage = buildResponseMessage(status, decryptedText, errorMessage);
-        messageSender.sendMessage(chatId, responseMessage);
+    /**
+     * Промежуточный текст показывается правкой сообщения-заглушки не чаще partialEditIntervalMs:
+     * лишние промежуточные результаты пропускаются, следующий все равно содержит весь накопленный текст.
+     * Без заглушки (группы, режим separate) или пока она еще не отправлена промежуточные результаты не показываются.
+     */
+    private void handleStreamingPartial(DecryptionResult result) {
+        Integer replyMessageId = replyMessageId(result).getNow(null);
+        if (replyMessageId == null) {
+            log.debug("Skipping partial result for taskId: {} without reply message", result.getTaskId());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Long lastEditAt = lastPartialEditAt.get(result.getTaskId());
+        if (lastEditAt != null && now - lastEditAt < partialEditIntervalMs) {
+            log.debug("Throttled partial result {}/{} for taskId: {}",
+                    result.getPartIndex(), result.getPartCount(), result.getTaskId());
+            return;
+        }
+
+        if (lastPartialEditAt.size() >= THROTTLE_CLEANUP_THRESHOLD) {
+            lastPartialEditAt.values().removeIf(editAt -> now - editAt > THROTTLE_ENTRY_TTL_MS);
+        }
+        lastPartialEditAt.put(result.getTaskId(), now);
+
+        // Без повторов: финальный результат все равно придет, а повтор промежуточного мог бы его перезаписать
+        // Промежуточный текст не делится на сообщения, а обрезается: финальный результат придет целиком
+        String header = "⏳ Расшифровано " + result.getPartIndex() + " из " + result.getPartCount() + ":\n";
+        messageSender.editMessageAsync(result.getChatId(), replyMessageId,
+                header + HtmlUtils.htmlEscape(truncate(nullToEmpty(result.getDecryptedText()),
+                        MAX_MESSAGE_LENGTH - header.length())));
+    }
+
+    @Override
+    public void recordOutcome(DecryptionResult result) {
+        if (result.isStreamingPartial()) {
+            return;
+        }
+        taskLedger.recordStage(result.getTaskId(), result.getChatId(), TaskStage.TRANSCRIBED);
+        if (result.getStatus() == DecryptionResult.ResultStatus.DECRYPTION_FAILED) {
+            taskStatistics.recordTaskFailed(result.getChatId());
+            taskLedger.recordFailed(result.getTaskId(), result.getChatId(), result.getErrorMessage());
+        } else {
+            taskStatistics.recordTaskCompleted(result.getChatId());
+        }
     }
 
-    private String buildResponseMessage(String status, String decryptedText, String errorMessage) {
-        return switch (status) {
-            case "SUCCESSFULLY_DECRYPTED" ->
-                    "✅ Результат расшифровки:\n" + decryptedText;
+    /**
+     * Тексты сообщений с результатом. Текст расшифровки и ошибки экранируются - сообщения уходят
+     * в режиме HTML. Расшифровка длиннее лимита Telegram делится на несколько сообщений.
+     */
+    private List<String> buildResponseMessages(DecryptionResult result) {
+        String errorMessage = result.getErrorMessage();
 
-            case "PARTIALLY_DECRYPTED" ->
-                    "⚠️ Частично расшифровано:\n" + decryptedText +
-                            (errorMessage != null ? "\n\nПримечание: " + errorMessage : "");
+        return switch (result.getStatus()) {
+            case SUCCESSFULLY_DECRYPTED ->
+                    split("✅ Результат расшифровки:\n", nullToEmpty(result.getDecryptedText()), "");
 
-            case "DECRYPTION_FAILED" ->
-                    "❌ Не удалось расшифровать сообщение." +
-                            (errorMessage != null ? "\nПричина: " + errorMessage :
-                                    "\nПопробуйте записать сообщение еще раз.");
+            case PARTIALLY_DECRYPTED ->
+                    split("⚠️ Частично расшифровано:\n", nullToEmpty(result.getDecryptedText()),
+                            errorMessage != null ? "\n\nПримечание: " + truncate(errorMessage, 500) : "");
 
-            default -> "❌ Неизвестный статус обработки";
+            case DECRYPTION_FAILED ->
+                    List.of("❌ Не удалось расшифровать сообщение." +
+                            (errorMessage != null ? "\nПричина: " + HtmlUtils.htmlEscape(truncate(errorMessage, 500)) :
+                                    "\nПопробуйте записать сообщение еще раз."));
         };
     }
+
+    /**
+     * Делит текст на части, каждая из которых с заголовком и подвалом укладывается в лимит Telegram.
+     * Заголовок добавляется к первой части, подвал (экранируется) - к последней. Граница части -
+     * по возможности перевод строки или пробел.
+     */
+    private static List<String> split(String header, String text, String footer) {
+        int budget = MAX_MESSAGE_LENGTH - header.length() - footer.length();
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        do {
+            int end = chunkEnd(text, start, budget);
+            parts.add(HtmlUtils.htmlEscape(text.substring(start, end)));
+            start = end;
+            while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+                start++;
+            }
+        } while (start < text.length());
+
+        parts.set(0, header + parts.get(0));
+        parts.set(parts.size() - 1, parts.get(parts.size() - 1) + HtmlUtils.htmlEscape(footer));
+        return parts;
+    }
+
+    private static int chunkEnd(String text, int start, int budget) {
+        if (text.length() - start <= budget) {
+            return text.length();
+        }
+        int end = start + budget;
+        int boundary = Math.max(text.lastIndexOf('\n', end - 1), text.lastIndexOf(' ', end - 1));
+        if (boundary > start + budget / 2) {
+            return boundary;
+        }
+        // Суррогатная пара не разрывается
+        return Character.isHighSurrogate(text.charAt(end - 1)) ? end - 1 : end;
+    }
+
+    private static String truncate(String text, int maxLength) {
+        if (text.length() <= maxLength) {
+            return text;
+        }
+        int end = maxLength - ELLIPSIS.length();
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end) + ELLIPSIS;
+    }
+
+    private static String nullToEmpty(String text) {
+        return text != null ? text : "";
+    }
 }
\ No newline at end of file
@@ -3,16 +3,19 @@ package ru.polyrythms.telegrambot.application.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.polyrythms.telegrambot.application.port.input.GroupManagementUseCase;
+import ru.polyrythms.telegrambot.application.port.output.ActiveGroupCache;
 import ru.polyrythms.telegrambot.application.port.output.AdminRepository;
+import ru.polyrythms.telegrambot.application.port.output.GroupEventPublisher;
 import ru.polyrythms.telegrambot.application.port.output.TelegramGroupRepository;
 import ru.polyrythms.telegrambot.domain.model.AdminUser;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
 import ru.polyrythms.telegrambot.domain.exception.UnauthorizedException;
 import ru.polyrythms.telegrambot.domain.exception.DomainException;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -20,6 +23,8 @@ public class GroupManagementService implements GroupManagementUseCase {
 
     private final TelegramGroupRepository groupRepository;
     private final AdminRepository adminRepository;
+    private final ActiveGroupCache activeGroupCache;
+    private final GroupEventPublisher groupEventPublisher;
 
     @Override
     public TelegramGroup addGroup(Long chatId, String title, Long addedBy) {
@@ -44,6 +49,7 @@ public class GroupManagementService implements GroupManagementUseCase {
                 .build();
 
         TelegramGroup saved = groupRepository.save(group);
+        onGroupChanged(chatId, true);
         log.info("Добавлена новая группа: '{}' (chatId: {}) пользователем {}", title, chatId, admin.getUsername());
         return saved;
     }
@@ -57,6 +63,7 @@ public class GroupManagementService implements GroupManagementUseCase {
 
         TelegramGroup deactivated = group.deactivate();
         groupRepository.save(deactivated);
+        onGroupChanged(chatId, false);
         log.info("Группа деактивирована: '{}' (chatId: {})", group.getTitle(), chatId);
     }
 
@@ -69,26 +76,28 @@ public class GroupManagementService implements GroupManagementUseCase {
 
         TelegramGroup activated = group.activate();
         groupRepository.save(activated);
+        onGroupChanged(chatId, true);
         log.info("Группа активирована: '{}' (chatId: {})", group.getTitle(), chatId);
     }
 
     @Override
     public List<TelegramGroup> getAllGroups() {
-        List<TelegramGroup> groups = groupRepository.findAll();
-        return enrichWithUsernames(groups);
+        return groupRepository.findAllWithUsernames();
+    }
+
+    @Override
+    public KeysetPage<TelegramGroup> getGroupsPage(PageCursor cursor, int size) {
+        return groupRepository.findPage(cursor, size);
     }
 
     @Override
     public List<TelegramGroup> getActiveGroups() {
-        List<TelegramGroup> groups = groupRepository.findAllActive();
-        return enrichWithUsernames(groups);
+        return groupRepository.findAllActiveWithUsernames();
     }
 
     @Override
     public boolean isGroupAllowed(Long chatId) {
-        return groupRepository.findByChatId(chatId)
-                .map(TelegramGroup::getIsActive)
-                .orElse(false);
+        return activeGroupCache.isActive(chatId);
     }
 
     @Override
@@ -103,11 +112,15 @@ public class GroupManagementService implements GroupManagementUseCase {
 
     @Override
     public TelegramGroup getGroupByChatId(Long chatId) {
-        TelegramGroup group = groupRepository.findByChatId(chatId).orElse(null);
-        if (group != null) {
-            return enrichWithUsername(group);
-        }
-        return null;
+        return groupRepository.findByChatIdWithUsername(chatId).orElse(null);
+    }
+
+    /**
+     * Локальный кэш обновляется сразу, остальные узлы - через событие
+     */
+    private void onGroupChanged(Long chatId, boolean active) {
+        activeGroupCache.apply(chatId, active);
+        groupEventPublisher.publishGroupChanged(chatId, active);
     }
 
     private void checkGroupManagementPermission(Long userId) {
@@ -118,25 +131,4 @@ public class GroupManagementService implements GroupManagementUseCase {
             throw new UnauthorizedException("Недостаточно прав для управления группами");
         }
     }
-
-    private List<TelegramGroup> enrichWithUsernames(List<TelegramGroup> groups) {
-        return groups.stream()
-                .map(this::enrichWithUsername)
-                .collect(Collectors.toList());
-    }
-
-    private TelegramGroup enrichWithUsername(TelegramGroup group) {
-        return adminRepository.findByUserId(group.getAddedBy())
-                .map(admin -> TelegramGroup.builder()
-                        .id(group.getId())
-                        .chatId(group.getChatId())
-                        .title(group.getTitle())
-                        .isActive(group.getIsActive())
-                        .addedBy(group.getAddedBy())
-                        .createdAt(group.getCreatedAt())
-                        .updatedAt(group.getUpdatedAt())
-                        .addedByUsername(admin.getUsername())
-                        .build())
-                .orElse(group);
-    }
 }
\ No newline at end of file
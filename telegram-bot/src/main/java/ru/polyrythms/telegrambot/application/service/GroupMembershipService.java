@@ -1,19 +1,94 @@
 package ru.polyrythms.telegrambot.application.service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.methods.groupadministration.GetChatMember;
 import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMember;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import ru.polyrythms.telegrambot.application.port.output.GroupMembershipIndex;
+import ru.polyrythms.telegrambot.domain.model.GroupMembership;
 import ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram.TelegramBotClient;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Проверка членства пользователей в группах для команд и /auth/init.
+ * <p>
+ * Ответы GetChatMember кэшируются в ограниченном по размеру кэше (Caffeine):
+ * - участник - на memberTtlMs, с асинхронным обновлением после refreshAfterMs:
+ *   активный пользователь получает ответ из кэша, а запрос к Telegram идет в фоне
+ * - не участник - на короткий nonMemberTtlMs, чтобы повторные проверки не уходили в Telegram,
+ *   а вступление в группу быстро становилось видно
+ * Ошибки запроса не кэшируются. Ответы также записываются в {@link GroupMembershipIndex}.
+ * <p>
+ * Вход и выход, замеченные во входящих обновлениях, попадают только в индекс, поэтому
+ * свежая запись индекса имеет приоритет над кэшем: иначе вышедший пользователь оставался бы
+ * участником до истечения записи кэша.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class GroupMembershipService {
 
+    private static final int TOO_MANY_REQUESTS = 429;
+
     private final TelegramBotClient botClient;
+    private final GroupMembershipIndex membershipIndex;
+    private final AsyncLoadingCache<MembershipKey, Boolean> membershipCache;
+
+    private final int maxConcurrency;
+    private final long deadlineMs;
+    private final long memberTtlMs;
+    private final long negativeTtlMs;
+
+    public GroupMembershipService(
+            TelegramBotClient botClient,
+            GroupMembershipIndex membershipIndex,
+            @Value("${telegram.membership.max-concurrency:16}") int maxConcurrency,
+            @Value("${telegram.membership.deadline-ms:3000}") long deadlineMs,
+            @Value("${telegram.membership.index.member-ttl-ms:21600000}") long memberTtlMs,
+            @Value("${telegram.membership.index.negative-ttl-ms:600000}") long negativeTtlMs,
+            @Value("${telegram.membership.cache.max-entries:100000}") long cacheMaxEntries,
+            @Value("${telegram.membership.cache.member-ttl-ms:900000}") long cacheMemberTtlMs,
+            @Value("${telegram.membership.cache.non-member-ttl-ms:60000}") long cacheNonMemberTtlMs,
+            @Value("${telegram.membership.cache.refresh-after-ms:300000}") long cacheRefreshAfterMs,
+            MeterRegistry meterRegistry) {
+        this.botClient = botClient;
+        this.membershipIndex = membershipIndex;
+        this.maxConcurrency = maxConcurrency;
+        this.deadlineMs = deadlineMs;
+        this.memberTtlMs = memberTtlMs;
+        this.negativeTtlMs = negativeTtlMs;
+
+        this.membershipCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(new MembershipExpiry(
+                        TimeUnit.MILLISECONDS.toNanos(cacheMemberTtlMs),
+                        TimeUnit.MILLISECONDS.toNanos(cacheNonMemberTtlMs)))
+                .refreshAfterWrite(Duration.ofMillis(cacheRefreshAfterMs))
+                .recordStats()
+                .buildAsync(this::loadMembership);
+        CaffeineCacheMetrics.monitor(meterRegistry, membershipCache, "membership");
+    }
 
     /**
      * Проверяет, является ли пользователь участником группы
@@ -21,30 +96,316 @@ public class GroupMembershipService {
      * @param userId ID пользователя
      * @return true если пользователь состоит в группе, false в противном случае
      */
-    @Cacheable(value = "membership", key = "#chatId + ':' + #userId", unless = "#result == false")
     public boolean isUserMemberOfGroup(Long chatId, Long userId) {
+        Boolean indexed = findFreshInIndex(chatId, userId);
+        if (indexed != null) {
+            log.debug("User {} membership in group {} from index: {}", userId, chatId, indexed);
+            return indexed;
+        }
         try {
-            GetChatMember getChatMember = new GetChatMember();
-            getChatMember.setChatId(chatId.toString());
-            getChatMember.setUserId(userId);
+            boolean isMember = membershipCache.get(new MembershipKey(chatId, userId))
+                    .get(deadlineMs, TimeUnit.MILLISECONDS);
+            log.debug("User {} membership in group {}: {}", userId, chatId, isMember);
+            return isMember;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (TimeoutException e) {
+            log.warn("Membership check for user {} in group {} exceeded {} ms", userId, chatId, deadlineMs);
+            return false;
+        } catch (ExecutionException e) {
+            log.error("Failed to check membership for user {} in group {}", userId, chatId, e);
+            return false;
+        }
+    }
 
-            ChatMember chatMember = botClient.execute(getChatMember);
-            String status = chatMember.getStatus();
+    /**
+     * Свежая запись индекса (участник - не старше memberTtlMs, выход - не старше negativeTtlMs)
+     * или null, если записи нет или она устарела
+     */
+    private Boolean findFreshInIndex(Long chatId, Long userId) {
+        long now = System.currentTimeMillis();
+        for (GroupMembership membership : membershipIndex.findByUser(userId)) {
+            if (membership.getGroupChatId().equals(chatId)) {
+                long ttlMs = membership.isMember() ? memberTtlMs : negativeTtlMs;
+                return membership.isConfirmedWithin(ttlMs, now) ? membership.isMember() : null;
+            }
+        }
+        return null;
+    }
 
-            boolean isMember = "member".equals(status)
-                    || "administrator".equals(status)
-                    || "creator".equals(status);
+    /**
+     * Членство пользователя в группах: сначала по индексу, GetChatMember - только для групп,
+     * где запись индекса устарела или отсутствует.
+     * <p>
+     * Свежие записи индекса передаются в onMember сразу; если onMember вернул true,
+     * Telegram не опрашивается совсем. Группы со свежей записью о выходе пропускаются.
+     *
+     * @see #checkMemberships(Long, List, Predicate)
+     */
+    public MembershipCheckResult resolveMemberships(Long userId, List<Long> chatIds, Predicate<Long> onMember) {
+        long now = System.currentTimeMillis();
+        Map<Long, GroupMembership> known = new HashMap<>();
+        for (GroupMembership membership : membershipIndex.findByUser(userId)) {
+            known.put(membership.getGroupChatId(), membership);
+        }
 
-            log.debug("User {} membership in group {}: {} (status: {})", userId, chatId, isMember, status);
-            return isMember;
+        Set<Long> localMembers = new HashSet<>();
+        List<Long> toConfirm = new ArrayList<>();
+        for (Long chatId : chatIds) {
+            GroupMembership membership = known.get(chatId);
+            if (membership == null) {
+                toConfirm.add(chatId);
+            } else if (membership.isMember() && membership.isConfirmedWithin(memberTtlMs, now)) {
+                localMembers.add(chatId);
+                if (onMember.test(chatId)) {
+                    log.debug("Membership of user {} resolved from index", userId);
+                    return new MembershipCheckResult(Set.copyOf(localMembers), true);
+                }
+            } else if (membership.isMember() || !membership.isConfirmedWithin(negativeTtlMs, now)) {
+                toConfirm.add(chatId);
+            }
+        }
+
+        log.debug("Membership of user {}: {} groups from index, {} to confirm via Telegram",
+                userId, localMembers.size(), toConfirm.size());
+        if (toConfirm.isEmpty()) {
+            return new MembershipCheckResult(Set.copyOf(localMembers), true);
+        }
+
+        MembershipCheckResult confirmed = checkMemberships(userId, toConfirm, onMember);
+        localMembers.addAll(confirmed.memberChatIds());
+        return new MembershipCheckResult(Set.copyOf(localMembers), confirmed.complete());
+    }
+
+    /**
+     * Параллельная проверка членства пользователя в нескольких группах.
+     * <p>
+     * Одновременно выполняется не больше maxConcurrency запросов GetChatMember через неблокирующий
+     * транспорт, поэтому время проверки - порядка одного запроса к Telegram, а не их суммы.
+     * Проверка завершается досрочно:
+     * - onMember вернул true (вызывающему больше не нужны результаты)
+     * - Telegram ответил 429 - новые запросы только продлили бы ограничение
+     * - истек deadlineMs - учитываются уже полученные ответы
+     * Ошибка запроса по группе (сеть, переполненный outbound пул) - не ответ "не участник":
+     * остальные группы проверяются, но итог помечается неполным, как при дедлайне.
+     *
+     * @param onMember вызывается по мере получения ответов для каждой группы, где пользователь состоит;
+     *                 вызовы последовательны (под блокировкой проверки), после возврата из метода не вызывается
+     */
+    public MembershipCheckResult checkMemberships(Long userId, List<Long> chatIds, Predicate<Long> onMember) {
+        MembershipFanOut fanOut = new MembershipFanOut(userId, chatIds, onMember);
+        fanOut.start();
+
+        try {
+            fanOut.done.get(deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            fanOut.timedOut = true;
+            log.warn("Membership check for user {} exceeded {} ms, {} of {} groups checked",
+                    userId, deadlineMs, fanOut.completed.get(), chatIds.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fanOut.timedOut = true;
+        } catch (ExecutionException e) {
+            // done завершается только нормально
+            throw new IllegalStateException(e.getCause());
+        }
+        return fanOut.finish();
+    }
+
+    private CompletableFuture<Boolean> checkMembershipAsync(Long chatId, Long userId) {
+        return membershipCache.get(new MembershipKey(chatId, userId));
+    }
+
+    /**
+     * Загрузка и фоновое обновление записи кэша: GetChatMember через неблокирующий транспорт.
+     * Пользователь, которого Telegram не знает, - не участник (кэшируется как отрицательный ответ),
+     * остальные ошибки, включая 429, передаются вызывающему и не кэшируются.
+     */
+    private CompletableFuture<Boolean> loadMembership(MembershipKey key, Executor executor) {
+        GetChatMember getChatMember = new GetChatMember();
+        getChatMember.setChatId(String.valueOf(key.chatId()));
+        getChatMember.setUserId(key.userId());
+
+        return botClient.executeMethodAsync(getChatMember)
+                .thenApply(result -> {
+                    String status = ((ChatMember) result).getStatus();
+                    log.debug("User {} membership in group {}: status {}", key.userId(), key.chatId(), status);
+                    return isMemberStatus(status);
+                })
+                .exceptionallyCompose(e -> isUnknownUser(e)
+                        ? CompletableFuture.completedFuture(false)
+                        : CompletableFuture.failedFuture(e))
+                .thenApply(isMember -> {
+                    recordInIndex(key.chatId(), key.userId(), isMember);
+                    return isMember;
+                });
+    }
+
+    private static boolean isUnknownUser(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        String message = error.getMessage();
+        return message != null && (message.contains("user not found") || message.contains("USER_ID_INVALID"));
+    }
 
-        } catch (RuntimeException e) {
-            if (e.getMessage().contains("user not found") || e.getMessage().contains("USER_ID_INVALID")) {
-                log.warn("User {} is not a member of group {}", userId, chatId);
-                return false;
+    private void recordInIndex(Long chatId, Long userId, boolean isMember) {
+        if (isMember) {
+            membershipIndex.recordMember(chatId, userId);
+        } else {
+            membershipIndex.recordNotMember(chatId, userId);
+        }
+    }
+
+    private static boolean isMemberStatus(String status) {
+        return "member".equals(status)
+                || "administrator".equals(status)
+                || "creator".equals(status);
+    }
+
+    private static boolean isRateLimited(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof TelegramApiRequestException requestException
+                && requestException.getErrorCode() != null
+                && requestException.getErrorCode() == TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Итог параллельной проверки.
+     *
+     * @param memberChatIds группы, в которых пользователь состоит (из полученных ответов)
+     * @param complete      false, если проверка прервана по 429 или дедлайну либо запрос по какой-то группе
+     *                      завершился ошибкой - часть групп не проверена
+     */
+    public record MembershipCheckResult(Set<Long> memberChatIds, boolean complete) {
+    }
+
+    private record MembershipKey(long chatId, long userId) {
+    }
+
+    /**
+     * Разный срок жизни для участников и не участников. Фоновое обновление
+     * (refreshAfterWrite) пересчитывает срок по новому значению.
+     */
+    private record MembershipExpiry(long memberTtlNanos, long nonMemberTtlNanos) implements Expiry<MembershipKey, Boolean> {
+
+        @Override
+        public long expireAfterCreate(MembershipKey key, Boolean isMember, long currentTime) {
+            return isMember ? memberTtlNanos : nonMemberTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(MembershipKey key, Boolean isMember, long currentTime, long currentDuration) {
+            return isMember ? memberTtlNanos : nonMemberTtlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(MembershipKey key, Boolean isMember, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Состояние одной проверки: очередной запрос запускается по завершении предыдущего,
+     * так что в полете не больше maxConcurrency запросов. Результаты принимаются под блокировкой,
+     * чтобы после finish() поздние ответы уже ничего не меняли.
+     */
+    private final class MembershipFanOut {
+        private final Long userId;
+        private final List<Long> chatIds;
+        private final Predicate<Long> onMember;
+
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final Set<Long> members = new HashSet<>();
+        private boolean stopped;
+        private boolean satisfied;
+        private boolean rateLimited;
+        private boolean failed;
+        private volatile boolean timedOut;
+
+        MembershipFanOut(Long userId, List<Long> chatIds, Predicate<Long> onMember) {
+            this.userId = userId;
+            this.chatIds = chatIds;
+            this.onMember = onMember;
+        }
+
+        void start() {
+            if (chatIds.isEmpty()) {
+                done.complete(null);
+                return;
             }
-            log.error("Failed to check membership for user {} in group {}", userId, chatId, e);
-            return false;
+            int parallelism = Math.min(Math.max(maxConcurrency, 1), chatIds.size());
+            for (int i = 0; i < parallelism; i++) {
+                launchNext();
+            }
+        }
+
+        private void launchNext() {
+            if (done.isDone()) {
+                return;
+            }
+            int index = next.getAndIncrement();
+            if (index >= chatIds.size()) {
+                return;
+            }
+            Long chatId = chatIds.get(index);
+            CompletableFuture<Boolean> check;
+            try {
+                check = checkMembershipAsync(chatId, userId);
+            } catch (RuntimeException e) {
+                check = CompletableFuture.failedFuture(e);
+            }
+            check.whenComplete((isMember, error) -> onResult(chatId, isMember, error));
+        }
+
+        private void onResult(Long chatId, Boolean isMember, Throwable error) {
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                if (error != null && isRateLimited(error)) {
+                    log.warn("Telegram rate limit while checking membership of user {}, stopping after {} of {} groups",
+                            userId, completed.get(), chatIds.size());
+                    rateLimited = true;
+                    stop();
+                    return;
+                }
+                if (error != null) {
+                    // "Пользователь не найден" уже стал ответом false при загрузке - здесь только сбои
+                    log.debug("Membership check of user {} in group {} failed: {}", userId, chatId, error.getMessage());
+                    failed = true;
+                }
+                completed.incrementAndGet();
+                if (Boolean.TRUE.equals(isMember)) {
+                    members.add(chatId);
+                    if (onMember.test(chatId)) {
+                        satisfied = true;
+                        stop();
+                        return;
+                    }
+                }
+                if (completed.get() == chatIds.size()) {
+                    stop();
+                    return;
+                }
+            }
+            launchNext();
+        }
+
+        private void stop() {
+            stopped = true;
+            done.complete(null);
+        }
+
+        synchronized MembershipCheckResult finish() {
+            boolean complete = satisfied || (!rateLimited && !timedOut && !failed);
+            stop();
+            return new MembershipCheckResult(Set.copyOf(members), complete);
         }
     }
-}
\ No newline at end of file
+}
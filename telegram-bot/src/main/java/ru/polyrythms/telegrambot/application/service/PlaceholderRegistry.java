@@ -0,0 +1,50 @@
+package ru.polyrythms.telegrambot.application.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Сообщения-заглушки заданий, опубликованных раньше, чем Telegram вернул id заглушки.
+ * <p>
+ * Задание уходит в Kafka сразу после загрузки аудио, не дожидаясь заглушки из лимитированной очереди
+ * исходящих сообщений; результат находит заглушку здесь по taskId. Реестр в памяти и ограничен
+ * по размеру и времени: результат, прочитанный другим экземпляром или после истечения записи,
+ * приходит новым сообщением.
+ */
+@Service
+public class PlaceholderRegistry {
+
+    private static final CompletableFuture<Integer> NONE = CompletableFuture.completedFuture(null);
+
+    private final Cache<String, CompletableFuture<Integer>> placeholders;
+
+    public PlaceholderRegistry(
+            @Value("${telegram.voice.placeholders.max-entries:10000}") long maxEntries,
+            @Value("${telegram.voice.placeholders.ttl-ms:1800000}") long ttlMs) {
+        this.placeholders = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    public void register(String taskId, CompletableFuture<Integer> placeholder) {
+        placeholders.put(taskId, placeholder);
+    }
+
+    /**
+     * @return future с id заглушки; с null, если заглушки нет или ее не удалось отправить
+     */
+    public CompletableFuture<Integer> find(String taskId) {
+        CompletableFuture<Integer> placeholder = placeholders.getIfPresent(taskId);
+        return placeholder != null ? placeholder : NONE;
+    }
+
+    public void remove(String taskId) {
+        placeholders.invalidate(taskId);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.polyrythms.telegrambot.application.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.polyrythms.telegrambot.application.port.input.TaskLedgerReportUseCase;
+import ru.polyrythms.telegrambot.application.port.output.TaskLedger;
+import ru.polyrythms.telegrambot.domain.model.GroupLatencyReport;
+import ru.polyrythms.telegrambot.domain.model.TaskLedgerEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class TaskLedgerReportService implements TaskLedgerReportUseCase {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final TaskLedger taskLedger;
+
+    @Override
+    public List<TaskLedgerEntry> getSlowTasks(Duration period, long thresholdMs, int limit) {
+        validatePeriod(period);
+        if (thresholdMs < 0) {
+            throw new IllegalArgumentException("Порог должен быть неотрицательным");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Лимит должен быть положительным");
+        }
+        return taskLedger.findSlowTasks(Instant.now().minus(period), thresholdMs, Math.min(limit, MAX_LIMIT));
+    }
+
+    @Override
+    public List<GroupLatencyReport> getGroupLatency(Duration period) {
+        validatePeriod(period);
+        return taskLedger.getGroupLatency(Instant.now().minus(period));
+    }
+
+    private void validatePeriod(Duration period) {
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Период должен быть положительным");
+        }
+    }
+}
@@ -8,7 +8,9 @@ import ru.polyrythms.telegrambot.application.port.input.CommandHandlingUseCase;
 import ru.polyrythms.telegrambot.application.port.input.GroupManagementUseCase;
 import ru.polyrythms.telegrambot.application.port.input.TelegramInboundPort;
 import ru.polyrythms.telegrambot.application.port.input.VoiceMessageProcessingUseCase;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.application.port.output.MessageSender;
+import ru.polyrythms.telegrambot.domain.exception.PipelineBusyException;
 import ru.polyrythms.telegrambot.infrastructure.metrics.BotMetrics;
 
 import java.util.concurrent.ConcurrentHashMap;
@@ -30,9 +32,6 @@ public class TelegramUpdateHandler implements TelegramInboundPort {
     private final MessageSender messageSender;
     private final BotMetrics botMetrics;
 
-    // Кэш для разрешенных групп (оптимизация производительности)
-    private final ConcurrentHashMap<Long, Boolean> groupCache = new ConcurrentHashMap<>();
-
     // Кэш для уведомлений об ограничениях (чтобы не спамить)
     private final ConcurrentHashMap<Long, Long> notificationCache = new ConcurrentHashMap<>();
 
@@ -54,7 +53,9 @@ public class TelegramUpdateHandler implements TelegramInboundPort {
             botMetrics.recordMessage();
 
             // Маршрутизация по типу сообщения
-            if (update.isHasVoice()) {
+            if (update.isHasCallback()) {
+                handleCallbackQuery(update);
+            } else if (update.isHasVoice()) {
                 handleVoiceMessage(update);
             } else if (update.isCommand()) {
                 handleCommand(update);
@@ -62,6 +63,9 @@ public class TelegramUpdateHandler implements TelegramInboundPort {
                 handlePlainText(update);
             }
 
+        } catch (PipelineBusyException e) {
+            // Обновление будет отложено вызывающей задачей
+            throw e;
         } catch (Exception e) {
             log.error("Error handling update from user: {}", update.getUserId(), e);
             botMetrics.recordError();
@@ -84,13 +88,13 @@ public class TelegramUpdateHandler implements TelegramInboundPort {
         botMetrics.recordVoiceMessage();
 
         // Проверка разрешения группы (для групповых чатов)
-        if (voiceUpdate.isGroupChat() && !isGroupAllowedCached(voiceUpdate.getChatId())) {
+        if (voiceUpdate.isGroupChat() && !groupManagementUseCase.isGroupAllowed(voiceUpdate.getChatId())) {
             log.debug("Group chat {} is not allowed for voice messages", voiceUpdate.getChatId());
 
             if (shouldNotifyAboutRestriction(voiceUpdate.getChatId())) {
                 messageSender.sendMessageAsync(voiceUpdate.getChatId(),
                         "⚠️ Этот чат не активирован для обработки голосовых сообщений.\n" +
-                                "Обратитесь к администратору для активации.");
+                                "Обратитесь к администратору для активации.", MessagePriority.LOW);
             }
             return;
         }
@@ -131,15 +135,22 @@ public class TelegramUpdateHandler implements TelegramInboundPort {
                             🤖 Я понимаю только команды.
                             
                             📝 Используйте /help для списка команд.
-                            🎤 Или отправьте голосовое сообщение для распознавания.""");
+                            🎤 Или отправьте голосовое сообщение для распознавания.""", MessagePriority.LOW);
         }
     }
 
-    /**
-     * Проверка разрешения группы с кэшированием
-     */
-    private boolean isGroupAllowedCached(Long chatId) {
-        return groupCache.computeIfAbsent(chatId, groupManagementUseCase::isGroupAllowed);
+    @Override
+    public void handleCallbackQuery(TelegramUpdateDto callbackUpdate) {
+        log.debug("Processing callback '{}' from user: {} in chat: {}",
+                callbackUpdate.getCallbackData(), callbackUpdate.getUserId(), callbackUpdate.getChatId());
+
+        commandHandlingUseCase.handleCallback(
+                callbackUpdate.getChatId(),
+                callbackUpdate.getUserId(),
+                callbackUpdate.getCallbackMessageId(),
+                callbackUpdate.getCallbackQueryId(),
+                callbackUpdate.getCallbackData()
+        );
     }
 
     /**
@@ -158,19 +169,10 @@ public class TelegramUpdateHandler implements TelegramInboundPort {
 
     // ========== Публичные методы для управления кэшем ==========
 
-    /**
-     * Инвалидация кэша для конкретной группы
-     */
-    public void invalidateGroupCache(Long chatId) {
-        groupCache.remove(chatId);
-        log.info("Group cache invalidated for chatId: {}", chatId);
-    }
-
     /**
      * Очистка всех кэшей
      */
     public void clearCaches() {
-        groupCache.clear();
         notificationCache.clear();
         log.info("All caches cleared");
     }
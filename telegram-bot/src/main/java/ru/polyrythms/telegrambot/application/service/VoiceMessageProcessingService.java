@@ -1,83 +1,167 @@
 // application/service/VoiceMessageProcessingService.java
 package ru.polyrythms.telegrambot.application.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import ru.polyrythms.telegrambot.application.port.input.GroupManagementUseCase;
 import ru.polyrythms.telegrambot.application.port.input.VoiceMessageProcessingUseCase;
 import ru.polyrythms.telegrambot.application.port.output.AudioStorage;
 import ru.polyrythms.telegrambot.application.port.output.DecryptionTaskProducer;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.application.port.output.MessageSender;
+import ru.polyrythms.telegrambot.application.port.output.TaskLedger;
+import ru.polyrythms.telegrambot.application.port.output.TaskStatistics;
 import ru.polyrythms.telegrambot.application.port.input.TelegramFileDownloader;
+import ru.polyrythms.telegrambot.domain.exception.PipelineBusyException;
 import ru.polyrythms.telegrambot.domain.model.DecryptionTask;
+import ru.polyrythms.telegrambot.domain.model.TaskStage;
 import ru.polyrythms.telegrambot.domain.model.VoiceMessage;
 
-import java.io.File;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Асинхронный конвейер обработки голосовых сообщений.
+ * <p>
+ * Стадии:
+ * 1. Скачивание из Telegram и загрузка в MinIO - пул voiceStorageExecutor (I/O параллелизм)
+ * 2. Сообщение-заглушка - параллельно со стадией 1, через планировщик исходящих сообщений
+ * 3. Публикация задания в Kafka - сразу после стадии 1, завершение по подтверждению брокера
+ * <p>
+ * Публикация не ждет заглушку: ее id уходит в задании, только если уже известен, иначе результат
+ * находит заглушку в {@link PlaceholderRegistry}.
+ * <p>
+ * Входящий поток только запускает конвейер и не ждет завершения стадий. Число сообщений в конвейере
+ * ограничено семафором: если места нет, бросается {@link PipelineBusyException} - сообщение
+ * сразу откладывается в журнал переполнения, а не теряется и не занимает входящий поток.
+ * <p>
+ * Идентификатор задания назначается при приеме сообщения, время стадий пишется в {@link TaskLedger}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class VoiceMessageProcessingService implements VoiceMessageProcessingUseCase {
 
     private final AudioStorage audioStorage;
     private final TelegramFileDownloader fileDownloader;
     private final DecryptionTaskProducer taskProducer;
     private final MessageSender messageSender;
+    private final TaskStatistics taskStatistics;
+    private final TaskLedger taskLedger;
+    private final PlaceholderRegistry placeholderRegistry;
+    private final Executor storageExecutor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    /**
+     * edit - одно сообщение-заглушка, которое редактируется по мере обработки;
+     * separate - подтверждение и результат отдельными сообщениями
+     */
+    @Value("${telegram.voice.reply-mode:edit}")
+    private String replyMode;
+
+    // fileUniqueId -> загрузка в процессе: параллельные пересылки одного файла ждут одну загрузку
+    private final Map<String, CompletableFuture<String>> inFlightUploads = new ConcurrentHashMap<>();
+
+    public VoiceMessageProcessingService(
+            AudioStorage audioStorage,
+            TelegramFileDownloader fileDownloader,
+            DecryptionTaskProducer taskProducer,
+            MessageSender messageSender,
+            TaskStatistics taskStatistics,
+            TaskLedger taskLedger,
+            PlaceholderRegistry placeholderRegistry,
+            @Qualifier("voiceStorageExecutor") Executor storageExecutor,
+            @Value("${telegram.voice.pipeline.max-in-flight:32}") int maxInFlight) {
+        this.audioStorage = audioStorage;
+        this.fileDownloader = fileDownloader;
+        this.taskProducer = taskProducer;
+        this.messageSender = messageSender;
+        this.taskStatistics = taskStatistics;
+        this.taskLedger = taskLedger;
+        this.placeholderRegistry = placeholderRegistry;
+        this.storageExecutor = storageExecutor;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+    }
 
     @Override
     public void processVoiceMessage(VoiceMessage voiceMessage) {
         log.info("Processing voice message from chatId: {}, fileId: {}",
                 voiceMessage.getChatId(), voiceMessage.getFileId());
 
-        File voiceFile = null;
         try {
             // Валидация
             validateVoiceMessage(voiceMessage);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid voice message from chatId: {}", voiceMessage.getChatId(), e);
+            reportFailure(voiceMessage, null, e);
+            return;
+        }
 
-            // Скачиваем файл
-            log.debug("Downloading file: {}", voiceMessage.getFileId());
-            voiceFile = fileDownloader.downloadFile(voiceMessage.getFileId());
-
-            if (voiceFile == null || !voiceFile.exists()) {
-                throw new RuntimeException("Downloaded file is null or doesn't exist");
-            }
-
-            log.info("File downloaded: {} ({} bytes)",
-                    voiceFile.getName(), voiceFile.length());
+        boolean privateChat = !voiceMessage.getIsGroupChat();
+        acquirePipelineSlot(voiceMessage.getChatId());
 
-            // Сохраняем в MinIO
-            String audioId = audioStorage.storeAudio(voiceFile, voiceMessage.getFileUniqueId());
-            String audioUrl = audioStorage.getPublicUrl(audioId);
+        Long chatId = voiceMessage.getChatId();
+        String taskId = UUID.randomUUID().toString();
+        taskLedger.recordReceived(taskId, chatId, voiceMessage.getDuration());
 
-            log.debug("File stored in MinIO: {}, URL: {}", audioId, audioUrl);
+        // В режиме edit заглушка отправляется параллельно со скачиванием и публикацией задания
+        CompletableFuture<Integer> placeholder = privateChat && isEditMode()
+                ? sendPlaceholder(voiceMessage.getChatId())
+                : CompletableFuture.completedFuture(null);
+        placeholderRegistry.register(taskId, placeholder);
 
-            // Создаем и отправляем задание
-            DecryptionTask task = createDecryptionTask(audioId, voiceMessage.getChatId(), audioUrl);
-            taskProducer.sendTask(task);
+        storeAudioOnce(voiceMessage)
+                .thenApply(audioId -> {
+                    taskLedger.recordStage(taskId, chatId, TaskStage.STORED);
+                    return createDecryptionTask(taskId, audioId, voiceMessage, audioStorage.getPublicUrl(audioId),
+                            placeholder.getNow(null));
+                })
+                .thenCompose(task -> taskProducer.sendTask(task).thenApply(sent -> task))
+                .whenComplete((task, error) -> {
+                    inFlight.release();
 
-            // Отправляем подтверждение
-            if (!voiceMessage.getIsGroupChat()) {
-                messageSender.sendMessageAsync(voiceMessage.getChatId(),
-                        "✅ Ваше голосовое сообщение принято в обработку...");
-            }
+                    if (error != null) {
+                        log.error("Failed to process voice message from chatId: {}", voiceMessage.getChatId(), error);
+                        placeholderRegistry.remove(taskId);
+                        taskStatistics.recordTaskFailed(voiceMessage.getChatId());
+                        taskLedger.recordFailed(taskId, chatId, String.valueOf(unwrap(error)));
+                        placeholder.thenAccept(replyMessageId -> reportFailure(voiceMessage, replyMessageId, unwrap(error)));
+                        return;
+                    }
 
-            log.info("Voice message processed successfully, taskId: {}", task.getTaskId());
+                    taskStatistics.recordTaskCreated(voiceMessage.getChatId());
+                    taskLedger.recordStage(taskId, chatId, TaskStage.QUEUED);
 
-        } catch (Exception e) {
-            log.error("Failed to process voice message from chatId: {}",
-                    voiceMessage.getChatId(), e);
+                    // Без заглушки (режим separate или ее не удалось отправить) - отдельное подтверждение
+                    if (privateChat) {
+                        placeholder.thenAccept(replyMessageId -> {
+                            if (replyMessageId == null) {
+                                messageSender.sendMessageAsync(voiceMessage.getChatId(),
+                                        "✅ Ваше голосовое сообщение принято в обработку...", MessagePriority.LOW);
+                            }
+                        });
+                    }
 
-            String errorMessage = getErrorMessage(e);
-            if (!voiceMessage.getIsGroupChat()) {
-                messageSender.sendMessage(voiceMessage.getChatId(),
-                        "❌ Ошибка при обработке: " + errorMessage);
-            }
+                    log.info("Voice message processed successfully, taskId: {}", task.getTaskId());
+                });
+    }
 
-        } finally {
-            cleanUpTempFile(voiceFile);
+    /**
+     * Занимает место в конвейере без ожидания: при заполненном конвейере входящий поток
+     * не блокируется, а обновление сразу уходит в журнал переполнения.
+     */
+    private void acquirePipelineSlot(Long chatId) {
+        if (!inFlight.tryAcquire()) {
+            log.warn("Voice pipeline is full ({} in flight), deferring message from chatId: {}", maxInFlight, chatId);
+            throw new PipelineBusyException("Voice pipeline is full");
         }
     }
 
@@ -91,18 +175,122 @@ public class VoiceMessageProcessingService implements VoiceMessageProcessingUseC
         }
     }
 
-    private DecryptionTask createDecryptionTask(String audioId, Long chatId, String audioUrl) {
+    /**
+     * Сохраняет аудио, если его еще нет в хранилище. Пересылки и повторы одного файла
+     * (один fileUniqueId) не скачиваются заново, а одновременные - получают future первой загрузки.
+     */
+    private CompletableFuture<String> storeAudioOnce(VoiceMessage voiceMessage) {
+        String uniqueId = voiceMessage.getFileUniqueId();
+        if (uniqueId == null) {
+            return supplyOnStorageExecutor(() -> streamToStorage(voiceMessage));
+        }
+
+        CompletableFuture<String> upload = new CompletableFuture<>();
+        CompletableFuture<String> inFlightUpload = inFlightUploads.putIfAbsent(uniqueId, upload);
+        if (inFlightUpload != null) {
+            log.debug("Joining in-flight upload of {}", uniqueId);
+            return inFlightUpload;
+        }
+
+        supplyOnStorageExecutor(() -> {
+            String existing = audioStorage.findAudio(uniqueId);
+            if (existing != null) {
+                log.info("Audio {} already stored, skipping download", existing);
+                return existing;
+            }
+            return streamToStorage(voiceMessage);
+        }).whenComplete((audioId, error) -> {
+            inFlightUploads.remove(uniqueId, upload);
+            if (error != null) {
+                upload.completeExceptionally(error);
+            } else {
+                upload.complete(audioId);
+            }
+        });
+        return upload;
+    }
+
+    private CompletableFuture<String> supplyOnStorageExecutor(StorageStep step) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return step.run();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, storageExecutor);
+        } catch (Exception e) {
+            // Пул стадии отклонил задачу
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ответ Telegram сразу передается в MinIO - без временного файла и копии на диске
+     */
+    private String streamToStorage(VoiceMessage voiceMessage) throws Exception {
+        log.debug("Streaming file to MinIO: {}", voiceMessage.getFileId());
+        try (TelegramFileDownloader.FileStream file = fileDownloader.openFile(voiceMessage.getFileId())) {
+            String audioId = audioStorage.storeAudio(file.stream(), file.size(), voiceMessage.getFileUniqueId());
+            log.info("File streamed to MinIO: {} ({} bytes)", audioId, file.size());
+            return audioId;
+        }
+    }
+
+    private boolean isEditMode() {
+        return "edit".equals(replyMode);
+    }
+
+    /**
+     * @return future с id заглушки или null, если отправить не удалось (тогда результат придет новым сообщением)
+     */
+    private CompletableFuture<Integer> sendPlaceholder(Long chatId) {
+        try {
+            return messageSender.sendMessageReturningIdAsync(chatId, "⏳ Голосовое сообщение принято, расшифровываю...")
+                    .exceptionally(e -> {
+                        log.warn("Failed to send placeholder message to chatId: {}", chatId, e);
+                        return null;
+                    });
+        } catch (Exception e) {
+            log.warn("Failed to send placeholder message to chatId: {}", chatId, e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Уведомление об ошибке без блокировки: колбэки конвейера выполняются в потоках стадий и Kafka producer
+     */
+    private void reportFailure(VoiceMessage voiceMessage, Integer replyMessageId, Throwable error) {
+        String text = "❌ Ошибка при обработке: " + getErrorMessage(error);
+        if (replyMessageId != null) {
+            messageSender.editMessageAsync(voiceMessage.getChatId(), replyMessageId, text);
+        } else if (!voiceMessage.getIsGroupChat()) {
+            messageSender.sendMessageAsync(voiceMessage.getChatId(), text);
+        }
+    }
+
+    private DecryptionTask createDecryptionTask(String taskId, String audioId, VoiceMessage voiceMessage,
+                                                String audioUrl, Integer replyMessageId) {
         return DecryptionTask.builder()
-                .taskId(UUID.randomUUID().toString())
+                .taskId(taskId)
                 .audioId(audioId)
-                .chatId(chatId)
+                .chatId(voiceMessage.getChatId())
                 .audioUrl(audioUrl)
                 .createdAt(LocalDateTime.now())
                 .status(DecryptionTask.TaskStatus.CREATED)
+                .replyMessageId(replyMessageId)
+                .durationSeconds(voiceMessage.getDuration())
                 .build();
     }
 
-    private String getErrorMessage(Exception e) {
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private String getErrorMessage(Throwable e) {
         if (e instanceof IllegalArgumentException) {
             return e.getMessage();
         }
@@ -112,17 +300,8 @@ public class VoiceMessageProcessingService implements VoiceMessageProcessingUseC
         return "Попробуйте позже";
     }
 
-    private void cleanUpTempFile(File file) {
-        if (file != null && file.exists()) {
-            try {
-                if (file.delete()) {
-                    log.debug("Temporary file deleted: {}", file.getAbsolutePath());
-                } else {
-                    log.warn("Failed to delete temporary file: {}", file.getAbsolutePath());
-                }
-            } catch (Exception e) {
-                log.warn("Error deleting temporary file: {}", file.getAbsolutePath(), e);
-            }
-        }
+    @FunctionalInterface
+    private interface StorageStep {
+        String run() throws Exception;
     }
-}
\ No newline at end of file
+}
@@ -11,9 +11,12 @@ import ru.polyrythms.telegrambot.application.port.output.TelegramGroupRepository
 import ru.polyrythms.telegrambot.domain.exception.UnauthorizedException;
 import ru.polyrythms.telegrambot.domain.exception.DomainException;
 import ru.polyrythms.telegrambot.domain.model.City;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -38,6 +41,11 @@ public class WeatherAdminService implements WeatherAdminUseCase {
         return cityRepository.findAll();
     }
 
+    @Override
+    public KeysetPage<City> listCitiesPage(PageCursor cursor, int size) {
+        return cityRepository.findPage(cursor, size);
+    }
+
     @Override
     public void assignCityToGroup(Long groupChatId, Long cityId, Long adminId) {
         checkGroupManagementPermission(adminId);
@@ -61,10 +69,13 @@ public class WeatherAdminService implements WeatherAdminUseCase {
 
     @Override
     public List<City> getCitiesForGroup(Long groupChatId) {
-        return groupCityRepository.findByGroupChatId(groupChatId).stream()
-                .map(gc -> cityRepository.findById(gc.getCityId()).orElse(null))
-                .filter(Objects::nonNull)
-                .toList();
+        return groupCityRepository.findCitiesByGroupChatIds(List.of(groupChatId))
+                .getOrDefault(groupChatId, List.of());
+    }
+
+    @Override
+    public Map<Long, List<City>> getCitiesForGroups(Collection<Long> groupChatIds) {
+        return groupCityRepository.findCitiesByGroupChatIds(groupChatIds);
     }
 
     private void checkGroupManagementPermission(Long adminId) {
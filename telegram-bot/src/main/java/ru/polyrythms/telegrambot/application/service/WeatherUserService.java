@@ -14,9 +14,8 @@ import ru.polyrythms.telegrambot.application.port.input.WeatherUserUseCase;
 import ru.polyrythms.telegrambot.domain.exception.UnauthorizedException;
 import ru.polyrythms.telegrambot.domain.model.City;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
+import ru.polyrythms.telegrambot.infrastructure.security.InitDataVerifier;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -32,10 +31,7 @@ public class WeatherUserService implements WeatherUserUseCase {
     private final WebClient.Builder webClientBuilder;
     private final GroupManagementUseCase groupManagementUseCase;
     private final GroupMembershipService membershipService;
-
-
-    @Value("${telegram.bot.token}")
-    private String botToken;
+    private final InitDataVerifier initDataVerifier;
 
     @Value("${internal.auth.key}")
     private String internalAuthKey;
@@ -53,14 +49,11 @@ public class WeatherUserService implements WeatherUserUseCase {
 
     @Override
     public String authenticateWithInitData(String initData) {
-        // 1. Верификация через нашу реализацию
-        if (!verifyInitData(initData)) {
+        // 1-2. Верификация и параметры - только проверенные поля, исходная строка повторно не разбирается
+        Map<String, String> params = initDataVerifier.verifyAndParse(initData).orElseThrow(() -> {
             log.warn("Invalid initData signature");
-            throw new SecurityException("Неверная подпись данных");
-        }
-
-        // 2. Парсинг параметров
-        Map<String, String> params = parseInitDataParams(initData);
+            return new SecurityException("Неверная подпись данных");
+        });
         Long userId = extractUserId(params);
         if (userId == null) {
             throw new SecurityException("Не удалось извлечь user.id из initData");
@@ -73,18 +66,30 @@ public class WeatherUserService implements WeatherUserUseCase {
             throw new UnauthorizedException("В системе нет активных групп. Обратитесь к администратору.");
         }
 
-        // 4. Проверяем членство пользователя в каждой группе и собираем cityIds
+        // 4. Города всех активных групп - из снимка справочников; группы без городов не проверяем
+        List<Long> activeGroupIds = activeGroups.stream().map(TelegramGroup::getChatId).toList();
+        Map<Long, List<City>> citiesByGroup = weatherAdminUseCase.getCitiesForGroups(activeGroupIds);
+        List<Long> candidateGroupIds = activeGroupIds.stream()
+                .filter(groupId -> !citiesByGroup.getOrDefault(groupId, List.of()).isEmpty())
+                .toList();
+        Set<Long> allCityIds = new HashSet<>();
+        citiesByGroup.values().forEach(cities -> cities.forEach(city -> allCityIds.add(city.getId())));
+
+        // Членство - по индексу, GetChatMember параллельно только для устаревших и неизвестных записей:
+        // cityIds собираются по мере ответов, проверка заканчивается, как только доступны все города
         Set<Long> uniqueCityIds = new HashSet<>();
-        for (TelegramGroup group : activeGroups) {
-            if (membershipService.isUserMemberOfGroup(group.getChatId(), userId)) {
-                List<City> cities = weatherAdminUseCase.getCitiesForGroup(group.getChatId());
-                for (City city : cities) {
-                    uniqueCityIds.add(city.getId());
-                }
-            }
-        }
+        GroupMembershipService.MembershipCheckResult membership = membershipService.resolveMemberships(
+                userId, candidateGroupIds, groupId -> {
+                    for (City city : citiesByGroup.get(groupId)) {
+                        uniqueCityIds.add(city.getId());
+                    }
+                    return uniqueCityIds.size() == allCityIds.size();
+                });
 
         if (uniqueCityIds.isEmpty()) {
+            if (!membership.complete()) {
+                throw new UnauthorizedException("Не удалось проверить членство в группах. Попробуйте позже.");
+            }
             throw new UnauthorizedException("Вы не состоите ни в одной разрешённой группе. Доступ к прогнозу погоды запрещён.");
         }
 
@@ -147,84 +152,9 @@ public class WeatherUserService implements WeatherUserUseCase {
     }
 
     public boolean verifyInitData(String initData) {
-        if (initData == null || initData.isEmpty()) {
-            log.warn("initData is null or empty");
-            return false;
-        }
-
-        try {
-            // 1. Разбираем параметры вручную (сохраняем строку)
-            Map<String, String> params = new LinkedHashMap<>();
-            String[] pairs = initData.split("&");
-            for (String pair : pairs) {
-                int idx = pair.indexOf("=");
-                if (idx > 0) {
-                    String key = pair.substring(0, idx);
-                    String value = URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8.name());
-                    params.put(key, value);
-                }
-            }
-
-            log.info("Parsed params keys: {}", params.keySet());
-
-            // 2. Извлекаем hash
-            String receivedHash = params.remove("hash");
-            if (receivedHash == null) {
-                log.warn("Hash parameter not found");
-                return false;
-            }
-
-            // 3. Удаляем signature (не используется в WebApp)
-            params.remove("signature");
-
-            // 4. Формируем строку для проверки
-            String dataCheckString = params.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .map(entry -> entry.getKey() + "=" + entry.getValue())
-                    .collect(Collectors.joining("\n"));
-
-            log.debug("Data check string:\n{}", dataCheckString);
-
-            // 5. Вычисляем secret_key: HMAC-SHA256(bot_token, "WebAppData")
-            byte[] secretKeyBytes = hmacSha256(botToken.getBytes(StandardCharsets.UTF_8), "WebAppData".getBytes(StandardCharsets.UTF_8));
-            SecretKeySpec secretKey = new SecretKeySpec(secretKeyBytes, "HmacSHA256");
-
-            // 6. Вычисляем ожидаемый hash
-            Mac hmac = Mac.getInstance("HmacSHA256");
-            hmac.init(secretKey);
-            byte[] calculatedHashBytes = hmac.doFinal(dataCheckString.getBytes(StandardCharsets.UTF_8));
-            String calculatedHash = bytesToHex(calculatedHashBytes);
-
-            log.info("Received hash: {}", receivedHash);
-            log.info("Calculated hash: {}", calculatedHash);
-
-            boolean isValid = calculatedHash.equals(receivedHash);
-            log.info("Verification result: {}", isValid);
-            return isValid;
-
-        } catch (Exception e) {
-            log.error("Error verifying init data", e);
-            return false;
-        }
-    }
-
-    private byte[] hmacSha256(byte[] key, byte[] message) {
-        try {
-            Mac hmac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key, "HmacSHA256");
-            hmac.init(secretKeySpec);
-            return hmac.doFinal(message);
-        } catch (Exception e) {
-            throw new RuntimeException("HMAC-SHA256 error", e);
-        }
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+        boolean valid = initDataVerifier.verify(initData);
+        log.debug("initData verification result: {}", valid);
+        return valid;
     }
 
     private String generateJwtForUser(Long userId, Long chatId, List<Long> cityIds) {
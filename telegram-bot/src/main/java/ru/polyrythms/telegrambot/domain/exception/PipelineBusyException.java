@@ -0,0 +1,11 @@
+package ru.polyrythms.telegrambot.domain.exception;
+
+/**
+ * Конвейер обработки заполнен и не освободился за время ожидания.
+ * Сообщение не потеряно: вызывающая сторона должна отложить его и повторить позже.
+ */
+public class PipelineBusyException extends DomainException {
+    public PipelineBusyException(String message) {
+        super(message);
+    }
+}
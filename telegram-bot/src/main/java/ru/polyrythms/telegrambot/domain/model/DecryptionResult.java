@@ -0,0 +1,31 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Результат расшифровки голосового сообщения от audio-service.
+ */
+@Value
+@Builder
+public class DecryptionResult {
+    String taskId;
+    Long chatId;
+    ResultStatus status;
+    String decryptedText;
+    String errorMessage;
+    Integer replyMessageId;  // сообщение-заглушка, которое нужно отредактировать (null - отправить новое)
+    Integer partIndex;       // потоковая расшифровка: распознано фрагментов
+    Integer partCount;       // потоковая расшифровка: всего фрагментов
+
+    /**
+     * Промежуточный результат потоковой расшифровки (накопленный текст первых фрагментов)
+     */
+    public boolean isStreamingPartial() {
+        return status == ResultStatus.PARTIALLY_DECRYPTED && partCount != null;
+    }
+
+    public enum ResultStatus {
+        SUCCESSFULLY_DECRYPTED, PARTIALLY_DECRYPTED, DECRYPTION_FAILED
+    }
+}
@@ -13,6 +13,8 @@ public class DecryptionTask {
     String audioUrl;
     LocalDateTime createdAt;
     TaskStatus status;
+    Integer replyMessageId;
+    Integer durationSeconds;
 
     public enum TaskStatus {
         CREATED, PROCESSING, COMPLETED, FAILED
@@ -0,0 +1,23 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Средние задержки стадий заданий одного чата за период.
+ * Средние значения считаются только по заданиям, прошедшим обе границы стадии (иначе null).
+ */
+@Value
+@Builder
+public class GroupLatencyReport {
+    Long chatId;
+    long tasks;
+    long failed;
+    long undelivered;
+    Long avgStoreMs;
+    Long avgQueueMs;
+    Long avgTranscribeMs;
+    Long avgDeliverMs;
+    Long avgTotalMs;
+    Long maxTotalMs;
+}
@@ -0,0 +1,19 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Value;
+
+/**
+ * Известное боту членство пользователя в группе и время, когда оно было подтверждено
+ * (сообщение пользователя в группе, обновление chat_member или ответ GetChatMember).
+ */
+@Value
+public class GroupMembership {
+    Long groupChatId;
+    Long userId;
+    boolean member;
+    long confirmedAtMs;
+
+    public boolean isConfirmedWithin(long ttlMs, long nowMs) {
+        return nowMs - confirmedAtMs <= ttlMs;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Страница keyset-пагинации: элементы по возрастанию id и признаки наличия соседних страниц.
+ */
+@Value
+public class KeysetPage<T> {
+    List<T> items;
+    boolean hasPrevious;
+    boolean hasNext;
+}
@@ -0,0 +1,27 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Value;
+
+/**
+ * Курсор keyset-пагинации по возрастанию id: страница после id (вперед) или перед id (назад).
+ * Пустой курсор - первая страница.
+ */
+@Value
+public class PageCursor {
+    private static final PageCursor FIRST = new PageCursor(null, false);
+
+    Long id;
+    boolean backward;
+
+    public static PageCursor first() {
+        return FIRST;
+    }
+
+    public static PageCursor after(long id) {
+        return new PageCursor(id, false);
+    }
+
+    public static PageCursor before(long id) {
+        return new PageCursor(id, true);
+    }
+}
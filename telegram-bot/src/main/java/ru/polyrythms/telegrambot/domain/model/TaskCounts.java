@@ -0,0 +1,15 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Value;
+
+/**
+ * Количество созданных, выполненных и неудавшихся заданий расшифровки.
+ */
+@Value
+public class TaskCounts {
+    public static final TaskCounts EMPTY = new TaskCounts(0, 0, 0);
+
+    long created;
+    long completed;
+    long failed;
+}
@@ -0,0 +1,30 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала заданий: время прохождения стадий одного задания расшифровки.
+ * Стадии, до которых задание не дошло, равны null.
+ */
+@Value
+@Builder
+public class TaskLedgerEntry {
+    String taskId;
+    Long chatId;
+    Integer durationSeconds;
+    Instant receivedAt;
+    Instant storedAt;
+    Instant queuedAt;
+    Instant transcribedAt;
+    Instant deliveredAt;
+    Instant failedAt;
+    String error;
+
+    /**
+     * Время от приема до доставки или ошибки; для незавершенных заданий - до момента запроса
+     */
+    long totalMs;
+}
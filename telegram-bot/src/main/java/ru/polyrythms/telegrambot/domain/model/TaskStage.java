@@ -0,0 +1,19 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+/**
+ * Стадии задания расшифровки, время которых записывается в журнал заданий.
+ */
+public enum TaskStage {
+    /** Голосовое сообщение принято конвейером */
+    RECEIVED,
+    /** Аудио сохранено в хранилище */
+    STORED,
+    /** Задание опубликовано в Kafka */
+    QUEUED,
+    /** Получен финальный результат расшифровки */
+    TRANSCRIBED,
+    /** Результат доставлен в чат */
+    DELIVERED,
+    /** Задание завершилось ошибкой */
+    FAILED
+}
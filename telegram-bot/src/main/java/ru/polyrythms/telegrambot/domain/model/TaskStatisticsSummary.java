@@ -0,0 +1,21 @@
+package ru.polyrythms.telegrambot.domain.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Статистика заданий расшифровки: за все время и за скользящие окна.
+ */
+@Value
+@Builder
+public class TaskStatisticsSummary {
+    public static final TaskStatisticsSummary EMPTY = TaskStatisticsSummary.builder()
+            .total(TaskCounts.EMPTY)
+            .lastHour(TaskCounts.EMPTY)
+            .lastDay(TaskCounts.EMPTY)
+            .build();
+
+    TaskCounts total;
+    TaskCounts lastHour;
+    TaskCounts lastDay;
+}
@@ -0,0 +1,35 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.input.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.kafka.Topics;
+import ru.polyrythms.kafka.dto.GroupChangedEvent;
+import ru.polyrythms.telegrambot.application.port.output.ActiveGroupCache;
+
+/**
+ * Применяет события изменения групп к снимку справочных таблиц через {@link ActiveGroupCache} -
+ * точечно, без перечитывания таблиц.
+ * Каждый узел читает топик своей consumer group, поэтому событие получают все экземпляры.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GroupEventListener {
+
+    private final ActiveGroupCache activeGroupCache;
+
+    @KafkaListener(
+            topics = Topics.TELEGRAM_GROUP_EVENTS,
+            containerFactory = "groupChangedEventConcurrentKafkaListenerContainerFactory"
+    )
+    public void handleGroupChanged(@Payload GroupChangedEvent event, Acknowledgment ack) {
+        log.debug("Received group change event: chatId={}, active={}", event.getChatId(), event.getActive());
+
+        activeGroupCache.apply(event.getChatId(), Boolean.TRUE.equals(event.getActive()));
+        ack.acknowledge();
+    }
+}
@@ -8,16 +8,18 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 import ru.polyrythms.kafka.Topics;
 import ru.polyrythms.kafka.dto.AudioDecryptionResult;
-import ru.polyrythms.telegrambot.application.port.input.DecryptionResultHandlingUseCase;
+import ru.polyrythms.telegrambot.domain.model.DecryptionResult;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class KafkaResultListener {
 
-    private final DecryptionResultHandlingUseCase resultHandlingUseCase;
+    private final ResultDeliveryPipeline deliveryPipeline;
 
     @KafkaListener(
+            id = ResultDeliveryPipeline.LISTENER_ID,
+            idIsGroup = false,
             topics = Topics.AUDIO_DECRYPTION_RESULTS,
             containerFactory = "audioDecryptionResultConcurrentKafkaListenerContainerFactory"
     )
@@ -25,18 +27,30 @@ public class KafkaResultListener {
         log.info("Received decryption result for taskId: {}, status: {}",
                 result.getTaskId(), result.getStatus());
 
+        DecryptionResult decryptionResult;
         try {
-            resultHandlingUseCase.handleDecryptionResult(
-                    result.getTaskId(),
-                    result.getStatus().name(),
-                    result.getDecryptedText(),
-                    result.getErrorMessage(),
-                    result.getChatId()
-            );
-            ack.acknowledge();
-            log.info("Successfully processed result for taskId: {}", result.getTaskId());
+            decryptionResult = toDomain(result);
         } catch (Exception e) {
+            // Некорректная запись не будет обработана и при повторе - подтверждаем, чтобы не блокировать партицию
             log.error("Failed to process decryption result for taskId: {}", result.getTaskId(), e);
+            ack.acknowledge();
+            return;
         }
+
+        // Отправка и подтверждение offset - асинхронно, поток consumer не ждет Telegram
+        deliveryPipeline.deliver(decryptionResult, ack);
+    }
+
+    private DecryptionResult toDomain(AudioDecryptionResult result) {
+        return DecryptionResult.builder()
+                .taskId(result.getTaskId())
+                .chatId(result.getChatId())
+                .status(DecryptionResult.ResultStatus.valueOf(result.getStatus().name()))
+                .decryptedText(result.getDecryptedText())
+                .errorMessage(result.getErrorMessage())
+                .replyMessageId(result.getReplyMessageId())
+                .partIndex(result.getPartIndex())
+                .partCount(result.getPartCount())
+                .build();
     }
 }
\ No newline at end of file
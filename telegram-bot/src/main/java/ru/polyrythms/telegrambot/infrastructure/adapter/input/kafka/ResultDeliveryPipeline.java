@@ -0,0 +1,175 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.input.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.application.port.input.DecryptionResultHandlingUseCase;
+import ru.polyrythms.telegrambot.domain.model.DecryptionResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Асинхронная доставка результатов расшифровки в чаты.
+ * <p>
+ * Поток Kafka listener только передает результат в планировщик исходящих сообщений и сразу
+ * берет следующую запись. Offset подтверждается после завершения отправки; контейнер работает
+ * с asyncAcks, поэтому коммит по каждой партиции выполняется по порядку - только когда
+ * подтверждены все предыдущие записи.
+ * <p>
+ * Окно: при maxInFlight недоставленных результатов контейнер ставится на паузу и
+ * возобновляется, когда их становится вдвое меньше.
+ * Неудачная доставка повторяется с экспоненциальной задержкой в отдельном планировщике,
+ * не занимая поток consumer. После исчерпания попыток запись подтверждается, чтобы не
+ * блокировать коммиты партиции. Итог задачи учитывается в статистике один раз - после
+ * доставки или последней попытки.
+ */
+@Slf4j
+@Component
+public class ResultDeliveryPipeline {
+
+    static final String LISTENER_ID = "decryptionResultListener";
+
+    private final DecryptionResultHandlingUseCase resultHandlingUseCase;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "result-delivery-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean paused;
+
+    private final Counter deliveredCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public ResultDeliveryPipeline(
+            DecryptionResultHandlingUseCase resultHandlingUseCase,
+            KafkaListenerEndpointRegistry listenerRegistry,
+            @Value("${telegram.results.max-in-flight:64}") int maxInFlight,
+            @Value("${telegram.results.max-attempts:5}") int maxAttempts,
+            @Value("${telegram.results.initial-backoff-ms:1000}") long initialBackoffMs,
+            MeterRegistry meterRegistry) {
+        this.resultHandlingUseCase = resultHandlingUseCase;
+        this.listenerRegistry = listenerRegistry;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+
+        this.deliveredCounter = Counter.builder("telegram.results.delivered")
+                .description("Number of decryption results delivered to chats")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("telegram.results.retried")
+                .description("Number of decryption result delivery retries")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("telegram.results.failed")
+                .description("Number of decryption results not delivered after all attempts")
+                .register(meterRegistry);
+        Gauge.builder("telegram.results.in_flight", inFlight, AtomicInteger::get)
+                .description("Number of decryption results waiting for delivery")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Принимает результат к доставке. Вызывается в потоке Kafka listener и не блокирует его.
+     */
+    public void deliver(DecryptionResult result, Acknowledgment ack) {
+        if (inFlight.incrementAndGet() >= maxInFlight) {
+            pauseContainer();
+        }
+        attempt(result, ack, 1);
+    }
+
+    private void attempt(DecryptionResult result, Acknowledgment ack, int attempt) {
+        CompletableFuture<Void> delivery;
+        try {
+            delivery = resultHandlingUseCase.handleDecryptionResult(result);
+        } catch (Exception e) {
+            delivery = CompletableFuture.failedFuture(e);
+        }
+
+        delivery.whenComplete((v, error) -> {
+            if (error == null) {
+                deliveredCounter.increment();
+                log.info("Successfully processed result for taskId: {}", result.getTaskId());
+                recordOutcome(result);
+                complete(ack);
+                return;
+            }
+
+            if (attempt < maxAttempts && !retryScheduler.isShutdown()) {
+                long backoffMs = initialBackoffMs << (attempt - 1);
+                retriedCounter.increment();
+                log.warn("Failed to deliver result for taskId: {} (attempt {}), retrying in {} ms",
+                        result.getTaskId(), attempt, backoffMs, error);
+                retryScheduler.schedule(() -> attempt(result, ack, attempt + 1), backoffMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            failedCounter.increment();
+            log.error("Failed to deliver result for taskId: {} after {} attempts", result.getTaskId(), attempt, error);
+            recordOutcome(result);
+            complete(ack);
+        });
+    }
+
+    private void recordOutcome(DecryptionResult result) {
+        try {
+            resultHandlingUseCase.recordOutcome(result);
+        } catch (Exception e) {
+            log.warn("Failed to record outcome for taskId: {}", result.getTaskId(), e);
+        }
+    }
+
+    private void complete(Acknowledgment ack) {
+        ack.acknowledge();
+        if (inFlight.decrementAndGet() <= maxInFlight / 2 && paused) {
+            resumeContainer();
+        }
+    }
+
+    private synchronized void pauseContainer() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (!paused && container != null) {
+            paused = true;
+            container.pause();
+            log.info("Result delivery window is full ({} in flight), pausing consumer", inFlight.get());
+        }
+    }
+
+    private synchronized void resumeContainer() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (paused && container != null) {
+            paused = false;
+            container.resume();
+            log.info("Result delivery window drained ({} in flight), resuming consumer", inFlight.get());
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        if (inFlight.get() > 0) {
+            log.info("Result delivery stopped with {} results in flight, they will be redelivered", inFlight.get());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.input.rest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Служебные эндпоинты /internal/** доступны только с заголовком X-Internal-Auth,
+ * как во внутреннем API auth-service.
+ */
+@Slf4j
+@Component
+public class InternalAuthFilter extends OncePerRequestFilter {
+
+    private static final String INTERNAL_PATH_PREFIX = "/internal/";
+
+    private final byte[] internalAuthKey;
+
+    public InternalAuthFilter(@Value("${internal.auth.key}") String internalAuthKey) {
+        this.internalAuthKey = internalAuthKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(INTERNAL_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String authHeader = request.getHeader("X-Internal-Auth");
+        if (authHeader == null
+                || !MessageDigest.isEqual(authHeader.getBytes(StandardCharsets.UTF_8), internalAuthKey)) {
+            log.warn("Unauthorized access attempt to {}", request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().write("Invalid or missing X-Internal-Auth header");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
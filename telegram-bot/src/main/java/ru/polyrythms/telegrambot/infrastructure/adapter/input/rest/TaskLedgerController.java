@@ -0,0 +1,57 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.input.rest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.polyrythms.telegrambot.application.port.input.TaskLedgerReportUseCase;
+import ru.polyrythms.telegrambot.domain.model.GroupLatencyReport;
+import ru.polyrythms.telegrambot.domain.model.TaskLedgerEntry;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Отчеты по журналу заданий расшифровки. Доступ - через {@link InternalAuthFilter}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/internal/ledger")
+@RequiredArgsConstructor
+public class TaskLedgerController {
+
+    private final TaskLedgerReportUseCase reportUseCase;
+
+    /**
+     * Медленные задания за последние sinceMinutes минут, от самого долгого.
+     */
+    @GetMapping("/slow-tasks")
+    public ResponseEntity<List<TaskLedgerEntry>> slowTasks(
+            @RequestParam(defaultValue = "60") long sinceMinutes,
+            @RequestParam(defaultValue = "10000") long thresholdMs,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(reportUseCase.getSlowTasks(Duration.ofMinutes(sinceMinutes), thresholdMs, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid slow tasks request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Задержки стадий по группам за последние sinceMinutes минут, от самой медленной.
+     */
+    @GetMapping("/groups")
+    public ResponseEntity<List<GroupLatencyReport>> groupLatency(
+            @RequestParam(defaultValue = "1440") long sinceMinutes) {
+        try {
+            return ResponseEntity.ok(reportUseCase.getGroupLatency(Duration.ofMinutes(sinceMinutes)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid group latency request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.input.telegram;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.ChatMemberUpdated;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMember;
+import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMemberRestricted;
+import ru.polyrythms.telegrambot.application.port.output.GroupMembershipIndex;
+
+/**
+ * Наполняет индекс членства из входящих обновлений:
+ * - chat_member - вход, выход и ограничения участников (приходят, если бот - администратор группы)
+ * - my_chat_member - бот удален из группы, индекс группы больше не нужен
+ * - сообщения в группах - автор сообщения состоит в группе, служебные сообщения о входе и выходе
+ * <p>
+ * Вызывается в потоке опроса Telegram для каждого обновления, только обновляет память.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MembershipUpdateObserver {
+
+    private final GroupMembershipIndex membershipIndex;
+
+    public void observe(Update update) {
+        if (update.hasChatMember()) {
+            observeChatMember(update.getChatMember());
+        } else if (update.hasMyChatMember()) {
+            observeMyChatMember(update.getMyChatMember());
+        } else if (update.hasMessage()) {
+            observeMessage(update.getMessage());
+        }
+    }
+
+    private void observeChatMember(ChatMemberUpdated updated) {
+        if (!isGroup(updated.getChat()) || updated.getNewChatMember() == null) {
+            return;
+        }
+        ChatMember member = updated.getNewChatMember();
+        User user = member.getUser();
+        if (user == null || Boolean.TRUE.equals(user.getIsBot())) {
+            return;
+        }
+        if (isMember(member)) {
+            membershipIndex.recordMember(updated.getChat().getId(), user.getId());
+        } else {
+            membershipIndex.recordNotMember(updated.getChat().getId(), user.getId());
+        }
+    }
+
+    private void observeMyChatMember(ChatMemberUpdated updated) {
+        if (!isGroup(updated.getChat()) || updated.getNewChatMember() == null) {
+            return;
+        }
+        String status = updated.getNewChatMember().getStatus();
+        if ("left".equals(status) || "kicked".equals(status)) {
+            log.info("Bot removed from group {}, dropping its membership index", updated.getChat().getId());
+            membershipIndex.removeGroup(updated.getChat().getId());
+        }
+    }
+
+    private void observeMessage(Message message) {
+        if (!isGroup(message.getChat())) {
+            return;
+        }
+        Long groupChatId = message.getChatId();
+
+        User from = message.getFrom();
+        if (from != null && !Boolean.TRUE.equals(from.getIsBot())) {
+            membershipIndex.recordMember(groupChatId, from.getId());
+        }
+        if (message.getNewChatMembers() != null) {
+            for (User joined : message.getNewChatMembers()) {
+                if (!Boolean.TRUE.equals(joined.getIsBot())) {
+                    membershipIndex.recordMember(groupChatId, joined.getId());
+                }
+            }
+        }
+        User left = message.getLeftChatMember();
+        if (left != null && !Boolean.TRUE.equals(left.getIsBot())) {
+            membershipIndex.recordNotMember(groupChatId, left.getId());
+        }
+    }
+
+    private static boolean isGroup(Chat chat) {
+        return chat != null && (chat.isGroupChat() || chat.isSuperGroupChat());
+    }
+
+    private static boolean isMember(ChatMember member) {
+        return switch (member.getStatus()) {
+            case "member", "administrator", "creator" -> true;
+            case "restricted" -> member instanceof ChatMemberRestricted restricted
+                    && Boolean.TRUE.equals(restricted.getIsMember());
+            default -> false;
+        };
+    }
+}
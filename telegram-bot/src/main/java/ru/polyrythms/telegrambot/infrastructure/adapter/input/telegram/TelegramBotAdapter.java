@@ -2,19 +2,30 @@ package ru.polyrythms.telegrambot.infrastructure.adapter.input.telegram;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.GetMe;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
 import ru.polyrythms.telegrambot.application.port.input.TelegramInboundPort;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.application.port.output.MessageSender;
+import ru.polyrythms.telegrambot.infrastructure.admission.AdmissionController;
+import ru.polyrythms.telegrambot.infrastructure.admission.AdmissionDecision;
+import ru.polyrythms.telegrambot.infrastructure.admission.UpdatePriority;
 import ru.polyrythms.telegrambot.infrastructure.config.TelegramBotConfig;
 import ru.polyrythms.telegrambot.infrastructure.metrics.BotMetrics;
+import ru.polyrythms.telegrambot.infrastructure.overflow.OverflowJournal;
+import ru.polyrythms.telegrambot.infrastructure.ratelimit.UpdateRateLimiter;
 import ru.polyrythms.telegrambot.infrastructure.task.VoiceMessageTask;
 
 import jakarta.annotation.PreDestroy;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +39,10 @@ public class TelegramBotAdapter extends TelegramLongPollingBot {
     private final MessageSender messageSender;
     private final BotMetrics botMetrics;
     private final ExecutorService executorService;
+    private final AdmissionController admissionController;
+    private final OverflowJournal overflowJournal;
+    private final UpdateRateLimiter rateLimiter;
+    private final MembershipUpdateObserver membershipObserver;
     private final Long botId;  // final поле
 
     public TelegramBotAdapter(
@@ -35,13 +50,21 @@ public class TelegramBotAdapter extends TelegramLongPollingBot {
             TelegramInboundPort inboundPort,
             MessageSender messageSender,
             BotMetrics botMetrics,
-            ExecutorService telegramInboundExecutor) {
-        super(config.getBotToken());
+            ExecutorService telegramInboundExecutor,
+            AdmissionController admissionController,
+            OverflowJournal overflowJournal,
+            UpdateRateLimiter rateLimiter,
+            MembershipUpdateObserver membershipObserver) {
+        super(createOptions(config), config.getBotToken());
         this.config = config;
         this.inboundPort = inboundPort;
         this.messageSender = messageSender;
         this.botMetrics = botMetrics;
         this.executorService = telegramInboundExecutor;
+        this.admissionController = admissionController;
+        this.overflowJournal = overflowJournal;
+        this.rateLimiter = rateLimiter;
+        this.membershipObserver = membershipObserver;
 
         // Инициализация ID бота при создании
         this.botId = initializeBotId();
@@ -49,6 +72,17 @@ public class TelegramBotAdapter extends TelegramLongPollingBot {
         log.info("TelegramBotAdapter initialized with botId: {}", botId);
     }
 
+    /**
+     * Фильтрация типов обновлений на стороне Telegram (allowed_updates):
+     * getUpdates не возвращает типы, которые бот все равно проигнорирует.
+     */
+    private static DefaultBotOptions createOptions(TelegramBotConfig config) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(config.getApiBaseUrl() + "/bot");
+        options.setAllowedUpdates(config.getAllowedUpdates());
+        return options;
+    }
+
     private Long initializeBotId() {
         try {
             var me = execute(new GetMe());
@@ -68,44 +102,117 @@ public class TelegramBotAdapter extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
-        if (update == null || !update.hasMessage()) {
-            return;
+        onUpdatesReceived(List.of(update));
+    }
+
+    /**
+     * Пакетная обработка ответа getUpdates.
+     * Обновления одного чата из одного опроса объединяются в одну задачу:
+     * меньше задач в очереди пула и сохраняется порядок сообщений внутри чата.
+     */
+    @Override
+    public void onUpdatesReceived(List<Update> updates) {
+        Map<Long, List<TelegramUpdateDto>> updatesByChat = new LinkedHashMap<>();
+        int admitted = 0;
+
+        for (Update update : updates) {
+            TelegramUpdateDto dto = admit(update);
+            if (dto != null) {
+                updatesByChat.computeIfAbsent(dto.getChatId(), id -> new ArrayList<>(2)).add(dto);
+                admitted++;
+            }
         }
 
-        Long userId = update.getMessage().getFrom().getId();
+        botMetrics.recordUpdatesBatch(updates.size(), admitted, updatesByChat.size());
+
+        for (Map.Entry<Long, List<TelegramUpdateDto>> chatUpdates : updatesByChat.entrySet()) {
+            submit(chatUpdates.getKey(), chatUpdates.getValue());
+        }
+    }
+
+    /**
+     * Фильтрация, лимиты и контроль допуска для одного обновления.
+     *
+     * @return DTO для постановки в пул или null, если обновление отброшено или отложено
+     */
+    private TelegramUpdateDto admit(Update update) {
+        if (update == null) {
+            return null;
+        }
+
+        // Членство наблюдается по всем обновлениям, до лимитов: chat_member дальше не передаются
+        membershipObserver.observe(update);
+
+        if (!update.hasMessage() && !update.hasCallbackQuery()) {
+            return null;
+        }
+
+        Long userId = update.hasCallbackQuery()
+                ? update.getCallbackQuery().getFrom().getId()
+                : update.getMessage().getFrom().getId();
 
         // Самый безопасный способ
         if (Objects.equals(userId, botId)) {
             log.debug("Ignoring message from self");
-            return;
+            return null;
         }
 
         // Создаем DTO
         TelegramUpdateDto dto = TelegramUpdateDto.fromUpdate(update);
         if (dto == null) {
             log.warn("Could not create DTO from update");
-            return;
+            return null;
         }
 
-        // Создаем и отправляем задачу
-        VoiceMessageTask task = new VoiceMessageTask(
-                dto.getChatId(),
-                dto,
-                inboundPort,
-                messageSender
-        );
+        // Лимит частоты по пользователю и чату - флуд не доходит до скачивания и распознавания
+        if (!rateLimiter.tryAcquire(dto)) {
+            return null;
+        }
+
+        // Контроль допуска: при стоячей очереди низкоприоритетные обновления не попадают в пул
+        AdmissionDecision decision = admissionController.admit(UpdatePriority.of(dto));
+        if (decision == AdmissionDecision.SHED) {
+            log.debug("Update from chatId {} shed by admission controller", dto.getChatId());
+            return null;
+        }
+
+        if (decision == AdmissionDecision.REDIRECT) {
+            if (overflowJournal.append(dto)) {
+                log.debug("Update from chatId {} redirected to overflow journal", dto.getChatId());
+            } else {
+                newTask(dto.getChatId(), List.of(dto)).sendOverloadNotification();
+            }
+            return null;
+        }
+
+        return dto;
+    }
+
+    private void submit(Long chatId, List<TelegramUpdateDto> chatUpdates) {
+        VoiceMessageTask task = newTask(chatId, chatUpdates);
 
         try {
             executorService.execute(task);
             botMetrics.recordTaskSubmitted();
         } catch (Exception e) {
-            log.error("Failed to submit task for chatId: {}", dto.getChatId(), e);
+            log.error("Failed to submit task for chatId: {}", chatId, e);
             botMetrics.recordTaskRejected();
-            messageSender.sendMessageAsync(dto.getChatId(),
-                    "⚠️ *Сервер перегружен*\n\nПожалуйста, попробуйте позже.");
+            messageSender.sendMessageAsync(chatId,
+                    "⚠️ *Сервер перегружен*\n\nПожалуйста, попробуйте позже.", MessagePriority.LOW);
         }
     }
 
+    private VoiceMessageTask newTask(Long chatId, List<TelegramUpdateDto> chatUpdates) {
+        return new VoiceMessageTask(
+                chatId,
+                chatUpdates,
+                inboundPort,
+                messageSender,
+                admissionController,
+                overflowJournal
+        );
+    }
+
     @PreDestroy
     public void destroy() {
         log.info("Shutting down TelegramBotAdapter...");
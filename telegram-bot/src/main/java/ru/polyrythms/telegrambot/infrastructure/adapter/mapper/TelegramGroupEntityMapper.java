@@ -3,6 +3,7 @@ package ru.polyrythms.telegrambot.infrastructure.adapter.mapper;
 import org.springframework.stereotype.Component;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
 import ru.polyrythms.telegrambot.infrastructure.entity.TelegramGroupEntity;
+import ru.polyrythms.telegrambot.infrastructure.repository.TelegramGroupWithUsername;
 
 @Component
 public class TelegramGroupEntityMapper {
@@ -22,6 +23,21 @@ public class TelegramGroupEntityMapper {
                 .build();
     }
 
+    public TelegramGroup toDomain(TelegramGroupWithUsername projection) {
+        if (projection == null) return null;
+
+        return TelegramGroup.builder()
+                .id(projection.id())
+                .chatId(projection.chatId())
+                .title(projection.title())
+                .isActive(projection.isActive())
+                .addedBy(projection.addedBy())
+                .createdAt(projection.createdAt())
+                .updatedAt(projection.updatedAt())
+                .addedByUsername(projection.addedByUsername())
+                .build();
+    }
+
     public TelegramGroupEntity toEntity(TelegramGroup domain) {
         if (domain == null) return null;
 
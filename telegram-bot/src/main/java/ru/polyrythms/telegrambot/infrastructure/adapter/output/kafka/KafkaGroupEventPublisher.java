@@ -0,0 +1,30 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.kafka.Topics;
+import ru.polyrythms.kafka.dto.GroupChangedEvent;
+import ru.polyrythms.telegrambot.application.port.output.GroupEventPublisher;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KafkaGroupEventPublisher implements GroupEventPublisher {
+
+    private final KafkaTemplate<String, GroupChangedEvent> kafkaTemplate;
+
+    @Override
+    public void publishGroupChanged(Long chatId, boolean active) {
+        kafkaTemplate.send(Topics.TELEGRAM_GROUP_EVENTS, String.valueOf(chatId), GroupChangedEvent.of(chatId, active))
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        // Остальные узлы подхватят изменение при плановой перезагрузке снимка
+                        log.error("Failed to publish group change event for chatId: {}", chatId, ex);
+                    } else {
+                        log.debug("Group change event published: chatId={}, active={}", chatId, active);
+                    }
+                });
+    }
+}
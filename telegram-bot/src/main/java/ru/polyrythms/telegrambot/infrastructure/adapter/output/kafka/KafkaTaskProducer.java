@@ -9,6 +9,8 @@ import ru.polyrythms.kafka.dto.AudioDecryptionTask;
 import ru.polyrythms.telegrambot.application.port.output.DecryptionTaskProducer;
 import ru.polyrythms.telegrambot.domain.model.DecryptionTask;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -17,14 +19,19 @@ public class KafkaTaskProducer implements DecryptionTaskProducer {
     private final KafkaTemplate<String, AudioDecryptionTask> kafkaTemplate;
 
     @Override
-    public void sendTask(DecryptionTask task) {
+    public CompletableFuture<Void> sendTask(DecryptionTask task) {
+        // taskId из доменной задачи - один идентификатор во всех сервисах
         AudioDecryptionTask kafkaTask = AudioDecryptionTask.createVoiceTask(
+                task.getTaskId(),
                 task.getAudioId(),
                 task.getChatId(),
-                task.getAudioUrl()
+                task.getAudioUrl(),
+                task.getReplyMessageId(),
+                task.getDurationSeconds()
         );
 
-        kafkaTemplate.send(Topics.AUDIO_DECRYPTION_REQUESTS, task.getTaskId(), kafkaTask);
-        log.info("Task sent to Kafka, taskId: {}", task.getTaskId());
+        return kafkaTemplate.send(Topics.AUDIO_DECRYPTION_REQUESTS, task.getTaskId(), kafkaTask)
+                .thenAccept(result -> log.info("Task sent to Kafka, taskId: {}, offset: {}",
+                        task.getTaskId(), result.getRecordMetadata().offset()));
     }
 }
\ No newline at end of file
@@ -2,19 +2,25 @@ package ru.polyrythms.telegrambot.infrastructure.adapter.output.storage;
 
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
-import lombok.RequiredArgsConstructor;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.polyrythms.telegrambot.application.port.output.AudioStorage;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class MinioAudioStorage implements AudioStorage {
 
+    // Минимальный размер части multipart загрузки в MinIO/S3
+    private static final long MULTIPART_PART_SIZE = 5L * 1024 * 1024;
+
     private final MinioClient minioClient;
 
     @Value("${minio.bucket}")
@@ -23,25 +29,79 @@ public class MinioAudioStorage implements AudioStorage {
     @Value("${minio.url}")
     private String minioUrl;
 
+    /**
+     * LRU индекс объектов, наличие которых уже подтверждено (statObject или собственная загрузка).
+     * Отсутствие не кэшируется: объект может появиться в любой момент.
+     */
+    private final Map<String, Boolean> knownObjects;
+
+    public MinioAudioStorage(MinioClient minioClient,
+                             @Value("${minio.index.max-entries:10000}") int indexMaxEntries) {
+        this.minioClient = minioClient;
+        this.knownObjects = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > indexMaxEntries;
+            }
+        };
+    }
+
     @Override
     @SneakyThrows
-    public String storeAudio(File audioFile, String uniqueId) {
-        try (FileInputStream stream = new FileInputStream(audioFile)) {
-            String objectName = "audio-" + uniqueId + ".ogg";
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .stream(stream, audioFile.length(), -1)
-                            .contentType("audio/ogg")
-                            .build()
-            );
-            return objectName;
-        }
+    public String storeAudio(InputStream stream, long size, String uniqueId) {
+        String objectName = objectName(uniqueId);
+        minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .stream(stream, size, size >= 0 ? -1 : MULTIPART_PART_SIZE)
+                        .contentType("audio/ogg")
+                        .build()
+        );
+        remember(objectName);
+        return objectName;
     }
 
     @Override
     public String getPublicUrl(String objectName) {
         return String.format("%s/%s/%s", minioUrl, bucketName, objectName);
     }
+
+    @Override
+    public String findAudio(String uniqueId) {
+        String objectName = objectName(uniqueId);
+        synchronized (knownObjects) {
+            if (knownObjects.containsKey(objectName)) {
+                return objectName;
+            }
+        }
+
+        try {
+            minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .build());
+            remember(objectName);
+            return objectName;
+        } catch (ErrorResponseException e) {
+            if (!"NoSuchKey".equals(e.errorResponse().code())) {
+                log.warn("Failed to stat object {}: {}", objectName, e.errorResponse().code());
+            }
+            return null;
+        } catch (Exception e) {
+            // Хранилище недоступно - аудио будет загружено заново
+            log.warn("Failed to stat object {}", objectName, e);
+            return null;
+        }
+    }
+
+    private void remember(String objectName) {
+        synchronized (knownObjects) {
+            knownObjects.put(objectName, Boolean.TRUE);
+        }
+    }
+
+    private static String objectName(String uniqueId) {
+        return "audio-" + uniqueId + ".ogg";
+    }
 }
\ No newline at end of file
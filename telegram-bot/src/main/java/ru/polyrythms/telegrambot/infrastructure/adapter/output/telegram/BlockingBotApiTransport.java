@@ -0,0 +1,45 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Транспорт на блокирующем {@link DefaultAbsSender#execute}: каждый запрос занимает
+ * поток outbound пула на время HTTP вызова.
+ */
+class BlockingBotApiTransport implements BotApiTransport {
+
+    private final DefaultAbsSender bot;
+    private final ExecutorService executorService;
+
+    BlockingBotApiTransport(DefaultAbsSender bot, ExecutorService executorService) {
+        this.bot = bot;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> execute(BotApiMethod<T> method) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable call = () -> {
+            try {
+                future.complete(bot.execute(method));
+            } catch (TelegramApiException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        };
+
+        try {
+            executorService.execute(call);
+        } catch (RejectedExecutionException e) {
+            // Не выполняем в вызывающем потоке (это диспетчер планировщика) - планировщик повторит запрос
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
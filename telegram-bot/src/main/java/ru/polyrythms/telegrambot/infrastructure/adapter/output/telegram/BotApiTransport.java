@@ -0,0 +1,24 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Транспорт для выполнения методов Telegram Bot API.
+ * <p>
+ * Ошибки API передаются через future как
+ * {@link org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException}
+ * (с retry_after в параметрах ответа для 429).
+ */
+interface BotApiTransport {
+
+    <T extends Serializable> CompletableFuture<T> execute(BotApiMethod<T> method);
+
+    /**
+     * Освобождает ресурсы транспорта; вызывается при остановке после отправки принятых сообщений
+     */
+    default void close() {
+    }
+}
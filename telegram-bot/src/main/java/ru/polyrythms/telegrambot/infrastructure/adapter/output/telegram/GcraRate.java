@@ -0,0 +1,48 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+/**
+ * Ограничение частоты по алгоритму GCRA (generic cell rate algorithm) -
+ * эквивалент token bucket, хранящий одно число: теоретическое время следующей отправки.
+ * Не потокобезопасен - синхронизация на стороне вызывающего кода.
+ */
+final class GcraRate {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private long theoreticalArrival;
+
+    /**
+     * @param intervalNanos минимальный средний интервал между отправками
+     * @param burst         сколько отправок допускается подряд без ожидания
+     */
+    GcraRate(long intervalNanos, int burst) {
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = intervalNanos * (Math.max(burst, 1) - 1);
+        this.theoreticalArrival = System.nanoTime();
+    }
+
+    /**
+     * Сколько нужно подождать до следующей разрешенной отправки (0 - можно сейчас).
+     */
+    long delayNanos(long now) {
+        return Math.max(0, theoreticalArrival - toleranceNanos - now);
+    }
+
+    void consume(long now) {
+        theoreticalArrival = Math.max(theoreticalArrival, now) + intervalNanos;
+    }
+
+    /**
+     * Запрещает отправку до указанного момента (retry_after от Telegram).
+     */
+    void blockUntil(long until) {
+        theoreticalArrival = Math.max(theoreticalArrival, until + toleranceNanos);
+    }
+
+    /**
+     * Лимит полностью восстановился - состояние можно удалить без изменения поведения.
+     */
+    boolean isIdle(long now) {
+        return theoreticalArrival <= now;
+    }
+}
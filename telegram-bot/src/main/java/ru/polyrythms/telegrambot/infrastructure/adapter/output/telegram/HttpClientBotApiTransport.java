@@ -0,0 +1,93 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Неблокирующий транспорт на JDK {@link HttpClient}.
+ * <p>
+ * Один клиент на приложение: общий пул keep-alive соединений, для HTTPS - HTTP/2
+ * с мультиплексированием запросов в одном соединении (замена HTTP/1.1 pipelining,
+ * который JDK клиент не поддерживает). Ожидание ответа не занимает потоки,
+ * количество одновременных запросов не ограничено размером outbound пула.
+ * <p>
+ * Ответы обрабатываются на собственном (по умолчанию - неограниченном) пуле клиента,
+ * а не на outbound пуле: у того ограниченная очередь с AbortPolicy, и при ее переполнении
+ * клиент терял бы ответы на уже отправленные запросы.
+ * <p>
+ * Тело запроса - JSON метода (аннотации Jackson из telegrambots),
+ * разбор ответа и ошибок - {@link BotApiMethod#deserializeResponse(String)}.
+ */
+class HttpClientBotApiTransport implements BotApiTransport {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String botUrl;
+    private final Duration requestTimeout;
+
+    /**
+     * @param baseUrl адрес Bot API, например https://api.telegram.org
+     */
+    HttpClientBotApiTransport(String baseUrl, String botToken, Duration requestTimeout) {
+        this.botUrl = baseUrl + "/bot" + botToken + "/";
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> execute(BotApiMethod<T> method) {
+        HttpRequest request;
+        try {
+            method.validate();
+            request = HttpRequest.newBuilder(URI.create(botUrl + method.getMethod()))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(method)))
+                    .build();
+        } catch (TelegramApiValidationException | JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> {
+                    try {
+                        // Ответ с ok=false (в том числе 429) превращается в TelegramApiRequestException
+                        return method.deserializeResponse(response.body());
+                    } catch (TelegramApiException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Дожидается запросов в полете (не дольше requestTimeout), затем закрывает соединения и потоки клиента
+     */
+    @Override
+    public void close() {
+        httpClient.shutdown();
+        try {
+            if (!httpClient.awaitTermination(requestTimeout)) {
+                httpClient.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            httpClient.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
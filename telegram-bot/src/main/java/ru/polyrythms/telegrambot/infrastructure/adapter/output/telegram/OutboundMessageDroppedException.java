@@ -0,0 +1,14 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
+
+/**
+ * Сообщение с низким приоритетом отброшено планировщиком исходящих сообщений
+ * (очередь перегружена или сообщение устарело).
+ */
+public class OutboundMessageDroppedException extends RuntimeException {
+
+    public OutboundMessageDroppedException(Long chatId, MessagePriority priority, String reason) {
+        super("Outbound " + priority + " message to chatId " + chatId + " dropped: " + reason, null, false, false);
+    }
+}
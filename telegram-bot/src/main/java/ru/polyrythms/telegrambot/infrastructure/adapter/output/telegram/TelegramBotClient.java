@@ -3,8 +3,11 @@ package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.Getter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.DefaultAbsSender;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
@@ -12,13 +15,18 @@ import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.GetFile;
 import org.telegram.telegrambots.meta.api.methods.GetMe;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.File;
 import org.telegram.telegrambots.meta.api.objects.User;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.infrastructure.config.TelegramBotConfig;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -29,7 +37,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Ответственность:
  * 1. Низкоуровневая коммуникация с Telegram API
  * 2. Скачивание файлов
- * 3. Отправка сообщений (синхронно и асинхронно)
+ * 3. Отправка сообщений с учетом лимитов Telegram - только асинхронно, через планировщик:
+ *    ожидание очереди чата (до нескольких секунд в группах) не занимает вызывающий поток
  * 4. Получение информации о боте
  */
 @Slf4j
@@ -38,8 +47,9 @@ public class TelegramBotClient {
 
     private final TelegramBotConfig config;
     private final ExecutorService executorService;
-    @Getter
     private final DefaultAbsSender bot;
+    private final BotApiTransport transport;
+    private final TelegramOutboundScheduler outboundScheduler;
     private final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
 
     @Getter
@@ -49,12 +59,23 @@ public class TelegramBotClient {
 
     public TelegramBotClient(
             TelegramBotConfig config,
-            @Qualifier("telegramOutboundExecutor") ExecutorService executorService) {
+            @Qualifier("telegramOutboundExecutor") ExecutorService executorService,
+            @Value("${telegram.outbound.global-per-second:30}") int globalPerSecond,
+            @Value("${telegram.outbound.chat-per-second:1}") int chatPerSecond,
+            @Value("${telegram.outbound.group-per-minute:20}") int groupPerMinute,
+            @Value("${telegram.outbound.group-burst:3}") int groupBurst,
+            @Value("${telegram.outbound.max-retries:5}") int maxRetries,
+            @Value("${telegram.outbound.low-priority.max-pending:200}") int lowPriorityMaxPending,
+            @Value("${telegram.outbound.low-priority.ttl-ms:30000}") long lowPriorityTtlMs,
+            @Value("${telegram.outbound.client:blocking}") String transportType,
+            @Value("${telegram.outbound.request-timeout-ms:30000}") long requestTimeoutMs,
+            MeterRegistry meterRegistry) {
         this.config = config;
         this.executorService = executorService;
 
         // Инициализация клиента Telegram
         DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(config.getApiBaseUrl() + "/bot");
         options.setGetUpdatesTimeout(30);
         options.setMaxThreads(10);
 
@@ -65,12 +86,33 @@ public class TelegramBotClient {
             }
         };
 
-        log.info("TelegramBotClient initialized");
+        this.transport = createTransport(transportType, requestTimeoutMs);
+        this.outboundScheduler = new TelegramOutboundScheduler(
+                transport,
+                new TelegramOutboundScheduler.Limits(globalPerSecond, chatPerSecond, groupPerMinute, groupBurst),
+                new TelegramOutboundScheduler.LowPriorityPolicy(lowPriorityMaxPending, lowPriorityTtlMs),
+                maxRetries,
+                meterRegistry);
+
+        log.info("TelegramBotClient initialized with {} transport", transportType);
+    }
+
+    /**
+     * blocking - DefaultAbsSender в outbound пуле, http - неблокирующий JDK HttpClient
+     */
+    private BotApiTransport createTransport(String transportType, long requestTimeoutMs) {
+        return switch (transportType) {
+            case "blocking" -> new BlockingBotApiTransport(bot, executorService);
+            case "http" -> new HttpClientBotApiTransport(
+                    config.getApiBaseUrl(), config.getBotToken(), Duration.ofMillis(requestTimeoutMs));
+            default -> throw new IllegalArgumentException("Unknown telegram.outbound.client: " + transportType);
+        };
     }
 
     @PostConstruct
     public void init() {
         log.info("Initializing TelegramBotClient...");
+        outboundScheduler.start();
         try {
             GetMe getMe = new GetMe();
             User me = bot.execute(getMe);
@@ -100,72 +142,63 @@ public class TelegramBotClient {
     }
 
     /**
-     * Скачивание файла по пути
+     * Поток содержимого файла по пути - тело HTTP ответа без промежуточного файла на диске.
+     * Блокирующий вызов (библиотека ждет ответ на future внутри) - выполняется в пуле стадии хранения.
      */
-    public java.io.File downloadFileByPath(String filePath) throws TelegramApiException {
+    public InputStream downloadFileAsStream(String filePath) throws TelegramApiException {
         if (isShuttingDown.get()) {
             throw new IllegalStateException("Client is shutting down");
         }
 
-        return bot.downloadFile(filePath);
-    }
-
-    /**
-     * Скачивание файла по ID (удобный метод)
-     */
-    public java.io.File downloadFileById(String fileId) throws TelegramApiException {
-        File fileInfo = getTelegramFileInfo(fileId);
-        return downloadFileByPath(fileInfo.getFilePath());
+        return bot.downloadFileAsStream(filePath);
     }
 
     // ========== MESSAGE SENDING ==========
 
     /**
-     * Синхронное выполнение метода Telegram API
+     * Асинхронная отправка сообщения через планировщик с учетом лимитов Telegram
      */
-    public <T extends Serializable, M extends BotApiMethod<T>> T execute(M method) {
-        if (isShuttingDown.get()) {
-            throw new IllegalStateException("Client is shutting down, rejecting new requests");
-        }
+    public CompletableFuture<Serializable> sendMessageAsync(SendMessage message) {
+        return sendMessageAsync(message, MessagePriority.NORMAL);
+    }
 
-        try {
-            return bot.execute(method);
-        } catch (TelegramApiException e) {
-            log.error("Telegram API error: {}", e.getMessage(), e);
-            throw new RuntimeException("Telegram API error: " + e.getMessage(), e);
+    public CompletableFuture<Serializable> sendMessageAsync(SendMessage message, MessagePriority priority) {
+        if (isShuttingDown.get()) {
+            CompletableFuture<Serializable> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Client is shutting down"));
+            return future;
         }
-    }
 
-    /**
-     * Синхронное выполнение с обработкой ошибок (алиас для execute)
-     */
-    public <T extends Serializable, M extends BotApiMethod<T>> T executeWithErrorHandling(M method) {
-        return execute(method);
+        log.debug("Scheduling {} message to chatId: {}", priority, message.getChatId());
+        return outboundScheduler.submit(Long.parseLong(message.getChatId()), message, priority);
     }
 
     /**
-     * Асинхронная отправка сообщения
+     * Редактирование сообщения через планировщик: правки расходуют тот же лимит, что и отправка
      */
-    public CompletableFuture<Serializable> sendMessageAsync(SendMessage message) {
+    public CompletableFuture<Serializable> editMessageAsync(EditMessageText edit) {
         if (isShuttingDown.get()) {
             CompletableFuture<Serializable> future = new CompletableFuture<>();
             future.completeExceptionally(new IllegalStateException("Client is shutting down"));
             return future;
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                log.debug("Sending message async to chatId: {}", message.getChatId());
-                return bot.execute(message);
-            } catch (TelegramApiException e) {
-                log.error("Failed to send message async to chatId: {}", message.getChatId(), e);
-                throw new RuntimeException("Failed to send message", e);
-            }
-        }, executorService);
+        log.debug("Scheduling edit of message {} in chatId: {}", edit.getMessageId(), edit.getChatId());
+        return outboundScheduler.submit(Long.parseLong(edit.getChatId()), edit, MessagePriority.HIGH)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    // Повторная правка тем же текстом (например, при повторной доставке результата) - не ошибка
+                    if (cause.getMessage() != null && cause.getMessage().contains("message is not modified")) {
+                        log.debug("Message {} in chatId {} is not modified", edit.getMessageId(), edit.getChatId());
+                        return CompletableFuture.completedFuture(Boolean.TRUE);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
     }
 
     /**
-     * Асинхронное выполнение любого метода
+     * Асинхронное выполнение служебного метода (getChatMember, answerCallbackQuery) без учета лимитов отправки.
+     * Сообщения в чаты отправляются только через sendMessageAsync/editMessageAsync.
      */
     public CompletableFuture<Serializable> executeMethodAsync(BotApiMethod<?> method) {
         if (isShuttingDown.get()) {
@@ -174,14 +207,21 @@ public class TelegramBotClient {
             return future;
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return bot.execute(method);
-            } catch (TelegramApiException e) {
-                log.error("Async execution failed", e);
-                throw new RuntimeException("Async execution failed", e);
-            }
-        }, executorService);
+        return transport.execute(method)
+                .<Serializable>thenApply(result -> result)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.error("Async execution failed", e);
+                    }
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.outbound.eviction-interval-ms:60000}")
+    public void evictIdleChats() {
+        int evicted = outboundScheduler.evictIdleChats();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle outbound chat queues", evicted);
+        }
     }
 
     // ========== SHUTDOWN ==========
@@ -191,6 +231,10 @@ public class TelegramBotClient {
         log.info("Shutting down TelegramBotClient...");
         isShuttingDown.set(true);
 
+        // Сначала отправляем уже принятые сообщения, затем останавливаем пул
+        outboundScheduler.shutdown(10_000);
+        transport.close();
+
         executorService.shutdown();
         try {
             log.info("Waiting for pending tasks to complete (max 30 seconds)...");
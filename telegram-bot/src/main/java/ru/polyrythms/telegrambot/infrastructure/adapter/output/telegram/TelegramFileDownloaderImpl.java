@@ -2,44 +2,148 @@
 
 package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import ru.polyrythms.telegrambot.application.port.input.TelegramFileDownloader;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 
 /**
  * Реализация outbound порта TelegramFileDownloader.
  * Использует TelegramBotClient для скачивания файлов из Telegram.
+ * <p>
+ * Результаты getFile кэшируются (fileId -> путь и размер), поэтому повторы и пересылки
+ * не тратят лишний запрос к Bot API. Размер из getFile используется для раннего отказа
+ * по размеру и выбора режима: небольшие файлы читаются в память целиком
+ * (HTTP соединение освобождается сразу, загрузка в MinIO одним запросом известной длины),
+ * большие передаются потоком.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class TelegramFileDownloaderImpl implements TelegramFileDownloader {
 
     private final TelegramBotClient botClient;
+    private final TelegramFileInfoCache fileInfoCache;
+    private final long maxFileBytes;
+    private final int bufferThresholdBytes;
+
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+    private final Counter rejectedCounter;
+
+    public TelegramFileDownloaderImpl(
+            TelegramBotClient botClient,
+            @Value("${telegram.files.cache.max-entries:10000}") int cacheMaxEntries,
+            @Value("${telegram.files.cache.ttl-ms:3300000}") long cacheTtlMs,
+            @Value("${telegram.files.max-bytes:20971520}") long maxFileBytes,
+            @Value("${telegram.files.buffer-threshold-bytes:1048576}") int bufferThresholdBytes,
+            MeterRegistry meterRegistry) {
+        this.botClient = botClient;
+        this.fileInfoCache = new TelegramFileInfoCache(cacheMaxEntries, cacheTtlMs);
+        this.maxFileBytes = maxFileBytes;
+        this.bufferThresholdBytes = bufferThresholdBytes;
+
+        this.cacheHitCounter = Counter.builder("telegram.files.info.cache")
+                .description("getFile lookups served from the file info cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMissCounter = Counter.builder("telegram.files.info.cache")
+                .description("getFile lookups served from the file info cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("telegram.files.rejected")
+                .description("Files rejected before download because of their size")
+                .register(meterRegistry);
+        Gauge.builder("telegram.files.info.cache.size", fileInfoCache, TelegramFileInfoCache::size)
+                .description("Number of cached getFile results")
+                .register(meterRegistry);
+    }
 
     @Override
-    public File downloadFile(String fileId) {
+    public FileStream openFile(String fileId) {
+        TelegramFileInfoCache.FileInfo fileInfo;
         try {
-            log.debug("Downloading file: {}", fileId);
-            return botClient.downloadFileById(fileId);
+            fileInfo = getFileInfo(fileId);
         } catch (Exception e) {
-            log.error("Failed to download file: {}", fileId, e);
+            log.error("Failed to get file info: {}", fileId, e);
             throw new RuntimeException("Failed to download file: " + fileId, e);
         }
-    }
 
-    @Override
-    public String getFilePath(String fileId) {
+        // Ранний отказ: файл больше лимита не скачиваем вовсе
+        if (fileInfo.size() > maxFileBytes) {
+            rejectedCounter.increment();
+            throw new IllegalArgumentException(String.format("Файл слишком большой (%d КБ, максимум %d КБ)",
+                    fileInfo.size() / 1024, maxFileBytes / 1024));
+        }
+
+        InputStream stream;
         try {
-            var fileInfo = botClient.getTelegramFileInfo(fileId);
-            log.debug("File path for {}: {}", fileId, fileInfo.getFilePath());
-            return fileInfo.getFilePath();
+            stream = botClient.downloadFileAsStream(fileInfo.filePath());
         } catch (Exception e) {
-            log.error("Failed to get file path for: {}", fileId, e);
-            throw new RuntimeException("Failed to get file path for: " + fileId, e);
+            // Путь мог устареть раньше TTL - в следующий раз запросим getFile заново
+            fileInfoCache.invalidate(fileId);
+            log.error("Failed to open file stream: {}", fileId, e);
+            throw new RuntimeException("Failed to download file: " + fileId, e);
+        }
+
+        try {
+            return toFileStream(stream, fileInfo.size());
+        } catch (IOException e) {
+            closeQuietly(stream);
+            throw new RuntimeException("Failed to download file: " + fileId, e);
+        }
+    }
+
+    /**
+     * Небольшой файл (или файл неизвестного размера, оказавшийся небольшим) читается в память,
+     * остальные отдаются потоком.
+     */
+    private FileStream toFileStream(InputStream stream, long size) throws IOException {
+        if (size >= 0 && size > bufferThresholdBytes) {
+            log.debug("Streaming file of {} bytes", size);
+            return new FileStream(stream, size);
+        }
+
+        // Размер известен и мал, либо неизвестен - читаем не больше порога + 1 байт
+        byte[] prefix = stream.readNBytes(bufferThresholdBytes + 1);
+        if (prefix.length <= bufferThresholdBytes) {
+            stream.close();
+            log.debug("Buffered file of {} bytes", prefix.length);
+            return new FileStream(new ByteArrayInputStream(prefix), prefix.length);
+        }
+
+        // Больше порога при неизвестном размере - продолжаем потоком (multipart загрузка)
+        return new FileStream(new SequenceInputStream(new ByteArrayInputStream(prefix), stream), -1);
+    }
+
+    private TelegramFileInfoCache.FileInfo getFileInfo(String fileId) throws TelegramApiException {
+        TelegramFileInfoCache.FileInfo cached = fileInfoCache.get(fileId);
+        if (cached != null) {
+            cacheHitCounter.increment();
+            return cached;
+        }
+
+        cacheMissCounter.increment();
+        var file = botClient.getTelegramFileInfo(fileId);
+        TelegramFileInfoCache.FileInfo fileInfo = new TelegramFileInfoCache.FileInfo(
+                file.getFilePath(), file.getFileSize() != null ? file.getFileSize() : -1);
+        fileInfoCache.put(fileId, fileInfo);
+        return fileInfo;
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close file stream", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ограниченный LRU кэш fileId -> путь и размер файла из getFile.
+ * Ссылка на скачивание действительна около часа, поэтому записи живут чуть меньше (TTL).
+ * Потокобезопасен (синхронизация на экземпляре).
+ */
+class TelegramFileInfoCache {
+
+    /**
+     * @param size размер в байтах или -1, если Telegram его не вернул
+     */
+    record FileInfo(String filePath, long size) {
+    }
+
+    private record Entry(FileInfo info, long expiresAt) {
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    TelegramFileInfoCache(int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized FileInfo get(String fileId) {
+        Entry entry = entries.get(fileId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt()) {
+            entries.remove(fileId);
+            return null;
+        }
+        return entry.info();
+    }
+
+    synchronized void put(String fileId, FileInfo info) {
+        entries.put(fileId, new Entry(info, System.currentTimeMillis() + ttlMillis));
+    }
+
+    synchronized void invalidate(String fileId) {
+        entries.remove(fileId);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -4,12 +4,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.application.port.output.MessageSender;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Реализация outbound порта MessageSender для Telegram.
  * Использует TelegramBotClient для низкоуровневой отправки сообщений.
- * Поддерживает синхронную и асинхронную отправку.
+ * Все отправки асинхронные: сообщение ставится в планировщик исходящих сообщений, а вызывающий
+ * поток не ждет своей очереди. Ошибки отправки логируются.
  */
 @Slf4j
 @Component
@@ -18,35 +24,64 @@ public class TelegramMessageSender implements MessageSender {
 
     private final TelegramBotClient botClient;
 
+    /**
+     * Ответы на команды - высокий приоритет, без ожидания отправки
+     */
     @Override
     public void sendMessage(Long chatId, String text) {
-        try {
-            SendMessage message = new SendMessage();
-            message.setChatId(chatId.toString());
-            message.setText(text);
-            message.setParseMode("HTML");
-
-            botClient.executeWithErrorHandling(message);
-            log.debug("Message sent to chatId: {}", chatId);
-
-        } catch (Exception e) {
-            log.error("Failed to send message to chatId: {}", chatId, e);
-            throw new RuntimeException("Failed to send message", e);
-        }
+        sendMessageAsync(chatId, text, MessagePriority.HIGH);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(Long chatId, String text, MessagePriority priority) {
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(text);
+        message.setParseMode("HTML");
+
+        CompletableFuture<Void> sent = botClient.sendMessageAsync(message, priority)
+                .thenAccept(result -> log.debug("Async message sent to chatId: {}", chatId));
+        sent.exceptionally(e -> {
+            if (e.getCause() instanceof OutboundMessageDroppedException dropped) {
+                log.debug(dropped.getMessage());
+            } else {
+                log.error("Async message failed for chatId: {}", chatId, e);
+            }
+            return null;
+        });
+        return sent;
+    }
+
+    @Override
+    public CompletableFuture<Void> editMessageAsync(Long chatId, Integer messageId, String text) {
+        EditMessageText edit = new EditMessageText();
+        edit.setChatId(chatId.toString());
+        edit.setMessageId(messageId);
+        edit.setText(text);
+        edit.setParseMode("HTML");
+
+        CompletableFuture<Void> edited = botClient.editMessageAsync(edit)
+                .thenAccept(result -> log.debug("Async edit of message {} in chatId: {}", messageId, chatId));
+        edited.exceptionally(e -> {
+            log.error("Async edit of message {} failed in chatId: {}", messageId, chatId, e);
+            return null;
+        });
+        return edited;
     }
 
     @Override
-    public void sendMessageAsync(Long chatId, String text) {
+    public CompletableFuture<Integer> sendMessageReturningIdAsync(Long chatId, String text) {
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText(text);
         message.setParseMode("HTML");
 
-        botClient.sendMessageAsync(message)
-                .thenAccept(result -> log.debug("Async message sent to chatId: {}", chatId))
-                .exceptionally(e -> {
-                    log.error("Async message failed for chatId: {}", chatId, e);
-                    return null;
-                });
+        return botClient.sendMessageAsync(message)
+                .thenApply(result -> result instanceof Message sent ? sent.getMessageId() : null);
+    }
+
+    @Override
+    public void editMessage(Long chatId, Integer messageId, String text) {
+        editMessageAsync(chatId, messageId, text);
     }
 }
\ No newline at end of file
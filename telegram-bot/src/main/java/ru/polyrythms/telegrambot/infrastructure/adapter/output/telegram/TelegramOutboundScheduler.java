@@ -0,0 +1,529 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Планировщик исходящих запросов с учетом лимитов Telegram Bot API.
+ * <p>
+ * Лимиты (настраиваются):
+ * - глобальный: ~30 сообщений в секунду
+ * - личный чат: 1 сообщение в секунду
+ * - группа (chatId &lt; 0): 20 сообщений в минуту
+ * <p>
+ * Сообщения каждого чата хранятся в собственной FIFO очереди. Чат, у которого есть
+ * сообщения, находится в {@link DelayQueue} с моментом, когда его лимит позволит следующую
+ * отправку. Поток-диспетчер забирает готовые чаты, дожидается глобального лимита
+ * и передает запрос в {@link BotApiTransport}. Пока запрос чата выполняется, следующий не отправляется -
+ * порядок сообщений внутри чата сохраняется.
+ * <p>
+ * Ответ 429 с retry_after возвращает сообщение в начало очереди чата и блокирует чат
+ * на указанное время - сообщение не теряется.
+ * <p>
+ * Приоритеты ({@link MessagePriority}): внутри чата сообщение с более высоким приоритетом
+ * отправляется раньше, а когда готово несколько чатов, а глобальный лимит исчерпан,
+ * первым обслуживается чат с самым приоритетным сообщением. Чат, уже ожидающий отправки,
+ * при поступлении более приоритетного сообщения ставится в очередь заново с новым приоритетом,
+ * прежняя запись пропускается диспетчером. Сообщения LOW отбрасываются,
+ * если очередь перегружена или они ждали дольше TTL.
+ * <p>
+ * Работа никогда не возвращается вызывающему потоку: если пул транспорта отклонил запрос,
+ * сообщение возвращается в очередь чата и повторяется после паузы.
+ */
+@Slf4j
+class TelegramOutboundScheduler {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long REJECTED_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+
+    // Готовые к отправке чаты: сначала по приоритету первого сообщения, затем по времени готовности
+    private static final Comparator<ReadyChat> RUNNABLE_ORDER = Comparator
+            .comparing(ReadyChat::priority)
+            .thenComparingLong(ReadyChat::readyAt);
+
+    private final BotApiTransport transport;
+    private final Limits limits;
+    private final LowPriorityPolicy lowPriorityPolicy;
+    private final int maxRetries;
+
+    private final GcraRate globalRate;
+    private final Map<Long, ChatQueue> chats = new ConcurrentHashMap<>();
+    private final DelayQueue<ReadyChat> readyChats = new DelayQueue<>();
+    // Используется только потоком-диспетчером
+    private final PriorityQueue<ReadyChat> runnableChats = new PriorityQueue<>(RUNNABLE_ORDER);
+    private final AtomicInteger pendingMessages = new AtomicInteger();
+    private final Map<MessagePriority, AtomicInteger> pendingByPriority = new EnumMap<>(MessagePriority.class);
+
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final Map<MessagePriority, Timer> queueTimers = new EnumMap<>(MessagePriority.class);
+    private final Map<MessagePriority, Counter> sentCounters = new EnumMap<>(MessagePriority.class);
+    private final Map<MessagePriority, Counter> failedCounters = new EnumMap<>(MessagePriority.class);
+    private final Map<MessagePriority, Counter> droppedCounters = new EnumMap<>(MessagePriority.class);
+    private final Timer throttleTimer;
+    private final Counter retryAfterCounter;
+    private final Counter rejectedCounter;
+
+    /**
+     * Лимиты отправки.
+     */
+    record Limits(int globalPerSecond, int chatPerSecond, int groupPerMinute, int groupBurst) {
+    }
+
+    /**
+     * Отбрасывание сообщений LOW.
+     *
+     * @param maxPending новое LOW сообщение отбрасывается, если в очереди уже столько сообщений
+     * @param ttlMillis  LOW сообщение, ожидавшее дольше, отбрасывается при отправке
+     */
+    record LowPriorityPolicy(int maxPending, long ttlMillis) {
+    }
+
+    TelegramOutboundScheduler(BotApiTransport transport,
+                              Limits limits,
+                              LowPriorityPolicy lowPriorityPolicy,
+                              int maxRetries,
+                              MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.limits = limits;
+        this.lowPriorityPolicy = lowPriorityPolicy;
+        this.maxRetries = maxRetries;
+        this.globalRate = new GcraRate(NANOS_PER_SECOND / limits.globalPerSecond(), 1);
+
+        for (MessagePriority priority : PRIORITIES) {
+            String tag = priority.name().toLowerCase();
+            AtomicInteger pending = new AtomicInteger();
+            pendingByPriority.put(priority, pending);
+
+            queueTimers.put(priority, Timer.builder("telegram.outbound.queue.time")
+                    .description("Time messages spent in the outbound scheduler before sending")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            sentCounters.put(priority, Counter.builder("telegram.outbound.sent")
+                    .description("Number of requests sent through the outbound scheduler")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            failedCounters.put(priority, Counter.builder("telegram.outbound.failed")
+                    .description("Number of outbound requests failed after retries")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            droppedCounters.put(priority, Counter.builder("telegram.outbound.dropped")
+                    .description("Number of low priority messages dropped by the outbound scheduler")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            Gauge.builder("telegram.outbound.queue.size", pending, AtomicInteger::get)
+                    .description("Number of messages waiting in the outbound scheduler")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+        }
+
+        this.throttleTimer = Timer.builder("telegram.outbound.throttle.time")
+                .description("Time the dispatcher waited for the global rate limit")
+                .register(meterRegistry);
+        this.retryAfterCounter = Counter.builder("telegram.outbound.retry_after")
+                .description("Number of 429 responses with retry_after")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("telegram.outbound.transport.rejected")
+                .description("Number of requests rejected by the transport pool and requeued")
+                .register(meterRegistry);
+        Gauge.builder("telegram.outbound.chats.ready", readyChats, DelayQueue::size)
+                .description("Number of chats with pending outbound messages")
+                .register(meterRegistry);
+
+        this.dispatcher = new Thread(this::dispatchLoop, "telegram-outbound-dispatcher");
+        this.dispatcher.setDaemon(true);
+    }
+
+    void start() {
+        dispatcher.start();
+        log.info("Outbound scheduler started: global {}/s, chat {}/s, group {}/min (burst {})",
+                limits.globalPerSecond(), limits.chatPerSecond(), limits.groupPerMinute(), limits.groupBurst());
+    }
+
+    /**
+     * Ставит запрос в очередь чата.
+     */
+    CompletableFuture<Serializable> submit(Long chatId, BotApiMethod<? extends Serializable> method,
+                                           MessagePriority priority) {
+        Outgoing outgoing = new Outgoing(method, priority, new CompletableFuture<>(), System.nanoTime());
+
+        // Уведомления не должны вытеснять результаты из перегруженной очереди
+        if (priority == MessagePriority.LOW && pendingMessages.get() >= lowPriorityPolicy.maxPending()) {
+            droppedCounters.get(priority).increment();
+            outgoing.future.completeExceptionally(new OutboundMessageDroppedException(chatId, priority, "queue is full"));
+            return outgoing.future;
+        }
+
+        while (true) {
+            ChatQueue chat = chats.computeIfAbsent(chatId, this::newChatQueue);
+            synchronized (chat) {
+                // Состояние могли удалить как простаивающее - берем новое
+                if (chat.evicted) {
+                    continue;
+                }
+                chat.addLast(outgoing);
+                pendingMessages.incrementAndGet();
+                pendingByPriority.get(priority).incrementAndGet();
+                scheduleIfIdle(chat, System.nanoTime());
+                rescheduleIfUpgraded(chat, priority);
+            }
+            return outgoing.future;
+        }
+    }
+
+    private ChatQueue newChatQueue(Long chatId) {
+        GcraRate rate = chatId < 0
+                ? new GcraRate(NANOS_PER_MINUTE / limits.groupPerMinute(), limits.groupBurst())
+                : new GcraRate(NANOS_PER_SECOND / limits.chatPerSecond(), 1);
+        return new ChatQueue(chatId, rate);
+    }
+
+    /**
+     * Должен вызываться под блокировкой чата.
+     */
+    private void scheduleIfIdle(ChatQueue chat, long now) {
+        if (chat.ready == null && !chat.inFlight && !chat.isEmpty()) {
+            chat.ready = new ReadyChat(chat, chat.headPriority(), now + chat.rate.delayNanos(now));
+            readyChats.add(chat.ready);
+        }
+    }
+
+    /**
+     * Чат ждет отправки с приоритетом на момент планирования: более приоритетное сообщение
+     * ставит его в очередь заново с тем же моментом готовности, прежняя запись становится устаревшей.
+     * Должен вызываться под блокировкой чата.
+     */
+    private void rescheduleIfUpgraded(ChatQueue chat, MessagePriority priority) {
+        if (chat.ready != null && priority.compareTo(chat.ready.priority()) < 0) {
+            chat.ready = new ReadyChat(chat, priority, chat.ready.readyAt());
+            readyChats.add(chat.ready);
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running || pendingMessages.get() > 0) {
+            if (runnableChats.isEmpty()) {
+                ReadyChat ready;
+                try {
+                    ready = readyChats.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (ready == null) {
+                    continue;
+                }
+                runnableChats.add(ready);
+            }
+            // Устаревшие записи отбрасываются до ожидания, чтобы не расходовать на них глобальный лимит
+            discardSuperseded();
+            if (runnableChats.isEmpty()) {
+                continue;
+            }
+
+            awaitGlobalRate();
+
+            // Пока ждали глобальный лимит, могли стать готовыми чаты с более приоритетными сообщениями
+            readyChats.drainTo(runnableChats);
+            discardSuperseded();
+            ReadyChat ready = runnableChats.poll();
+            if (ready == null) {
+                continue;
+            }
+            ChatQueue chat = ready.chat;
+
+            Outgoing outgoing;
+            synchronized (chat) {
+                if (chat.ready != ready) {
+                    continue;
+                }
+                chat.ready = null;
+                outgoing = pollNotExpired(chat);
+                if (outgoing == null) {
+                    continue;
+                }
+                chat.inFlight = true;
+                chat.rate.consume(System.nanoTime());
+            }
+
+            dispatch(chat, outgoing);
+        }
+    }
+
+    /**
+     * Убирает из начала runnableChats записи чатов, поставленных в очередь заново с более высоким приоритетом.
+     */
+    private void discardSuperseded() {
+        ReadyChat head;
+        while ((head = runnableChats.peek()) != null) {
+            synchronized (head.chat) {
+                if (head.chat.ready == head) {
+                    return;
+                }
+            }
+            runnableChats.poll();
+        }
+    }
+
+    /**
+     * Следующее сообщение чата; устаревшие LOW сообщения отбрасываются.
+     * Должен вызываться под блокировкой чата.
+     */
+    private Outgoing pollNotExpired(ChatQueue chat) {
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(lowPriorityPolicy.ttlMillis());
+        long now = System.nanoTime();
+        while (true) {
+            Outgoing outgoing = chat.pollFirst();
+            if (outgoing == null
+                    || outgoing.priority != MessagePriority.LOW
+                    || now - outgoing.enqueuedAt <= ttlNanos) {
+                return outgoing;
+            }
+            droppedCounters.get(outgoing.priority).increment();
+            release(outgoing);
+            outgoing.future.completeExceptionally(
+                    new OutboundMessageDroppedException(chat.chatId, outgoing.priority, "expired"));
+        }
+    }
+
+    private void awaitGlobalRate() {
+        long waited = 0;
+        while (true) {
+            long delay;
+            synchronized (globalRate) {
+                long now = System.nanoTime();
+                delay = globalRate.delayNanos(now);
+                if (delay == 0) {
+                    globalRate.consume(now);
+                    break;
+                }
+            }
+            LockSupport.parkNanos(delay);
+            waited += delay;
+        }
+        if (waited > 0) {
+            throttleTimer.record(waited, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void dispatch(ChatQueue chat, Outgoing outgoing) {
+        queueTimers.get(outgoing.priority).record(System.nanoTime() - outgoing.enqueuedAt, TimeUnit.NANOSECONDS);
+
+        CompletableFuture<? extends Serializable> call;
+        try {
+            call = transport.execute(outgoing.method);
+        } catch (RuntimeException e) {
+            fail(chat, outgoing, e);
+            return;
+        }
+
+        call.whenComplete((result, error) -> {
+            if (error == null) {
+                sentCounters.get(outgoing.priority).increment();
+                complete(chat, outgoing);
+                outgoing.future.complete(result);
+            } else {
+                handleError(chat, outgoing, error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+    }
+
+    private void handleError(ChatQueue chat, Outgoing outgoing, Throwable error) {
+        // Пул транспорта переполнен - не выполняем запрос в чужом потоке, а повторяем позже
+        if (error instanceof RejectedExecutionException && running) {
+            rejectedCounter.increment();
+            retryLater(chat, outgoing, REJECTED_RETRY_NANOS);
+            return;
+        }
+        if (error instanceof TelegramApiRequestException e) {
+            Integer retryAfter = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+            if (retryAfter != null && outgoing.attempts < maxRetries) {
+                retryAfterCounter.increment();
+                outgoing.attempts++;
+                log.warn("Telegram 429 for chatId {}: retry after {} s (attempt {})",
+                        chat.chatId, retryAfter, outgoing.attempts);
+                retryLater(chat, outgoing, TimeUnit.SECONDS.toNanos(retryAfter));
+                return;
+            }
+        }
+        fail(chat, outgoing, error);
+    }
+
+    private void retryLater(ChatQueue chat, Outgoing outgoing, long retryAfterNanos) {
+        synchronized (chat) {
+            long now = System.nanoTime();
+            chat.rate.blockUntil(now + retryAfterNanos);
+            chat.addFirst(outgoing);
+            chat.inFlight = false;
+            scheduleIfIdle(chat, now);
+        }
+    }
+
+    private void fail(ChatQueue chat, Outgoing outgoing, Throwable e) {
+        failedCounters.get(outgoing.priority).increment();
+        complete(chat, outgoing);
+        outgoing.future.completeExceptionally(e);
+    }
+
+    private void complete(ChatQueue chat, Outgoing outgoing) {
+        release(outgoing);
+        synchronized (chat) {
+            chat.inFlight = false;
+            scheduleIfIdle(chat, System.nanoTime());
+        }
+    }
+
+    private void release(Outgoing outgoing) {
+        pendingMessages.decrementAndGet();
+        pendingByPriority.get(outgoing.priority).decrementAndGet();
+    }
+
+    /**
+     * Удаляет состояние чатов без сообщений, лимит которых полностью восстановился.
+     */
+    int evictIdleChats() {
+        long now = System.nanoTime();
+        int before = chats.size();
+        chats.values().removeIf(chat -> {
+            synchronized (chat) {
+                chat.evicted = chat.isEmpty() && !chat.inFlight && chat.ready == null && chat.rate.isIdle(now);
+                return chat.evicted;
+            }
+        });
+        return before - chats.size();
+    }
+
+    int getPendingMessages() {
+        return pendingMessages.get();
+    }
+
+    /**
+     * Останавливает диспетчер, дождавшись отправки уже принятых сообщений.
+     */
+    void shutdown(long timeoutMillis) {
+        running = false;
+        try {
+            dispatcher.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dispatcher.isAlive()) {
+            log.warn("Outbound scheduler stopped with {} unsent messages", pendingMessages.get());
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Очереди чата по приоритетам (FIFO внутри приоритета). Не потокобезопасна - блокировка на самом объекте.
+     */
+    private static final class ChatQueue {
+        private final Long chatId;
+        private final GcraRate rate;
+        private final ArrayDeque<Outgoing>[] messages;
+        // Текущая запись чата в readyChats/runnableChats; null - чат не ждет отправки
+        private ReadyChat ready;
+        private boolean inFlight;
+        private boolean evicted;
+
+        @SuppressWarnings("unchecked")
+        private ChatQueue(Long chatId, GcraRate rate) {
+            this.chatId = chatId;
+            this.rate = rate;
+            this.messages = new ArrayDeque[PRIORITIES.length];
+            for (int i = 0; i < messages.length; i++) {
+                messages[i] = new ArrayDeque<>(2);
+            }
+        }
+
+        private void addLast(Outgoing outgoing) {
+            messages[outgoing.priority.ordinal()].addLast(outgoing);
+        }
+
+        private void addFirst(Outgoing outgoing) {
+            messages[outgoing.priority.ordinal()].addFirst(outgoing);
+        }
+
+        private Outgoing pollFirst() {
+            for (ArrayDeque<Outgoing> queue : messages) {
+                Outgoing outgoing = queue.pollFirst();
+                if (outgoing != null) {
+                    return outgoing;
+                }
+            }
+            return null;
+        }
+
+        private MessagePriority headPriority() {
+            for (int i = 0; i < messages.length; i++) {
+                if (!messages[i].isEmpty()) {
+                    return PRIORITIES[i];
+                }
+            }
+            return MessagePriority.LOW;
+        }
+
+        private boolean isEmpty() {
+            for (ArrayDeque<Outgoing> queue : messages) {
+                if (!queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Outgoing {
+        private final BotApiMethod<? extends Serializable> method;
+        private final MessagePriority priority;
+        private final CompletableFuture<Serializable> future;
+        private final long enqueuedAt;
+        private int attempts;
+
+        private Outgoing(BotApiMethod<? extends Serializable> method, MessagePriority priority,
+                         CompletableFuture<Serializable> future, long enqueuedAt) {
+            this.method = method;
+            this.priority = priority;
+            this.future = future;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private record ReadyChat(ChatQueue chat, MessagePriority priority, long readyAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((ReadyChat) other).readyAt);
+        }
+    }
+}
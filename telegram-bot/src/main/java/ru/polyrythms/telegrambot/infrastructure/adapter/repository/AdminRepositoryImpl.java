@@ -6,65 +6,70 @@ import ru.polyrythms.telegrambot.application.port.output.AdminRepository;
 import ru.polyrythms.telegrambot.domain.model.AdminUser;
 import ru.polyrythms.telegrambot.domain.model.AdminRole;
 import ru.polyrythms.telegrambot.infrastructure.adapter.mapper.AdminEntityMapper;
+import ru.polyrythms.telegrambot.infrastructure.cache.ReferenceDataStore;
 import ru.polyrythms.telegrambot.infrastructure.entity.AdminUserEntity;
 import ru.polyrythms.telegrambot.infrastructure.repository.AdminUserJpaRepository;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * Чтения обслуживаются из снимка {@link ReferenceDataStore}, записи идут в БД
+ * и затем точечно применяются к снимку.
+ */
 @Repository
 @RequiredArgsConstructor
 public class AdminRepositoryImpl implements AdminRepository {
 
     private final AdminUserJpaRepository jpaRepository;
     private final AdminEntityMapper mapper;
+    private final ReferenceDataStore referenceData;
 
     @Override
     public Optional<AdminUser> findByUserId(Long userId) {
-        return jpaRepository.findByUserId(userId)
-                .map(mapper::toDomain);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(referenceData.current().findAdmin(userId));
     }
 
     @Override
     public boolean existsByUserId(Long userId) {
-        return jpaRepository.existsByUserId(userId);
+        return userId != null && referenceData.current().findAdmin(userId) != null;
     }
 
     @Override
     public AdminUser save(AdminUser adminUser) {
         AdminUserEntity entity = mapper.toEntity(adminUser);
-        AdminUserEntity saved = jpaRepository.save(entity);
-        return mapper.toDomain(saved);
+        AdminUser saved = mapper.toDomain(jpaRepository.save(entity));
+        referenceData.update(snapshot -> snapshot.withAdmin(saved));
+        return saved;
     }
 
     @Override
     public void delete(AdminUser adminUser) {
         AdminUserEntity entity = mapper.toEntity(adminUser);
         jpaRepository.delete(entity);
+        referenceData.update(snapshot -> snapshot.withoutAdmin(adminUser.getUserId()));
     }
 
     @Override
     public List<AdminUser> findAll() {
-        return jpaRepository.findAll().stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toList());
+        return referenceData.current().getAdmins();
     }
 
     @Override
     public List<AdminUser> findByRole(AdminRole role) {
-        return jpaRepository.findByRoleIn(List.of(role)).stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toList());
+        return referenceData.current().getAdminsByRole(role);
     }
 
     @Override
     public long count() {
-        return jpaRepository.count();
+        return referenceData.current().getAdmins().size();
     }
 
     @Override
     public long countByRole(AdminRole role) {
-        return jpaRepository.countByRole(role);
+        return referenceData.current().getAdminsByRole(role).size();
     }
 }
\ No newline at end of file
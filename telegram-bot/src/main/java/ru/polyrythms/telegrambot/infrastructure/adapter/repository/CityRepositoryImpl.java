@@ -4,42 +4,63 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import ru.polyrythms.telegrambot.application.port.output.CityRepository;
 import ru.polyrythms.telegrambot.domain.model.City;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
 import ru.polyrythms.telegrambot.infrastructure.entity.CityEntity;
 import ru.polyrythms.telegrambot.infrastructure.repository.CityJpaRepository;
 import ru.polyrythms.telegrambot.infrastructure.adapter.mapper.CityMapper;
+import ru.polyrythms.telegrambot.infrastructure.cache.ReferenceDataStore;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * Чтения обслуживаются из снимка {@link ReferenceDataStore}, записи идут в БД
+ * и затем точечно применяются к снимку.
+ */
 @Repository
 @RequiredArgsConstructor
 public class CityRepositoryImpl implements CityRepository {
     private final CityJpaRepository jpaRepository;
     private final CityMapper mapper;
+    private final ReferenceDataStore referenceData;
 
     @Override
     public List<City> findAll() {
-        return jpaRepository.findAll().stream().map(mapper::toDomain).collect(Collectors.toList());
+        return referenceData.current().getCities();
+    }
+
+    @Override
+    public KeysetPage<City> findPage(PageCursor cursor, int size) {
+        return referenceData.current().getCitiesPage(cursor, size);
     }
 
     @Override
     public Optional<City> findById(Long id) {
-        return jpaRepository.findById(id).map(mapper::toDomain);
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(referenceData.current().findCity(id));
     }
 
     @Override
     public Optional<City> findByName(String name) {
-        return jpaRepository.findByNameIgnoreCase(name).map(mapper::toDomain);
+        if (name == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(referenceData.current().findCityByName(name));
     }
 
     @Override
     public City save(City city) {
         CityEntity entity = mapper.toEntity(city);
-        return mapper.toDomain(jpaRepository.save(entity));
+        City saved = mapper.toDomain(jpaRepository.save(entity));
+        referenceData.update(snapshot -> snapshot.withCity(saved));
+        return saved;
     }
 
     @Override
     public void delete(City city) {
         jpaRepository.deleteById(city.getId());
+        referenceData.update(snapshot -> snapshot.withoutCity(city.getId()));
     }
 }
\ No newline at end of file
@@ -3,26 +3,51 @@ package ru.polyrythms.telegrambot.infrastructure.adapter.repository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import ru.polyrythms.telegrambot.application.port.output.GroupCityRepository;
+import ru.polyrythms.telegrambot.domain.model.City;
 import ru.polyrythms.telegrambot.domain.model.GroupCity;
+import ru.polyrythms.telegrambot.infrastructure.cache.ReferenceDataSnapshot;
+import ru.polyrythms.telegrambot.infrastructure.cache.ReferenceDataStore;
 import ru.polyrythms.telegrambot.infrastructure.entity.GroupCityEntity;
 import ru.polyrythms.telegrambot.infrastructure.repository.GroupCityJpaRepository;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
+/**
+ * Чтения обслуживаются из снимка {@link ReferenceDataStore}, записи идут в БД
+ * и затем точечно применяются к снимку.
+ */
 @Repository
 @RequiredArgsConstructor
 public class GroupCityRepositoryImpl implements GroupCityRepository {
     private final GroupCityJpaRepository jpaRepository;
+    private final ReferenceDataStore referenceData;
 
     @Override
     public List<GroupCity> findByGroupChatId(Long groupChatId) {
-        return jpaRepository.findByGroupChatId(groupChatId).stream()
-                .map(e -> GroupCity.builder()
-                        .groupChatId(e.getGroupChatId())
-                        .cityId(e.getCityId())
-                        .build())
-                .collect(Collectors.toList());
+        if (groupChatId == null) {
+            return List.of();
+        }
+        return referenceData.current().getGroupCities(groupChatId);
+    }
+
+    @Override
+    public Map<Long, List<City>> findCitiesByGroupChatIds(Collection<Long> groupChatIds) {
+        // Один снимок на весь запрос - согласованный результат для всех групп
+        ReferenceDataSnapshot snapshot = referenceData.current();
+        Map<Long, List<City>> citiesByGroup = new LinkedHashMap<>();
+        for (Long groupChatId : groupChatIds) {
+            if (groupChatId == null) {
+                continue;
+            }
+            List<City> cities = snapshot.getCitiesForGroup(groupChatId);
+            if (!cities.isEmpty()) {
+                citiesByGroup.put(groupChatId, cities);
+            }
+        }
+        return citiesByGroup;
     }
 
     @Override
@@ -32,10 +57,12 @@ public class GroupCityRepositoryImpl implements GroupCityRepository {
         entity.setCityId(cityId);
         entity.setAssignedAt(LocalDateTime.now());
         jpaRepository.save(entity);
+        referenceData.update(snapshot -> snapshot.withGroupCity(groupChatId, cityId));
     }
 
     @Override
     public void removeCityFromGroup(Long groupChatId, Long cityId) {
         jpaRepository.deleteByGroupChatIdAndCityId(groupChatId, cityId);
+        referenceData.update(snapshot -> snapshot.withoutGroupCity(groupChatId, cityId));
     }
 }
\ No newline at end of file
@@ -3,74 +3,102 @@ package ru.polyrythms.telegrambot.infrastructure.adapter.repository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import ru.polyrythms.telegrambot.application.port.output.TelegramGroupRepository;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
 import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
 import ru.polyrythms.telegrambot.infrastructure.adapter.mapper.TelegramGroupEntityMapper;
+import ru.polyrythms.telegrambot.infrastructure.cache.ReferenceDataStore;
 import ru.polyrythms.telegrambot.infrastructure.entity.TelegramGroupEntity;
 import ru.polyrythms.telegrambot.infrastructure.repository.TelegramGroupJpaRepository;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * Чтения обслуживаются из снимка {@link ReferenceDataStore} (группы в нем уже содержат
+ * addedByUsername), записи идут в БД и затем точечно применяются к снимку.
+ */
 @Repository
 @RequiredArgsConstructor
 public class TelegramGroupRepositoryImpl implements TelegramGroupRepository {
 
     private final TelegramGroupJpaRepository jpaRepository;
     private final TelegramGroupEntityMapper mapper;
+    private final ReferenceDataStore referenceData;
 
     @Override
     public Optional<TelegramGroup> findByChatId(Long chatId) {
-        return jpaRepository.findByChatId(chatId)
-                .map(mapper::toDomain);
+        if (chatId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(referenceData.current().findGroup(chatId));
     }
 
     @Override
     public List<TelegramGroup> findAllActive() {
-        return jpaRepository.findByIsActiveTrue().stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toList());
+        return referenceData.current().getActiveGroups();
     }
 
     @Override
     public List<TelegramGroup> findAll() {
-        return jpaRepository.findAll().stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toList());
+        return referenceData.current().getGroups();
+    }
+
+    @Override
+    public List<TelegramGroup> findAllWithUsernames() {
+        return referenceData.current().getGroups();
+    }
+
+    @Override
+    public List<TelegramGroup> findAllActiveWithUsernames() {
+        return referenceData.current().getActiveGroups();
+    }
+
+    @Override
+    public Optional<TelegramGroup> findByChatIdWithUsername(Long chatId) {
+        return findByChatId(chatId);
+    }
+
+    @Override
+    public KeysetPage<TelegramGroup> findPage(PageCursor cursor, int size) {
+        return referenceData.current().getGroupsPage(cursor, size);
     }
 
     @Override
     public List<TelegramGroup> findByAddedBy(Long addedBy) {
-        return jpaRepository.findByAddedBy(addedBy).stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toList());
+        return referenceData.current().getGroups().stream()
+                .filter(group -> Objects.equals(group.getAddedBy(), addedBy))
+                .toList();
     }
 
     @Override
     public boolean existsByChatId(Long chatId) {
-        return jpaRepository.existsByChatId(chatId);
+        return chatId != null && referenceData.current().findGroup(chatId) != null;
     }
 
     @Override
     public TelegramGroup save(TelegramGroup group) {
         TelegramGroupEntity entity = mapper.toEntity(group);
-        TelegramGroupEntity saved = jpaRepository.save(entity);
-        return mapper.toDomain(saved);
+        TelegramGroup saved = mapper.toDomain(jpaRepository.save(entity));
+        referenceData.update(snapshot -> snapshot.withGroup(saved));
+        return saved;
     }
 
     @Override
     public void delete(TelegramGroup group) {
         TelegramGroupEntity entity = mapper.toEntity(group);
         jpaRepository.delete(entity);
+        referenceData.update(snapshot -> snapshot.withoutGroup(group.getChatId()));
     }
 
     @Override
     public long countActive() {
-        return jpaRepository.countByIsActiveTrue();
+        return referenceData.current().getActiveGroups().size();
     }
 
     @Override
     public long countByAddedBy(Long userId) {
-        return jpaRepository.countByAddedBy(userId);
+        return userId == null ? 0 : referenceData.current().countGroupsAddedBy(userId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package ru.polyrythms.telegrambot.infrastructure.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Контроль допуска в inbound пул по времени ожидания задач в очереди (в стиле CoDel).
+ * <p>
+ * Каждая задача при старте сообщает, сколько она простояла в очереди.
+ * Если минимальное время ожидания за интервал превышает целевое значение,
+ * очередь считается "стоячей" и контроллер переходит в режим перегрузки:
+ * - команды (HIGH) принимаются всегда
+ * - голосовые (NORMAL) откладываются в журнал переполнения
+ * - обычный текст (LOW) отбрасывается
+ * <p>
+ * Режим перегрузки снимается, когда минимум за интервал опускается ниже цели,
+ * очередь пустеет или замеры перестают поступать дольше интервала. Переходы состояния
+ * выполняются только при замерах и решениях о допуске; {@link #isOverloaded()} - чтение без побочных эффектов.
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    private final ThreadPoolExecutor inboundExecutor;
+    private final boolean enabled;
+    private final long targetMs;
+    private final long intervalMs;
+
+    private long intervalStart = System.currentTimeMillis();
+    private long intervalMinSojourn = Long.MAX_VALUE;
+    private long lastIntervalMinSojourn;
+    private long lastSampleAt;
+    private volatile boolean overloaded;
+
+    private final Timer sojournTimer;
+    private final Map<UpdatePriority, Counter> redirectedCounters = new EnumMap<>(UpdatePriority.class);
+    private final Map<UpdatePriority, Counter> shedCounters = new EnumMap<>(UpdatePriority.class);
+    private final Counter overloadEpisodes;
+
+    public AdmissionController(
+            @Qualifier("telegramInboundExecutor") ThreadPoolExecutor inboundExecutor,
+            @Value("${telegram.admission.enabled:true}") boolean enabled,
+            @Value("${telegram.admission.target-ms:1000}") long targetMs,
+            @Value("${telegram.admission.interval-ms:5000}") long intervalMs,
+            MeterRegistry meterRegistry) {
+        this.inboundExecutor = inboundExecutor;
+        this.enabled = enabled;
+        this.targetMs = targetMs;
+        this.intervalMs = intervalMs;
+
+        this.sojournTimer = Timer.builder("telegram.inbound.sojourn")
+                .description("Time tasks spent waiting in the inbound queue")
+                .register(meterRegistry);
+        this.overloadEpisodes = Counter.builder("telegram.admission.overload.episodes")
+                .description("Number of times the admission controller entered overload mode")
+                .register(meterRegistry);
+        for (UpdatePriority priority : UpdatePriority.values()) {
+            redirectedCounters.put(priority, Counter.builder("telegram.admission.shed")
+                    .description("Number of updates not admitted to the inbound pool")
+                    .tag("priority", priority.name().toLowerCase())
+                    .tag("action", "redirect")
+                    .register(meterRegistry));
+            shedCounters.put(priority, Counter.builder("telegram.admission.shed")
+                    .description("Number of updates not admitted to the inbound pool")
+                    .tag("priority", priority.name().toLowerCase())
+                    .tag("action", "drop")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("telegram.admission.overloaded", this, c -> c.isOverloaded() ? 1 : 0)
+                .description("1 if the admission controller is shedding load")
+                .register(meterRegistry);
+        Gauge.builder("telegram.admission.sojourn.min", this, AdmissionController::getLastIntervalMinSojourn)
+                .description("Minimum queue sojourn time over the last completed interval, ms")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        log.info("Admission controller: enabled={}, target {} ms, interval {} ms", enabled, targetMs, intervalMs);
+    }
+
+    /**
+     * Решение о допуске нового обновления.
+     */
+    public AdmissionDecision admit(UpdatePriority priority) {
+        if (!enabled || priority == UpdatePriority.HIGH || !checkOverloaded()) {
+            return AdmissionDecision.ADMIT;
+        }
+        if (priority == UpdatePriority.NORMAL) {
+            redirectedCounters.get(priority).increment();
+            return AdmissionDecision.REDIRECT;
+        }
+        shedCounters.get(priority).increment();
+        return AdmissionDecision.SHED;
+    }
+
+    /**
+     * Замер времени ожидания задачи в очереди. Вызывается задачей при старте.
+     */
+    public synchronized void recordSojourn(long sojournMs) {
+        sojournTimer.record(sojournMs, TimeUnit.MILLISECONDS);
+
+        long now = System.currentTimeMillis();
+        lastSampleAt = now;
+        if (sojournMs < intervalMinSojourn) {
+            intervalMinSojourn = sojournMs;
+        }
+
+        if (now - intervalStart < intervalMs) {
+            return;
+        }
+
+        // Интервал закончился: стоячая очередь - если даже самая быстрая задача ждала дольше цели
+        boolean standingQueue = intervalMinSojourn > targetMs;
+        if (standingQueue != overloaded) {
+            if (standingQueue) {
+                overloadEpisodes.increment();
+                log.warn("Inbound queue is standing: min sojourn {} ms > target {} ms, shedding low priority updates",
+                        intervalMinSojourn, targetMs);
+            } else {
+                log.info("Inbound queue recovered: min sojourn {} ms", intervalMinSojourn);
+            }
+            overloaded = standingQueue;
+        }
+
+        lastIntervalMinSojourn = intervalMinSojourn;
+        intervalMinSojourn = Long.MAX_VALUE;
+        intervalStart = now;
+    }
+
+    /**
+     * Можно ли возвращать в пул отложенные обновления - решение о допуске NORMAL без учета в метриках.
+     */
+    public boolean admitsDeferred() {
+        return !enabled || !checkOverloaded();
+    }
+
+    /**
+     * Текущее состояние без переходов - для метрик и диагностики.
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * Состояние с выходом из режима перегрузки без нового замера: очередь пуста или замеры устарели.
+     */
+    private boolean checkOverloaded() {
+        if (!overloaded) {
+            return false;
+        }
+        synchronized (this) {
+            if (overloaded && (inboundExecutor.getQueue().isEmpty()
+                    || System.currentTimeMillis() - lastSampleAt > intervalMs)) {
+                log.info("Inbound queue drained, leaving overload mode");
+                overloaded = false;
+                intervalMinSojourn = Long.MAX_VALUE;
+                intervalStart = System.currentTimeMillis();
+            }
+            return overloaded;
+        }
+    }
+
+    public synchronized long getLastIntervalMinSojourn() {
+        return lastIntervalMinSojourn;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.polyrythms.telegrambot.infrastructure.admission;
+
+/**
+ * Решение контроллера допуска для нового обновления.
+ */
+public enum AdmissionDecision {
+
+    /**
+     * Отправить в inbound пул
+     */
+    ADMIT,
+
+    /**
+     * Отложить в журнал переполнения до снижения нагрузки
+     */
+    REDIRECT,
+
+    /**
+     * Отбросить
+     */
+    SHED
+}
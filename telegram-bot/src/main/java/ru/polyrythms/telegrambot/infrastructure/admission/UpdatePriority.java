@@ -0,0 +1,34 @@
+package ru.polyrythms.telegrambot.infrastructure.admission;
+
+import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
+
+/**
+ * Приоритет входящего обновления при контроле допуска в inbound пул.
+ */
+public enum UpdatePriority {
+
+    /**
+     * Команды и нажатия inline-кнопок - дешевые и интерактивные, принимаются всегда
+     */
+    HIGH,
+
+    /**
+     * Голосовые сообщения - при перегрузке откладываются в журнал переполнения
+     */
+    NORMAL,
+
+    /**
+     * Обычный текст - при перегрузке отбрасывается
+     */
+    LOW;
+
+    public static UpdatePriority of(TelegramUpdateDto update) {
+        if (update.isCommand() || update.isHasCallback()) {
+            return HIGH;
+        }
+        if (update.isHasVoice()) {
+            return NORMAL;
+        }
+        return LOW;
+    }
+}
@@ -0,0 +1,207 @@
+package ru.polyrythms.telegrambot.infrastructure.cache;
+
+/**
+ * Неизменяемая хэш-таблица с ключами long и открытой адресацией (линейное пробирование).
+ * <p>
+ * Ключи хранятся в примитивном массиве - поиск без упаковки Long и без обхода цепочек.
+ * Заполняется только через {@link Builder}, после build() не меняется и безопасна для
+ * чтения из любых потоков. Изменения - копированием: {@link #with(long, Object)} и {@link #without(long)}
+ * возвращают новую таблицу, исходная остается прежней.
+ */
+public final class LongObjectMap<V> {
+
+    private final long[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    // Ключ 0 служит маркером пустой ячейки, поэтому его значение хранится отдельно
+    private final boolean hasZeroKey;
+    private final V zeroValue;
+
+    private LongObjectMap(long[] keys, Object[] values, int size, boolean hasZeroKey, V zeroValue) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+        this.hasZeroKey = hasZeroKey;
+        this.zeroValue = zeroValue;
+    }
+
+    public static <V> Builder<V> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int index = indexOf(key, mask);
+        long current;
+        while ((current = keys[index]) != 0) {
+            if (current == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Копия таблицы с добавленным или замененным значением
+     */
+    public LongObjectMap<V> with(long key, V value) {
+        return new Builder<>(this).put(key, value).build();
+    }
+
+    /**
+     * Копия таблицы без ключа; если ключа нет - та же таблица
+     */
+    public LongObjectMap<V> without(long key) {
+        if (get(key) == null) {
+            return this;
+        }
+        return new Builder<>(this).remove(key).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int indexOf(long key, int mask) {
+        // Перемешивание битов: chatId групп отличаются в младших разрядах незначительно
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Построитель таблицы. Повторный put по тому же ключу заменяет значение, null значения не допускаются.
+     */
+    public static final class Builder<V> {
+
+        private long[] keys;
+        private Object[] values;
+        private int size;
+        private boolean hasZeroKey;
+        private V zeroValue;
+
+        private Builder(int expectedSize) {
+            int capacity = tableSizeFor(Math.max(expectedSize, 2) * 2);
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        private Builder(LongObjectMap<V> source) {
+            this.keys = source.keys.clone();
+            this.values = source.values.clone();
+            this.size = source.size;
+            this.hasZeroKey = source.hasZeroKey;
+            this.zeroValue = source.zeroValue;
+        }
+
+        public Builder<V> put(long key, V value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Null values are not supported");
+            }
+            if (key == 0) {
+                if (!hasZeroKey) {
+                    size++;
+                }
+                hasZeroKey = true;
+                zeroValue = value;
+                return this;
+            }
+            // Коэффициент заполнения не выше 0.5 - короткие цепочки пробирования
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            if (insert(keys, values, key, value)) {
+                size++;
+            }
+            return this;
+        }
+
+        /**
+         * Удаление со сдвигом назад: следующие записи цепочки переносятся в освободившуюся ячейку,
+         * чтобы поиск не останавливался на ней раньше времени.
+         */
+        public Builder<V> remove(long key) {
+            if (key == 0) {
+                if (hasZeroKey) {
+                    size--;
+                }
+                hasZeroKey = false;
+                zeroValue = null;
+                return this;
+            }
+            int mask = keys.length - 1;
+            int gap = indexOf(key, mask);
+            while (keys[gap] != key) {
+                if (keys[gap] == 0) {
+                    return this;
+                }
+                gap = (gap + 1) & mask;
+            }
+            int next = (gap + 1) & mask;
+            while (keys[next] != 0) {
+                int home = indexOf(keys[next], mask);
+                // Запись можно перенести, если освободившаяся ячейка лежит между ее исходной позицией и текущей
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = 0;
+            values[gap] = null;
+            size--;
+            return this;
+        }
+
+        public LongObjectMap<V> build() {
+            LongObjectMap<V> map = new LongObjectMap<>(keys, values, size, hasZeroKey, zeroValue);
+            // Массивы переданы таблице - дальнейшие put через этот построитель запрещены
+            keys = null;
+            values = null;
+            return map;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    insert(keys, values, oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static boolean insert(long[] keys, Object[] values, long key, Object value) {
+            int mask = keys.length - 1;
+            int index = indexOf(key, mask);
+            while (keys[index] != 0) {
+                if (keys[index] == key) {
+                    values[index] = value;
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            return true;
+        }
+
+        private static int tableSizeFor(int capacity) {
+            return Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package ru.polyrythms.telegrambot.infrastructure.cache;
+
+import ru.polyrythms.telegrambot.domain.model.AdminRole;
+import ru.polyrythms.telegrambot.domain.model.AdminUser;
+import ru.polyrythms.telegrambot.domain.model.City;
+import ru.polyrythms.telegrambot.domain.model.GroupCity;
+import ru.polyrythms.telegrambot.domain.model.KeysetPage;
+import ru.polyrythms.telegrambot.domain.model.PageCursor;
+import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Неизменяемый снимок справочных таблиц: admin_users, telegram_groups, cities, group_cities.
+ * <p>
+ * Индексы по userId, chatId и id города - {@link LongObjectMap}, списки - неизменяемые копии.
+ * Списки групп и городов отсортированы по id - постраничное чтение выполняется бинарным поиском.
+ * Снимок публикуется одной записью volatile ссылки в {@link ReferenceDataStore},
+ * поэтому читатели всегда видят согласованное состояние всех четырех таблиц.
+ * <p>
+ * Полностью снимок строится только при загрузке из БД ({@link #build}). Запись одной строки
+ * применяется методами with.../without...: они копируют и меняют только затронутые записи индексов
+ * этой таблицы, остальные структуры новый снимок разделяет с прежним.
+ */
+public final class ReferenceDataSnapshot {
+
+    static final ReferenceDataSnapshot EMPTY = build(List.of(), List.of(), List.of(), List.of());
+
+    private final List<AdminUser> admins;
+    private final LongObjectMap<AdminUser> adminsByUserId;
+    private final Map<AdminRole, List<AdminUser>> adminsByRole;
+
+    private final List<TelegramGroup> groups;
+    private final List<TelegramGroup> activeGroups;
+    private final LongObjectMap<TelegramGroup> groupsByChatId;
+    private final LongObjectMap<Integer> groupCountByAddedBy;
+
+    private final List<City> cities;
+    private final LongObjectMap<City> citiesById;
+    private final Map<String, City> citiesByName;
+
+    private final List<GroupCity> groupCities;
+    private final LongObjectMap<List<GroupCity>> groupCitiesByChatId;
+    private final LongObjectMap<List<City>> citiesByGroupChatId;
+
+    private ReferenceDataSnapshot(List<AdminUser> admins, LongObjectMap<AdminUser> adminsByUserId,
+                                  Map<AdminRole, List<AdminUser>> adminsByRole, List<TelegramGroup> groups,
+                                  List<TelegramGroup> activeGroups, LongObjectMap<TelegramGroup> groupsByChatId,
+                                  LongObjectMap<Integer> groupCountByAddedBy, List<City> cities,
+                                  LongObjectMap<City> citiesById, Map<String, City> citiesByName,
+                                  List<GroupCity> groupCities,
+                                  LongObjectMap<List<GroupCity>> groupCitiesByChatId,
+                                  LongObjectMap<List<City>> citiesByGroupChatId) {
+        this.admins = admins;
+        this.adminsByUserId = adminsByUserId;
+        this.adminsByRole = adminsByRole;
+        this.groups = groups;
+        this.activeGroups = activeGroups;
+        this.groupsByChatId = groupsByChatId;
+        this.groupCountByAddedBy = groupCountByAddedBy;
+        this.cities = cities;
+        this.citiesById = citiesById;
+        this.citiesByName = citiesByName;
+        this.groupCities = groupCities;
+        this.groupCitiesByChatId = groupCitiesByChatId;
+        this.citiesByGroupChatId = citiesByGroupChatId;
+    }
+
+    /**
+     * Строит снимок из полного содержимого таблиц.
+     *
+     * @param groups группы с заполненным addedByUsername
+     */
+    static ReferenceDataSnapshot build(List<AdminUser> admins, List<TelegramGroup> groups,
+                                       List<City> cities, List<GroupCity> groupCities) {
+        LongObjectMap.Builder<AdminUser> adminsByUserId = LongObjectMap.builder(admins.size());
+        for (AdminUser admin : admins) {
+            adminsByUserId.put(admin.getUserId(), admin);
+        }
+
+        groups = sortedById(groups, TelegramGroup::getId);
+        cities = sortedById(cities, City::getId);
+
+        LongObjectMap.Builder<TelegramGroup> groupsByChatId = LongObjectMap.builder(groups.size());
+        Map<Long, Integer> groupCounts = new HashMap<>();
+        List<TelegramGroup> activeGroups = new ArrayList<>();
+        for (TelegramGroup group : groups) {
+            groupsByChatId.put(group.getChatId(), group);
+            groupCounts.merge(group.getAddedBy(), 1, Integer::sum);
+            if (Boolean.TRUE.equals(group.getIsActive())) {
+                activeGroups.add(group);
+            }
+        }
+        LongObjectMap.Builder<Integer> groupCountByAddedBy = LongObjectMap.builder(groupCounts.size());
+        groupCounts.forEach((addedBy, count) -> {
+            if (addedBy != null) {
+                groupCountByAddedBy.put(addedBy, count);
+            }
+        });
+
+        LongObjectMap.Builder<City> citiesByIdBuilder = LongObjectMap.builder(cities.size());
+        Map<String, City> citiesByName = new HashMap<>();
+        for (City city : cities) {
+            citiesByIdBuilder.put(city.getId(), city);
+            if (city.getName() != null) {
+                citiesByName.putIfAbsent(normalizeName(city.getName()), city);
+            }
+        }
+        LongObjectMap<City> citiesById = citiesByIdBuilder.build();
+
+        List<GroupCity> validGroupCities = groupCities.stream()
+                .filter(groupCity -> groupCity.getGroupChatId() != null && groupCity.getCityId() != null)
+                .toList();
+        Map<Long, List<GroupCity>> groupCitiesMap = new HashMap<>();
+        for (GroupCity groupCity : validGroupCities) {
+            groupCitiesMap.computeIfAbsent(groupCity.getGroupChatId(), id -> new ArrayList<>()).add(groupCity);
+        }
+        LongObjectMap.Builder<List<GroupCity>> groupCitiesByChatId = LongObjectMap.builder(groupCitiesMap.size());
+        groupCitiesMap.forEach((chatId, list) -> groupCitiesByChatId.put(chatId, List.copyOf(list)));
+
+        return new ReferenceDataSnapshot(
+                List.copyOf(admins), adminsByUserId.build(), groupByRole(admins),
+                List.copyOf(groups), List.copyOf(activeGroups), groupsByChatId.build(), groupCountByAddedBy.build(),
+                List.copyOf(cities), citiesById, Map.copyOf(citiesByName),
+                validGroupCities, groupCitiesByChatId.build(), citiesByGroup(validGroupCities, citiesById));
+    }
+
+    // ==================== точечные изменения ====================
+
+    /**
+     * Добавленный или измененный администратор. Смена username переносится в группы,
+     * которые он добавил (addedByUsername).
+     */
+    public ReferenceDataSnapshot withAdmin(AdminUser admin) {
+        AdminUser previous = adminsByUserId.get(admin.getUserId());
+        List<AdminUser> newAdmins = new ArrayList<>(admins.size() + 1);
+        for (AdminUser existing : admins) {
+            if (!existing.getUserId().equals(admin.getUserId())) {
+                newAdmins.add(existing);
+            }
+        }
+        newAdmins.add(admin);
+
+        ReferenceDataSnapshot updated = new ReferenceDataSnapshot(
+                Collections.unmodifiableList(newAdmins), adminsByUserId.with(admin.getUserId(), admin),
+                groupByRole(newAdmins), groups, activeGroups, groupsByChatId, groupCountByAddedBy,
+                cities, citiesById, citiesByName, groupCities, groupCitiesByChatId, citiesByGroupChatId);
+        if (previous != null && Objects.equals(previous.getUsername(), admin.getUsername())) {
+            return updated;
+        }
+        return updated.withAddedByUsername(admin.getUserId(), admin.getUsername());
+    }
+
+    public ReferenceDataSnapshot withoutAdmin(long userId) {
+        if (adminsByUserId.get(userId) == null) {
+            return this;
+        }
+        List<AdminUser> newAdmins = admins.stream()
+                .filter(admin -> admin.getUserId() != userId)
+                .toList();
+        return new ReferenceDataSnapshot(
+                newAdmins, adminsByUserId.without(userId), groupByRole(newAdmins),
+                groups, activeGroups, groupsByChatId, groupCountByAddedBy,
+                cities, citiesById, citiesByName, groupCities, groupCitiesByChatId, citiesByGroupChatId)
+                .withAddedByUsername(userId, null);
+    }
+
+    /**
+     * Добавленная или измененная группа; addedByUsername берется из администраторов снимка
+     * (как LEFT JOIN при загрузке).
+     */
+    public ReferenceDataSnapshot withGroup(TelegramGroup group) {
+        AdminUser addedBy = group.getAddedBy() != null ? adminsByUserId.get(group.getAddedBy()) : null;
+        TelegramGroup withUsername = withAddedByUsername(group, addedBy != null ? addedBy.getUsername() : null);
+
+        ReferenceDataSnapshot base = withoutGroup(group.getChatId());
+        List<TelegramGroup> newActive = Boolean.TRUE.equals(withUsername.getIsActive())
+                ? upsertSorted(base.activeGroups, TelegramGroup::getId, withUsername)
+                : base.activeGroups;
+        return new ReferenceDataSnapshot(
+                admins, adminsByUserId, adminsByRole,
+                upsertSorted(base.groups, TelegramGroup::getId, withUsername), newActive,
+                base.groupsByChatId.with(withUsername.getChatId(), withUsername),
+                adjustCount(base.groupCountByAddedBy, withUsername.getAddedBy(), 1),
+                cities, citiesById, citiesByName, groupCities, groupCitiesByChatId, citiesByGroupChatId);
+    }
+
+    /**
+     * Удаленная группа. Привязки городов остаются, как и строки group_cities в БД.
+     */
+    public ReferenceDataSnapshot withoutGroup(long chatId) {
+        TelegramGroup previous = groupsByChatId.get(chatId);
+        if (previous == null) {
+            return this;
+        }
+        return new ReferenceDataSnapshot(
+                admins, adminsByUserId, adminsByRole,
+                removeSorted(groups, TelegramGroup::getId, previous.getId()),
+                removeSorted(activeGroups, TelegramGroup::getId, previous.getId()),
+                groupsByChatId.without(chatId),
+                adjustCount(groupCountByAddedBy, previous.getAddedBy(), -1),
+                cities, citiesById, citiesByName, groupCities, groupCitiesByChatId, citiesByGroupChatId);
+    }
+
+    /**
+     * Добавленный или переименованный город; списки городов групп с этим городом перестраиваются.
+     */
+    public ReferenceDataSnapshot withCity(City city) {
+        City previous = citiesById.get(city.getId());
+        Map<String, City> newByName = new HashMap<>(citiesByName);
+        if (previous != null && previous.getName() != null) {
+            newByName.remove(normalizeName(previous.getName()), previous);
+        }
+        if (city.getName() != null) {
+            newByName.putIfAbsent(normalizeName(city.getName()), city);
+        }
+        LongObjectMap<City> newById = citiesById.with(city.getId(), city);
+        return new ReferenceDataSnapshot(
+                admins, adminsByUserId, adminsByRole, groups, activeGroups, groupsByChatId, groupCountByAddedBy,
+                upsertSorted(cities, City::getId, city), newById, Collections.unmodifiableMap(newByName),
+                groupCities, groupCitiesByChatId, citiesByGroupFor(city.getId(), newById));
+    }
+
+    /**
+     * Удаленный город (привязки к группам не дают удалить его в БД, поэтому их здесь нет)
+     */
+    public ReferenceDataSnapshot withoutCity(long id) {
+        City previous = citiesById.get(id);
+        if (previous == null) {
+            return this;
+        }
+        Map<String, City> newByName = new HashMap<>(citiesByName);
+        if (previous.getName() != null) {
+            newByName.remove(normalizeName(previous.getName()), previous);
+        }
+        return new ReferenceDataSnapshot(
+                admins, adminsByUserId, adminsByRole, groups, activeGroups, groupsByChatId, groupCountByAddedBy,
+                removeSorted(cities, City::getId, id), citiesById.without(id), Collections.unmodifiableMap(newByName),
+                groupCities, groupCitiesByChatId, citiesByGroupChatId);
+    }
+
+    public ReferenceDataSnapshot withGroupCity(long groupChatId, long cityId) {
+        GroupCity groupCity = GroupCity.builder().groupChatId(groupChatId).cityId(cityId).build();
+        List<GroupCity> newGroupCities = new ArrayList<>(groupCities.size() + 1);
+        newGroupCities.addAll(groupCities);
+        newGroupCities.add(groupCity);
+        return withGroupCities(groupChatId, Collections.unmodifiableList(newGroupCities));
+    }
+
+    /**
+     * Удаляет все привязки города к группе (как deleteByGroupChatIdAndCityId)
+     */
+    public ReferenceDataSnapshot withoutGroupCity(long groupChatId, long cityId) {
+        List<GroupCity> newGroupCities = groupCities.stream()
+                .filter(groupCity -> groupCity.getGroupChatId() != groupChatId || groupCity.getCityId() != cityId)
+                .toList();
+        if (newGroupCities.size() == groupCities.size()) {
+            return this;
+        }
+        return withGroupCities(groupChatId, newGroupCities);
+    }
+
+    // Новый список привязок, индексы пересчитываются только для одной группы
+    private ReferenceDataSnapshot withGroupCities(long groupChatId, List<GroupCity> newGroupCities) {
+        List<GroupCity> ofGroup = new ArrayList<>();
+        List<City> citiesOfGroup = new ArrayList<>();
+        for (GroupCity groupCity : newGroupCities) {
+            if (groupCity.getGroupChatId() == groupChatId) {
+                ofGroup.add(groupCity);
+                City city = citiesById.get(groupCity.getCityId());
+                if (city != null) {
+                    citiesOfGroup.add(city);
+                }
+            }
+        }
+        citiesOfGroup.sort(Comparator.comparing(City::getId));
+        return new ReferenceDataSnapshot(
+                admins, adminsByUserId, adminsByRole, groups, activeGroups, groupsByChatId, groupCountByAddedBy,
+                cities, citiesById, citiesByName, newGroupCities,
+                ofGroup.isEmpty() ? groupCitiesByChatId.without(groupChatId)
+                        : groupCitiesByChatId.with(groupChatId, List.copyOf(ofGroup)),
+                citiesOfGroup.isEmpty() ? citiesByGroupChatId.without(groupChatId)
+                        : citiesByGroupChatId.with(groupChatId, List.copyOf(citiesOfGroup)));
+    }
+
+    // Группы, добавленные userId, с новым addedByUsername
+    private ReferenceDataSnapshot withAddedByUsername(long userId, String username) {
+        if (groupCountByAddedBy.get(userId) == null) {
+            return this;
+        }
+        ReferenceDataSnapshot updated = this;
+        for (TelegramGroup group : groups) {
+            if (group.getAddedBy() != null && group.getAddedBy() == userId
+                    && !Objects.equals(group.getAddedByUsername(), username)) {
+                updated = updated.withGroup(group);
+            }
+        }
+        return updated;
+    }
+
+    // Пересчет списков городов групп, к которым привязан город cityId
+    private LongObjectMap<List<City>> citiesByGroupFor(long cityId, LongObjectMap<City> newCitiesById) {
+        LongObjectMap<List<City>> result = citiesByGroupChatId;
+        for (GroupCity groupCity : groupCities) {
+            if (groupCity.getCityId() == cityId) {
+                long groupChatId = groupCity.getGroupChatId();
+                List<City> citiesOfGroup = new ArrayList<>();
+                for (GroupCity assigned : groupCitiesByChatId.getOrDefault(groupChatId, List.of())) {
+                    City city = newCitiesById.get(assigned.getCityId());
+                    if (city != null) {
+                        citiesOfGroup.add(city);
+                    }
+                }
+                citiesOfGroup.sort(Comparator.comparing(City::getId));
+                result = result.with(groupChatId, List.copyOf(citiesOfGroup));
+            }
+        }
+        return result;
+    }
+
+    private static Map<AdminRole, List<AdminUser>> groupByRole(List<AdminUser> admins) {
+        Map<AdminRole, List<AdminUser>> byRole = new EnumMap<>(AdminRole.class);
+        for (AdminUser admin : admins) {
+            byRole.computeIfAbsent(admin.getRole(), role -> new ArrayList<>()).add(admin);
+        }
+        byRole.replaceAll((role, list) -> List.copyOf(list));
+        return byRole;
+    }
+
+    private static LongObjectMap<List<City>> citiesByGroup(List<GroupCity> groupCities, LongObjectMap<City> citiesById) {
+        Map<Long, List<City>> citiesByGroupMap = new HashMap<>();
+        for (GroupCity groupCity : groupCities) {
+            City city = citiesById.get(groupCity.getCityId());
+            if (city != null) {
+                citiesByGroupMap.computeIfAbsent(groupCity.getGroupChatId(), id -> new ArrayList<>()).add(city);
+            }
+        }
+        LongObjectMap.Builder<List<City>> citiesByGroupChatId = LongObjectMap.builder(citiesByGroupMap.size());
+        citiesByGroupMap.forEach((chatId, list) -> {
+            list.sort(Comparator.comparing(City::getId));
+            citiesByGroupChatId.put(chatId, List.copyOf(list));
+        });
+        return citiesByGroupChatId.build();
+    }
+
+    private static LongObjectMap<Integer> adjustCount(LongObjectMap<Integer> counts, Long userId, int delta) {
+        if (userId == null) {
+            return counts;
+        }
+        int count = counts.getOrDefault(userId, 0) + delta;
+        return count > 0 ? counts.with(userId, count) : counts.without(userId);
+    }
+
+    private static TelegramGroup withAddedByUsername(TelegramGroup group, String username) {
+        if (Objects.equals(group.getAddedByUsername(), username)) {
+            return group;
+        }
+        return TelegramGroup.builder()
+                .id(group.getId())
+                .chatId(group.getChatId())
+                .title(group.getTitle())
+                .isActive(group.getIsActive())
+                .addedBy(group.getAddedBy())
+                .createdAt(group.getCreatedAt())
+                .updatedAt(group.getUpdatedAt())
+                .addedByUsername(username)
+                .build();
+    }
+
+    // ==================== admin_users ====================
+
+    public AdminUser findAdmin(long userId) {
+        return adminsByUserId.get(userId);
+    }
+
+    public List<AdminUser> getAdmins() {
+        return admins;
+    }
+
+    public List<AdminUser> getAdminsByRole(AdminRole role) {
+        return adminsByRole.getOrDefault(role, List.of());
+    }
+
+    // ==================== telegram_groups ====================
+
+    public TelegramGroup findGroup(long chatId) {
+        return groupsByChatId.get(chatId);
+    }
+
+    public List<TelegramGroup> getGroups() {
+        return groups;
+    }
+
+    public List<TelegramGroup> getActiveGroups() {
+        return activeGroups;
+    }
+
+    public int countGroupsAddedBy(long userId) {
+        return groupCountByAddedBy.getOrDefault(userId, 0);
+    }
+
+    public KeysetPage<TelegramGroup> getGroupsPage(PageCursor cursor, int size) {
+        return page(groups, TelegramGroup::getId, cursor, size);
+    }
+
+    // ==================== cities ====================
+
+    public City findCity(long id) {
+        return citiesById.get(id);
+    }
+
+    public City findCityByName(String name) {
+        return citiesByName.get(normalizeName(name));
+    }
+
+    public List<City> getCities() {
+        return cities;
+    }
+
+    public KeysetPage<City> getCitiesPage(PageCursor cursor, int size) {
+        return page(cities, City::getId, cursor, size);
+    }
+
+    // ==================== group_cities ====================
+
+    public List<GroupCity> getGroupCities(long groupChatId) {
+        return groupCitiesByChatId.getOrDefault(groupChatId, List.of());
+    }
+
+    public List<City> getCitiesForGroup(long groupChatId) {
+        return citiesByGroupChatId.getOrDefault(groupChatId, List.of());
+    }
+
+    private static <T> List<T> sortedById(List<T> items, ToLongFunction<T> idOf) {
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingLong(idOf));
+        return sorted;
+    }
+
+    // Копия отсортированного списка с добавленным или замененным элементом
+    private static <T> List<T> upsertSorted(List<T> sorted, ToLongFunction<T> idOf, T item) {
+        long id = idOf.applyAsLong(item);
+        int index = lowerBound(sorted, idOf, id);
+        boolean replaces = index < sorted.size() && idOf.applyAsLong(sorted.get(index)) == id;
+        List<T> result = new ArrayList<>(sorted.size() + 1);
+        result.addAll(sorted.subList(0, index));
+        result.add(item);
+        result.addAll(sorted.subList(replaces ? index + 1 : index, sorted.size()));
+        return Collections.unmodifiableList(result);
+    }
+
+    private static <T> List<T> removeSorted(List<T> sorted, ToLongFunction<T> idOf, long id) {
+        int index = lowerBound(sorted, idOf, id);
+        if (index == sorted.size() || idOf.applyAsLong(sorted.get(index)) != id) {
+            return sorted;
+        }
+        List<T> result = new ArrayList<>(sorted.size() - 1);
+        result.addAll(sorted.subList(0, index));
+        result.addAll(sorted.subList(index + 1, sorted.size()));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Страница отсортированного по id списка: позиция курсора находится бинарным поиском,
+     * копируются только элементы страницы.
+     */
+    private static <T> KeysetPage<T> page(List<T> sorted, ToLongFunction<T> idOf, PageCursor cursor, int size) {
+        int from;
+        int to;
+        if (cursor.getId() == null) {
+            from = 0;
+            to = Math.min(size, sorted.size());
+        } else if (cursor.isBackward()) {
+            to = lowerBound(sorted, idOf, cursor.getId());
+            from = Math.max(0, to - size);
+        } else {
+            from = lowerBound(sorted, idOf, cursor.getId() + 1);
+            to = Math.min(from + size, sorted.size());
+        }
+        return new KeysetPage<>(List.copyOf(sorted.subList(from, to)), from > 0, to < sorted.size());
+    }
+
+    // Индекс первого элемента с id >= key
+    private static <T> int lowerBound(List<T> sorted, ToLongFunction<T> idOf, long key) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idOf.applyAsLong(sorted.get(mid)) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
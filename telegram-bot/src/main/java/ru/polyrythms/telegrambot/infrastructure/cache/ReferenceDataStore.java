@@ -0,0 +1,190 @@
+package ru.polyrythms.telegrambot.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.domain.model.AdminUser;
+import ru.polyrythms.telegrambot.domain.model.City;
+import ru.polyrythms.telegrambot.domain.model.GroupCity;
+import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
+import ru.polyrythms.telegrambot.infrastructure.adapter.mapper.AdminEntityMapper;
+import ru.polyrythms.telegrambot.infrastructure.adapter.mapper.CityMapper;
+import ru.polyrythms.telegrambot.infrastructure.adapter.mapper.TelegramGroupEntityMapper;
+import ru.polyrythms.telegrambot.infrastructure.repository.AdminUserJpaRepository;
+import ru.polyrythms.telegrambot.infrastructure.repository.CityJpaRepository;
+import ru.polyrythms.telegrambot.infrastructure.repository.GroupCityJpaRepository;
+import ru.polyrythms.telegrambot.infrastructure.repository.TelegramGroupJpaRepository;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище актуального {@link ReferenceDataSnapshot}.
+ * <p>
+ * Справочные таблицы маленькие и меняются редко, поэтому чтения репозиториев обслуживаются
+ * из снимка в памяти без соединений с БД. Снимок неизменяем (copy-on-write):
+ * - запись через адаптеры репозиториев применяется к снимку точечно ({@link #update}) -
+ *   меняются только записи индексов затронутой строки, без чтения таблиц
+ * - целиком из БД снимок перечитывается только по расписанию - страховка от изменений в обход приложения
+ */
+@Slf4j
+@Component
+public class ReferenceDataStore {
+
+    private final AdminUserJpaRepository adminJpaRepository;
+    private final TelegramGroupJpaRepository groupJpaRepository;
+    private final CityJpaRepository cityJpaRepository;
+    private final GroupCityJpaRepository groupCityJpaRepository;
+    private final AdminEntityMapper adminMapper;
+    private final TelegramGroupEntityMapper groupMapper;
+    private final CityMapper cityMapper;
+
+    private volatile ReferenceDataSnapshot snapshot = ReferenceDataSnapshot.EMPTY;
+    // Количество точечных изменений; только под lock this
+    private long updates;
+
+    private final Timer refreshTimer;
+    private final Counter refreshFailedCounter;
+
+    public ReferenceDataStore(
+            AdminUserJpaRepository adminJpaRepository,
+            TelegramGroupJpaRepository groupJpaRepository,
+            CityJpaRepository cityJpaRepository,
+            GroupCityJpaRepository groupCityJpaRepository,
+            AdminEntityMapper adminMapper,
+            TelegramGroupEntityMapper groupMapper,
+            CityMapper cityMapper,
+            MeterRegistry meterRegistry) {
+        this.adminJpaRepository = adminJpaRepository;
+        this.groupJpaRepository = groupJpaRepository;
+        this.cityJpaRepository = cityJpaRepository;
+        this.groupCityJpaRepository = groupCityJpaRepository;
+        this.adminMapper = adminMapper;
+        this.groupMapper = groupMapper;
+        this.cityMapper = cityMapper;
+
+        this.refreshTimer = Timer.builder("telegram.reference-data.refresh")
+                .description("Time to reload the reference data snapshot from the database")
+                .register(meterRegistry);
+        this.refreshFailedCounter = Counter.builder("telegram.reference-data.refresh.failed")
+                .description("Number of failed reference data snapshot reloads")
+                .register(meterRegistry);
+        Gauge.builder("telegram.reference-data.groups", this, s -> s.snapshot.getGroups().size())
+                .description("Number of groups in the reference data snapshot")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+        log.info("Reference data snapshot loaded: {} admins, {} groups, {} cities",
+                snapshot.getAdmins().size(), snapshot.getGroups().size(), snapshot.getCities().size());
+    }
+
+    public ReferenceDataSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Применяет к снимку запись, уже выполненную в БД, и публикует новый снимок.
+     * Ошибка не пробрасывается - запись в БД уже выполнена, снимок догонит ее
+     * при следующей перезагрузке по расписанию.
+     */
+    public synchronized void update(UnaryOperator<ReferenceDataSnapshot> change) {
+        try {
+            snapshot = change.apply(snapshot);
+            updates++;
+        } catch (Exception e) {
+            refreshFailedCounter.increment();
+            log.error("Failed to apply change to reference data snapshot, keeping previous snapshot", e);
+        }
+    }
+
+    /**
+     * Изменение статуса группы, в том числе пришедшее с другого узла. Известная группа меняется
+     * в снимке без обращения к БД; из БД читается только строка группы, которой в снимке еще нет.
+     */
+    public void applyGroupStatus(long chatId, boolean active) {
+        TelegramGroup known = snapshot.findGroup(chatId);
+        if (known != null) {
+            update(current -> {
+                TelegramGroup group = current.findGroup(chatId);
+                if (group == null || active == Boolean.TRUE.equals(group.getIsActive())) {
+                    return current;
+                }
+                return current.withGroup(active ? group.activate() : group.deactivate());
+            });
+            return;
+        }
+        if (!active) {
+            return;
+        }
+
+        try {
+            groupJpaRepository.findByChatId(chatId)
+                    .map(groupMapper::toDomain)
+                    .ifPresent(group -> update(current -> current.withGroup(group)));
+        } catch (Exception e) {
+            refreshFailedCounter.increment();
+            log.error("Failed to load group {}, it will appear after the next reload", chatId, e);
+        }
+    }
+
+    /**
+     * Перечитывает снимок из БД. Ошибка не пробрасывается - остается прежний снимок.
+     */
+    @Scheduled(fixedDelayString = "${telegram.reference-data.refresh-interval-ms:60000}",
+            initialDelayString = "${telegram.reference-data.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            refreshFailedCounter.increment();
+            log.error("Failed to reload reference data, keeping previous snapshot", e);
+        }
+    }
+
+    /**
+     * Таблицы читаются без блокировки, чтобы не задерживать точечные изменения. Если за время
+     * чтения снимок изменили, прочитанное могло их не застать - публикация пропускается
+     * до следующей перезагрузки.
+     */
+    private void reload() {
+        long updatesBefore;
+        synchronized (this) {
+            updatesBefore = updates;
+        }
+        refreshTimer.record(() -> {
+            List<AdminUser> admins = adminJpaRepository.findAll().stream()
+                    .map(adminMapper::toDomain)
+                    .toList();
+            List<TelegramGroup> groups = groupJpaRepository.findAllWithUsername().stream()
+                    .map(groupMapper::toDomain)
+                    .toList();
+            List<City> cities = cityJpaRepository.findAll().stream()
+                    .map(cityMapper::toDomain)
+                    .toList();
+            List<GroupCity> groupCities = groupCityJpaRepository.findAll().stream()
+                    .map(e -> GroupCity.builder()
+                            .groupChatId(e.getGroupChatId())
+                            .cityId(e.getCityId())
+                            .build())
+                    .toList();
+
+            ReferenceDataSnapshot loaded = ReferenceDataSnapshot.build(admins, groups, cities, groupCities);
+            synchronized (this) {
+                if (updates != updatesBefore) {
+                    log.debug("Reference data changed during reload, keeping the updated snapshot");
+                    return;
+                }
+                snapshot = loaded;
+            }
+            log.debug("Reference data snapshot reloaded: {} groups", loaded.getGroups().size());
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package ru.polyrythms.telegrambot.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.application.port.output.ActiveGroupCache;
+import ru.polyrythms.telegrambot.domain.model.TelegramGroup;
+
+/**
+ * Кэш активных групп поверх снимка справочных таблиц ({@link ReferenceDataStore}).
+ * <p>
+ * Отдельной копии активных групп нет: проверка - поиск группы в индексе снимка по chatId
+ * без блокировок и обращений к БД. Изменения статуса применяются к снимку точечно,
+ * страховочная перезагрузка из БД - общая для всего снимка.
+ */
+@Slf4j
+@Component
+public class SnapshotActiveGroupCache implements ActiveGroupCache {
+
+    private final ReferenceDataStore referenceData;
+    private final Counter eventCounter;
+
+    public SnapshotActiveGroupCache(ReferenceDataStore referenceData, MeterRegistry meterRegistry) {
+        this.referenceData = referenceData;
+
+        this.eventCounter = Counter.builder("telegram.groups.cache.events")
+                .description("Number of group change events applied to the cache")
+                .register(meterRegistry);
+        Gauge.builder("telegram.groups.cache.size", referenceData, s -> s.current().getActiveGroups().size())
+                .description("Number of active groups in the reference data snapshot")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isActive(Long chatId) {
+        if (chatId == null) {
+            return false;
+        }
+        TelegramGroup group = referenceData.current().findGroup(chatId);
+        return group != null && Boolean.TRUE.equals(group.getIsActive());
+    }
+
+    @Override
+    public void apply(Long chatId, boolean active) {
+        if (chatId == null) {
+            return;
+        }
+        eventCounter.increment();
+        referenceData.applyGroupStatus(chatId, active);
+        log.debug("Active group cache updated: chatId={}, active={}", chatId, active);
+    }
+}
@@ -1,8 +1,10 @@
 package ru.polyrythms.telegrambot.infrastructure.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import ru.polyrythms.telegrambot.application.port.input.*;
 import ru.polyrythms.telegrambot.application.port.output.*;
 import ru.polyrythms.telegrambot.application.service.*;
@@ -10,6 +12,7 @@ import ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram.Telegram
 
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class BeanConfig {
 
     @Bean
@@ -20,8 +23,10 @@ public class BeanConfig {
     @Bean
     public GroupManagementUseCase groupManagementUseCase(
             TelegramGroupRepository groupRepository,
-            AdminRepository adminRepository) {
-        return new GroupManagementService(groupRepository, adminRepository);
+            AdminRepository adminRepository,
+            ActiveGroupCache activeGroupCache,
+            GroupEventPublisher groupEventPublisher) {
+        return new GroupManagementService(groupRepository, adminRepository, activeGroupCache, groupEventPublisher);
     }
 
     @Bean
@@ -32,7 +37,8 @@ public class BeanConfig {
             WeatherAdminUseCase weatherAdminUseCase,
             WeatherUserUseCase weatherUserUseCase,
             TelegramBotClient telegramBotClient,
-            GroupMembershipService membershipService) {
+            GroupMembershipService membershipService,
+            TaskStatistics taskStatistics) {
         return new CommandHandlingService(
                 adminManagementUseCase,
                 groupManagementUseCase,
@@ -40,12 +46,18 @@ public class BeanConfig {
                 weatherAdminUseCase,
                 weatherUserUseCase,
                 telegramBotClient,
-                membershipService);
+                membershipService,
+                taskStatistics);
     }
 
     @Bean
     public DecryptionResultHandlingUseCase decryptionResultHandlingUseCase(
-            MessageSender messageSender) {
-        return new DecryptionResultHandlingService(messageSender);
+            MessageSender messageSender,
+            TaskStatistics taskStatistics,
+            TaskLedger taskLedger,
+            PlaceholderRegistry placeholderRegistry,
+            @Value("${telegram.voice.partial-edit-interval-ms:3000}") long partialEditIntervalMs) {
+        return new DecryptionResultHandlingService(messageSender, taskStatistics, taskLedger, placeholderRegistry,
+                partialEditIntervalMs);
     }
 }
\ No newline at end of file
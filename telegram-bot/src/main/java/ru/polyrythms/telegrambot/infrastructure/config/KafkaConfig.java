@@ -1,5 +1,7 @@
 package ru.polyrythms.telegrambot.infrastructure.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
@@ -7,7 +9,12 @@ import org.springframework.kafka.core.KafkaTemplate;
 import ru.polyrythms.kafka.config.KafkaCommonConfig;
 import ru.polyrythms.kafka.dto.AudioDecryptionResult;
 import ru.polyrythms.kafka.dto.AudioDecryptionTask;
+import ru.polyrythms.kafka.dto.GroupChangedEvent;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Slf4j
 @Configuration
 public class KafkaConfig extends KafkaCommonConfig {
 
@@ -16,9 +23,52 @@ public class KafkaConfig extends KafkaCommonConfig {
         return new KafkaTemplate<>(createProducerFactory(AudioDecryptionTask.class));
     }
 
+    /**
+     * Результаты подтверждаются асинхронно после доставки в чат (см. ResultDeliveryPipeline):
+     * asyncAcks допускает подтверждения не по порядку, а коммит offset выполняется по порядку.
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, AudioDecryptionResult>
     audioDecryptionResultConcurrentKafkaListenerContainerFactory() {
-        return createListenerContainerFactory(AudioDecryptionResult.class, "telegram-bot-group");
+        ConcurrentKafkaListenerContainerFactory<String, AudioDecryptionResult> factory =
+                createListenerContainerFactory(AudioDecryptionResult.class, "telegram-bot-group");
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, GroupChangedEvent> groupChangedEventKafkaTemplate() {
+        return new KafkaTemplate<>(createProducerFactory(GroupChangedEvent.class));
+    }
+
+    /**
+     * Своя consumer group на каждый узел - события изменения групп должны получить все экземпляры.
+     * Идентификатор группы стабилен между рестартами узла (instance-id, иначе имя хоста - в Kubernetes
+     * это имя пода), поэтому рестарт не оставляет в брокере брошенную группу.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, GroupChangedEvent>
+    groupChangedEventConcurrentKafkaListenerContainerFactory(@Value("${app.kafka.instance-id:}") String instanceId) {
+        String groupId = "telegram-bot-groups-" + resolveInstanceId(instanceId);
+        log.info("Group change events consumer group: {}", groupId);
+        ConcurrentKafkaListenerContainerFactory<String, GroupChangedEvent> factory =
+                createListenerContainerFactory(GroupChangedEvent.class, groupId);
+        factory.setConcurrency(1);
+        return factory;
+    }
+
+    private static String resolveInstanceId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        String hostname = System.getenv("HOSTNAME");
+        if (hostname != null && !hostname.isBlank()) {
+            return hostname;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot resolve host name, set app.kafka.instance-id", e);
+        }
     }
 }
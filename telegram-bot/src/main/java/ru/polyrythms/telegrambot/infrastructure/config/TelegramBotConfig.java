@@ -12,11 +12,14 @@ import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 import ru.polyrythms.telegrambot.infrastructure.adapter.input.telegram.TelegramBotAdapter;
 
+import java.util.List;
+
 /**
  * Конфигурация Telegram бота.
  * Содержит только статическую конфигурацию:
  * - botName (username) - из проперти
  * - botToken - из проперти
+ * - allowedUpdates - типы обновлений для getUpdates
  * botId получается динамически через API при старте бота,
  * поэтому не хранится в проперти.
  */
@@ -31,6 +34,18 @@ public class TelegramBotConfig {
     @Value("${telegram.bot.token}")
     private String botToken;
 
+    /**
+     * Адрес Bot API (переопределяется для локального fake сервера)
+     */
+    @Value("${telegram.api.base-url:https://api.telegram.org}")
+    private String apiBaseUrl;
+
+    /**
+     * Типы обновлений, запрашиваемые у Telegram (allowed_updates)
+     */
+    @Value("${telegram.bot.allowed-updates:message,callback_query,chat_member,my_chat_member}")
+    private List<String> allowedUpdates;
+
     /**
      * Регистрация бота в Telegram API.
      * Используется новый адаптер TelegramBotAdapter.
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.polyrythms.telegrambot.infrastructure.overflow.OverflowJournal;
 
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -25,8 +26,14 @@ public class ThreadPoolConfig {
     @Value("${telegram.thread-pool.outbound.core-size:0}")
     private int outboundConfiguredCoreSize;
 
+    @Value("${telegram.thread-pool.voice-storage.core-size:8}")
+    private int voiceStorageCoreSize;
+
+    @Value("${telegram.voice.pipeline.max-in-flight:32}")
+    private int voiceMaxInFlight;
+
     @Bean("telegramInboundExecutor")
-    public ThreadPoolExecutor telegramInboundExecutor(MeterRegistry meterRegistry) {
+    public ThreadPoolExecutor telegramInboundExecutor(MeterRegistry meterRegistry, OverflowJournal overflowJournal) {
         int cores = Runtime.getRuntime().availableProcessors();
         int poolSize = inboundConfiguredCoreSize > 0 ? inboundConfiguredCoreSize : cores;
 
@@ -41,7 +48,7 @@ public class ThreadPoolConfig {
         executor.setDaemon(false);
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
-        executor.setRejectedExecutionHandler(new UserFriendlyRejectionHandler(meterRegistry));
+        executor.setRejectedExecutionHandler(new UserFriendlyRejectionHandler(meterRegistry, overflowJournal));
         executor.initialize();
 
         ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
@@ -67,7 +74,8 @@ public class ThreadPoolConfig {
         executor.setDaemon(false);
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // Без CallerRunsPolicy: отклоненный запрос возвращается в очередь планировщика исходящих сообщений
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.initialize();
 
         ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
@@ -77,6 +85,34 @@ public class ThreadPoolConfig {
         return pool;
     }
 
+    /**
+     * Стадия скачивания из Telegram и загрузки в MinIO конвейера голосовых сообщений.
+     * Пул ограничен по I/O параллелизму, а не по ядрам; очередь вмещает все задачи конвейера
+     * (их число ограничено telegram.voice.pipeline.max-in-flight), поэтому отклонений не бывает.
+     */
+    @Bean("voiceStorageExecutor")
+    public ThreadPoolExecutor voiceStorageExecutor(MeterRegistry meterRegistry) {
+        log.info("Initializing VOICE STORAGE thread pool with {} threads, queue capacity: {}",
+                voiceStorageCoreSize, voiceMaxInFlight);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(voiceStorageCoreSize);
+        executor.setMaxPoolSize(voiceStorageCoreSize);
+        executor.setQueueCapacity(voiceMaxInFlight);
+        executor.setThreadNamePrefix("voice-storage-");
+        executor.setDaemon(false);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        registerThreadPoolMetrics(pool, meterRegistry, "voice-storage");
+
+        log.info("VOICE STORAGE thread pool initialized successfully");
+        return pool;
+    }
+
     /**
      * Универсальный метод для регистрации метрик пула потоков
      *
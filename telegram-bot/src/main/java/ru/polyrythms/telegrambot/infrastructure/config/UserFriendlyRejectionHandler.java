@@ -3,6 +3,8 @@ package ru.polyrythms.telegrambot.infrastructure.config;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
+import ru.polyrythms.telegrambot.infrastructure.overflow.OverflowJournal;
 import ru.polyrythms.telegrambot.infrastructure.task.VoiceMessageTask;
 
 import java.util.concurrent.CompletableFuture;
@@ -14,6 +16,7 @@ import java.util.concurrent.atomic.AtomicLong;
 public class UserFriendlyRejectionHandler implements RejectedExecutionHandler {
 
     private final Counter rejectionCounter;
+    private final OverflowJournal overflowJournal;
     private final AtomicLong lastLogTime = new AtomicLong(0);
     private final AtomicLong lastNotificationTime = new AtomicLong(0);
 
@@ -21,7 +24,8 @@ public class UserFriendlyRejectionHandler implements RejectedExecutionHandler {
     private static final long NOTIFICATION_COOLDOWN_MS = 5000; // 5 секунд
     private static final long LOG_COOLDOWN_MS = 10000; // 10 секунд
 
-    public UserFriendlyRejectionHandler(MeterRegistry meterRegistry) {
+    public UserFriendlyRejectionHandler(MeterRegistry meterRegistry, OverflowJournal overflowJournal) {
+        this.overflowJournal = overflowJournal;
         this.rejectionCounter = Counter.builder("telegram.tasks.rejected")
                 .description("Number of rejected tasks due to queue overflow")
                 .register(meterRegistry);
@@ -35,13 +39,39 @@ public class UserFriendlyRejectionHandler implements RejectedExecutionHandler {
         // Логируем состояние пула (не чаще раза в 10 секунд)
         logPoolState(executor);
 
-        // Пытаемся уведомить пользователя
-        notifyUserIfPossible(r);
+        // Сохраняем обновления в журнал переполнения - они будут обработаны позже
+        // (в том числе после рестарта, если пул уже останавливается)
+        int notSpilled = spillToJournal(r);
+        if (notSpilled == 0) {
+            return;
+        }
+
+        // Уведомляем только о том, что не удалось сохранить: повторная отправка
+        // уже сохраненных сообщений создала бы дубликаты
+        notifyUserIfPossible(r, notSpilled);
 
         // Задача отбрасывается (не выполняется)
         log.debug("Task rejected and discarded");
     }
 
+    /**
+     * @return количество обновлений, которые не удалось сохранить; -1 - задача не из inbound пула
+     */
+    private int spillToJournal(Runnable r) {
+        if (!(r instanceof VoiceMessageTask task)) {
+            return -1;
+        }
+        int notSpilled = 0;
+        for (TelegramUpdateDto update : task.getUpdates()) {
+            if (!overflowJournal.append(update)) {
+                notSpilled++;
+            }
+        }
+        log.debug("Task for chatId {} spilled to overflow journal ({} of {} updates)",
+                task.getChatId(), task.getUpdates().size() - notSpilled, task.getUpdates().size());
+        return notSpilled;
+    }
+
     private void logPoolState(ThreadPoolExecutor executor) {
         long now = System.currentTimeMillis();
         if (now - lastLogTime.get() > LOG_COOLDOWN_MS) {
@@ -62,7 +92,7 @@ public class UserFriendlyRejectionHandler implements RejectedExecutionHandler {
         }
     }
 
-    private void notifyUserIfPossible(Runnable r) {
+    private void notifyUserIfPossible(Runnable r, int notSpilled) {
         long now = System.currentTimeMillis();
 
         // Ограничиваем частоту уведомлений
@@ -76,7 +106,7 @@ public class UserFriendlyRejectionHandler implements RejectedExecutionHandler {
             // Асинхронно отправляем уведомление, не блокируя текущий поток
             CompletableFuture.runAsync(() -> {
                 try {
-                    task.sendOverloadNotification();
+                    task.sendOverloadNotification(notSpilled);
                     log.debug("Sent overload notification to chatId: {}", task.getChatId());
                 } catch (Exception e) {
                     log.error("Failed to send overload notification", e);
@@ -0,0 +1,32 @@
+package ru.polyrythms.telegrambot.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "chat_task_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ChatTaskStatsEntity {
+
+    @Id
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+
+    @Column(name = "tasks_created", nullable = false)
+    private long tasksCreated;
+
+    @Column(name = "tasks_completed", nullable = false)
+    private long tasksCompleted;
+
+    @Column(name = "tasks_failed", nullable = false)
+    private long tasksFailed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
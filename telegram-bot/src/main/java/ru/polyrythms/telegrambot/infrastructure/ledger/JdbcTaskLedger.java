@@ -0,0 +1,351 @@
+package ru.polyrythms.telegrambot.infrastructure.ledger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.application.port.output.TaskLedger;
+import ru.polyrythms.telegrambot.domain.model.GroupLatencyReport;
+import ru.polyrythms.telegrambot.domain.model.TaskLedgerEntry;
+import ru.polyrythms.telegrambot.domain.model.TaskStage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журнал заданий в таблице voice_task_ledger с отложенной пакетной записью.
+ * <p>
+ * Потоки конвейера только кладут событие в {@link LedgerEventRing}. Отдельный поток
+ * task-ledger-writer раз в flushIntervalMs забирает события пачками, сворачивает события
+ * одного задания в одну строку и пишет их двумя JDBC batch запросами:
+ * - INSERT для заданий, принятых в этой пачке (сразу со всеми известными стадиями)
+ * - UPDATE для остальных: стадия заполняется, только если еще не записана (COALESCE)
+ * <p>
+ * Время хранится в миллисекундах epoch, поэтому задержки стадий считаются обычной разностью
+ * колонок без функций конкретной СУБД. Записи старше retentionDays удаляются.
+ */
+@Slf4j
+@Component
+public class JdbcTaskLedger implements TaskLedger {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO voice_task_ledger (task_id, chat_id, duration_seconds, received_at_ms, stored_at_ms,
+                queued_at_ms, transcribed_at_ms, delivered_at_ms, failed_at_ms, error)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final int[] INSERT_TYPES = {Types.VARCHAR, Types.BIGINT, Types.INTEGER, Types.BIGINT, Types.BIGINT,
+            Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR};
+
+    private static final String UPDATE_SQL = """
+            UPDATE voice_task_ledger SET
+                stored_at_ms = COALESCE(stored_at_ms, ?),
+                queued_at_ms = COALESCE(queued_at_ms, ?),
+                transcribed_at_ms = COALESCE(transcribed_at_ms, ?),
+                delivered_at_ms = COALESCE(delivered_at_ms, ?),
+                failed_at_ms = COALESCE(failed_at_ms, ?),
+                error = COALESCE(error, ?)
+            WHERE task_id = ?
+            """;
+    private static final int[] UPDATE_TYPES = {Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
+            Types.VARCHAR, Types.VARCHAR};
+
+    // Незавершенные задания в отчетах считаются до момента запроса (параметр now)
+    private static final String SLOW_TASKS_SQL = """
+            SELECT task_id, chat_id, duration_seconds, received_at_ms, stored_at_ms, queued_at_ms,
+                transcribed_at_ms, delivered_at_ms, failed_at_ms, error,
+                COALESCE(delivered_at_ms, failed_at_ms, ?) - received_at_ms AS total_ms
+            FROM voice_task_ledger
+            WHERE received_at_ms >= ?
+              AND COALESCE(delivered_at_ms, failed_at_ms, ?) - received_at_ms >= ?
+            ORDER BY total_ms DESC
+            LIMIT ?
+            """;
+
+    private static final String GROUP_LATENCY_SQL = """
+            SELECT chat_id,
+                COUNT(*) AS tasks,
+                SUM(CASE WHEN failed_at_ms IS NOT NULL THEN 1 ELSE 0 END) AS failed,
+                SUM(CASE WHEN delivered_at_ms IS NULL AND failed_at_ms IS NULL THEN 1 ELSE 0 END) AS undelivered,
+                AVG(stored_at_ms - received_at_ms) AS avg_store_ms,
+                AVG(queued_at_ms - stored_at_ms) AS avg_queue_ms,
+                AVG(transcribed_at_ms - queued_at_ms) AS avg_transcribe_ms,
+                AVG(delivered_at_ms - transcribed_at_ms) AS avg_deliver_ms,
+                AVG(delivered_at_ms - received_at_ms) AS avg_total_ms,
+                MAX(delivered_at_ms - received_at_ms) AS max_total_ms
+            FROM voice_task_ledger
+            WHERE received_at_ms >= ?
+            GROUP BY chat_id
+            ORDER BY avg_total_ms DESC NULLS LAST
+            """;
+
+    private static final String CLEANUP_SQL = "DELETE FROM voice_task_ledger WHERE received_at_ms < ?";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerEventRing ring;
+    private final int bufferCapacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Duration retention;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "task-ledger-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    public JdbcTaskLedger(
+            JdbcTemplate jdbcTemplate,
+            @Value("${telegram.ledger.buffer-capacity:65536}") int bufferCapacity,
+            @Value("${telegram.ledger.batch-size:500}") int batchSize,
+            @Value("${telegram.ledger.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${telegram.ledger.retention-days:30}") int retentionDays,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ring = new LedgerEventRing(bufferCapacity);
+        this.bufferCapacity = bufferCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.retention = Duration.ofDays(retentionDays);
+
+        this.droppedCounter = Counter.builder("telegram.ledger.dropped")
+                .description("Number of task ledger events dropped because the buffer is full")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("telegram.ledger.written")
+                .description("Number of task ledger rows inserted or updated")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("telegram.ledger.flush.failed")
+                .description("Number of task ledger batches lost due to database errors")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("telegram.ledger.flush")
+                .description("Time to write one batch of task ledger events")
+                .register(meterRegistry);
+        Gauge.builder("telegram.ledger.pending", ring, LedgerEventRing::size)
+                .description("Number of task ledger events waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        writer.scheduleWithFixedDelay(this::cleanup, 1, 60, TimeUnit.MINUTES);
+        log.info("Task ledger started: buffer {}, batch {}, flush every {} ms, retention {}",
+                bufferCapacity, batchSize, flushIntervalMs, retention);
+    }
+
+    @Override
+    public void recordReceived(String taskId, Long chatId, Integer durationSeconds) {
+        offer(new LedgerEvent(taskId, chatId, TaskStage.RECEIVED, System.currentTimeMillis(), durationSeconds, null));
+    }
+
+    @Override
+    public void recordStage(String taskId, Long chatId, TaskStage stage) {
+        offer(new LedgerEvent(taskId, chatId, stage, System.currentTimeMillis(), null, null));
+    }
+
+    @Override
+    public void recordFailed(String taskId, Long chatId, String error) {
+        String truncated = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        offer(new LedgerEvent(taskId, chatId, TaskStage.FAILED, System.currentTimeMillis(), null,
+                truncated != null ? truncated : "unknown"));
+    }
+
+    private void offer(LedgerEvent event) {
+        if (event.taskId() == null || !ring.offer(event)) {
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * Записывает накопленные события пачками по batchSize. Выполняется только в потоке task-ledger-writer
+     * (и при остановке после его завершения).
+     */
+    void flush() {
+        List<LedgerEvent> events = new ArrayList<>(Math.min(batchSize, ring.size()));
+        while (ring.drainTo(events, batchSize) > 0) {
+            try {
+                flushTimer.record(() -> write(events));
+            } catch (DataAccessException e) {
+                failedCounter.increment();
+                log.error("Failed to write {} task ledger events", events.size(), e);
+            }
+            events.clear();
+        }
+    }
+
+    private void write(List<LedgerEvent> events) {
+        Map<String, PendingRow> rows = new LinkedHashMap<>();
+        for (LedgerEvent event : events) {
+            rows.computeIfAbsent(event.taskId(), id -> new PendingRow(id, event.chatId())).apply(event);
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (PendingRow row : rows.values()) {
+            if (row.receivedAt != null) {
+                inserts.add(row.insertArgs());
+            } else {
+                updates.add(row.updateArgs());
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, INSERT_TYPES);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates, UPDATE_TYPES);
+        }
+        writtenCounter.increment(rows.size());
+    }
+
+    private void cleanup() {
+        try {
+            int deleted = jdbcTemplate.update(CLEANUP_SQL, Instant.now().minus(retention).toEpochMilli());
+            if (deleted > 0) {
+                log.info("Removed {} task ledger rows older than {}", deleted, retention);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to clean up task ledger", e);
+        }
+    }
+
+    @Override
+    public List<TaskLedgerEntry> findSlowTasks(Instant since, long thresholdMs, int limit) {
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.query(SLOW_TASKS_SQL, JdbcTaskLedger::mapEntry,
+                now, since.toEpochMilli(), now, thresholdMs, limit);
+    }
+
+    @Override
+    public List<GroupLatencyReport> getGroupLatency(Instant since) {
+        return jdbcTemplate.query(GROUP_LATENCY_SQL, (rs, rowNum) -> GroupLatencyReport.builder()
+                .chatId(rs.getLong("chat_id"))
+                .tasks(rs.getLong("tasks"))
+                .failed(rs.getLong("failed"))
+                .undelivered(rs.getLong("undelivered"))
+                .avgStoreMs(getLong(rs, "avg_store_ms"))
+                .avgQueueMs(getLong(rs, "avg_queue_ms"))
+                .avgTranscribeMs(getLong(rs, "avg_transcribe_ms"))
+                .avgDeliverMs(getLong(rs, "avg_deliver_ms"))
+                .avgTotalMs(getLong(rs, "avg_total_ms"))
+                .maxTotalMs(getLong(rs, "max_total_ms"))
+                .build(), since.toEpochMilli());
+    }
+
+    private static TaskLedgerEntry mapEntry(ResultSet rs, int rowNum) throws SQLException {
+        Long duration = getLong(rs, "duration_seconds");
+        return TaskLedgerEntry.builder()
+                .taskId(rs.getString("task_id"))
+                .chatId(rs.getLong("chat_id"))
+                .durationSeconds(duration != null ? duration.intValue() : null)
+                .receivedAt(getInstant(rs, "received_at_ms"))
+                .storedAt(getInstant(rs, "stored_at_ms"))
+                .queuedAt(getInstant(rs, "queued_at_ms"))
+                .transcribedAt(getInstant(rs, "transcribed_at_ms"))
+                .deliveredAt(getInstant(rs, "delivered_at_ms"))
+                .failedAt(getInstant(rs, "failed_at_ms"))
+                .error(rs.getString("error"))
+                .totalMs(rs.getLong("total_ms"))
+                .build();
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Instant getInstant(ResultSet rs, String column) throws SQLException {
+        Long millis = getLong(rs, column);
+        return millis != null ? Instant.ofEpochMilli(millis) : null;
+    }
+
+    @PreDestroy
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // Остаток буфера пишем в вызывающем потоке - writer уже остановлен
+        flush();
+        log.info("Task ledger stopped");
+    }
+
+    /**
+     * События одного задания из пачки, свернутые в одну строку. Для каждой стадии - первое время.
+     */
+    private static final class PendingRow {
+        private final String taskId;
+        private final Long chatId;
+        private Integer durationSeconds;
+        private Long receivedAt;
+        private Long storedAt;
+        private Long queuedAt;
+        private Long transcribedAt;
+        private Long deliveredAt;
+        private Long failedAt;
+        private String error;
+
+        PendingRow(String taskId, Long chatId) {
+            this.taskId = taskId;
+            this.chatId = chatId;
+        }
+
+        void apply(LedgerEvent event) {
+            Long at = event.timestampMs();
+            switch (event.stage()) {
+                case RECEIVED -> {
+                    if (receivedAt == null) {
+                        receivedAt = at;
+                        durationSeconds = event.durationSeconds();
+                    }
+                }
+                case STORED -> storedAt = storedAt != null ? storedAt : at;
+                case QUEUED -> queuedAt = queuedAt != null ? queuedAt : at;
+                case TRANSCRIBED -> transcribedAt = transcribedAt != null ? transcribedAt : at;
+                case DELIVERED -> deliveredAt = deliveredAt != null ? deliveredAt : at;
+                case FAILED -> {
+                    if (failedAt == null) {
+                        failedAt = at;
+                        error = event.error();
+                    }
+                }
+            }
+        }
+
+        Object[] insertArgs() {
+            return new Object[]{taskId, chatId, durationSeconds, receivedAt, storedAt, queuedAt, transcribedAt,
+                    deliveredAt, failedAt, error};
+        }
+
+        Object[] updateArgs() {
+            return new Object[]{storedAt, queuedAt, transcribedAt, deliveredAt, failedAt, error, taskId};
+        }
+    }
+}
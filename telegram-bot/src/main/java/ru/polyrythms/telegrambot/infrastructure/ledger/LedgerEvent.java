@@ -0,0 +1,13 @@
+package ru.polyrythms.telegrambot.infrastructure.ledger;
+
+import ru.polyrythms.telegrambot.domain.model.TaskStage;
+
+/**
+ * Событие журнала заданий в буфере до записи в БД.
+ *
+ * @param durationSeconds длительность аудио, только для RECEIVED
+ * @param error           причина ошибки, только для FAILED
+ */
+record LedgerEvent(String taskId, Long chatId, TaskStage stage, long timestampMs,
+                   Integer durationSeconds, String error) {
+}
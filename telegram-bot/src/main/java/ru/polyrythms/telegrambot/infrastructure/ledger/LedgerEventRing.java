@@ -0,0 +1,57 @@
+package ru.polyrythms.telegrambot.infrastructure.ledger;
+
+import java.util.List;
+
+/**
+ * Кольцевой буфер событий журнала фиксированной емкости.
+ * <p>
+ * Запись - O(1) без выделения памяти под узлы и без ожидания: при заполненном буфере
+ * событие отклоняется, а не вытесняет более старые (их стадии уже частично записаны).
+ * Чтение пачками выполняет один поток записи в БД.
+ */
+final class LedgerEventRing {
+
+    private final LedgerEvent[] slots;
+    private int head;
+    private int size;
+
+    LedgerEventRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ledger buffer capacity must be positive: " + capacity);
+        }
+        this.slots = new LedgerEvent[capacity];
+    }
+
+    /**
+     * @return false, если буфер заполнен
+     */
+    synchronized boolean offer(LedgerEvent event) {
+        if (size == slots.length) {
+            return false;
+        }
+        int tail = head + size;
+        slots[tail >= slots.length ? tail - slots.length : tail] = event;
+        size++;
+        return true;
+    }
+
+    /**
+     * Переносит в out не более max самых старых событий.
+     *
+     * @return количество перенесенных событий
+     */
+    synchronized int drainTo(List<LedgerEvent> out, int max) {
+        int count = Math.min(max, size);
+        for (int i = 0; i < count; i++) {
+            out.add(slots[head]);
+            slots[head] = null;
+            head = head + 1 == slots.length ? 0 : head + 1;
+        }
+        size -= count;
+        return count;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,258 @@
+package ru.polyrythms.telegrambot.infrastructure.membership;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.application.port.output.GroupMembershipIndex;
+import ru.polyrythms.telegrambot.domain.model.GroupMembership;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Индекс членства в памяти ({@link UserGroupTable}) с сохранением в таблицу group_members.
+ * <p>
+ * При старте таблица целиком загружается в память, дальше чтение идет только из памяти.
+ * Изменения копятся в очереди и раз в flushIntervalMs пишутся одним JDBC batch.
+ * Повторные сообщения пользователя в группе не порождают записи в БД: подтверждение
+ * членства обновляется не чаще touchIntervalMs.
+ * <p>
+ * Запись о выходе старше negativeTtlMs ничем не отличается от отсутствующей (членство все равно
+ * перепроверяется через GetChatMember), поэтому такие записи и пользователи без записей
+ * раз в evictIntervalMs удаляются из памяти и из БД.
+ */
+@Slf4j
+@Component
+public class PersistentGroupMembershipIndex implements GroupMembershipIndex {
+
+    private static final String LOAD_SQL = "SELECT group_chat_id, user_id, is_member, confirmed_at_ms FROM group_members";
+    private static final String UPSERT_SQL = """
+            MERGE INTO group_members (group_chat_id, user_id, is_member, confirmed_at_ms)
+            KEY (group_chat_id, user_id)
+            VALUES (?, ?, ?, ?)
+            """;
+    private static final int[] UPSERT_TYPES = {Types.BIGINT, Types.BIGINT, Types.BOOLEAN, Types.BIGINT};
+    private static final String DELETE_GROUP_SQL = "DELETE FROM group_members WHERE group_chat_id = ?";
+    private static final String DELETE_STALE_SQL =
+            "DELETE FROM group_members WHERE is_member = FALSE AND confirmed_at_ms < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long touchIntervalMs;
+    private final long negativeTtlMs;
+
+    private final UserGroupTable table = new UserGroupTable(1024);
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+
+    // Изменения, еще не записанные в БД (в том числе после неудачной записи); только под lock flush()
+    private final Map<Key, Change> pendingUpserts = new LinkedHashMap<>();
+    private final Set<Long> pendingRemovals = new HashSet<>();
+    // Граница удаления устаревших записей о выходе из БД, 0 - удалять нечего; только под lock flush()
+    private long pendingEvictBefore;
+
+    private final Counter changesCounter;
+
+    public PersistentGroupMembershipIndex(
+            JdbcTemplate jdbcTemplate,
+            @Value("${telegram.membership.index.touch-interval-ms:3600000}") long touchIntervalMs,
+            @Value("${telegram.membership.index.negative-ttl-ms:600000}") long negativeTtlMs,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.touchIntervalMs = touchIntervalMs;
+        this.negativeTtlMs = negativeTtlMs;
+
+        this.changesCounter = Counter.builder("telegram.membership.index.changes")
+                .description("Number of membership index changes queued for persistence")
+                .register(meterRegistry);
+        Gauge.builder("telegram.membership.index.users", this, PersistentGroupMembershipIndex::getUserCount)
+                .description("Number of users in the membership index")
+                .register(meterRegistry);
+        Gauge.builder("telegram.membership.index.entries", this, PersistentGroupMembershipIndex::getEntryCount)
+                .description("Number of user-group entries in the membership index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        synchronized (table) {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                table.put(rs.getLong("user_id"), rs.getLong("group_chat_id"),
+                        UserGroupTable.state(rs.getBoolean("is_member"), rs.getLong("confirmed_at_ms")));
+            });
+            log.info("Membership index loaded: {} users, {} entries", table.users(), table.entries());
+        }
+    }
+
+    @Override
+    public void recordMember(Long groupChatId, Long userId) {
+        record(groupChatId, userId, true);
+    }
+
+    @Override
+    public void recordNotMember(Long groupChatId, Long userId) {
+        record(groupChatId, userId, false);
+    }
+
+    private void record(Long groupChatId, Long userId, boolean member) {
+        if (groupChatId == null || userId == null || userId == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long state = UserGroupTable.state(member, now);
+        synchronized (table) {
+            long[] groups = table.get(userId);
+            for (int i = 0; i < groups.length; i += 2) {
+                if (groups[i] == groupChatId) {
+                    long previous = groups[i + 1];
+                    // То же состояние подтверждено недавно - ни памяти, ни БД менять не нужно
+                    if (UserGroupTable.isMember(previous) == member
+                            && now - UserGroupTable.confirmedAt(previous) < touchIntervalMs) {
+                        return;
+                    }
+                    break;
+                }
+            }
+            table.put(userId, groupChatId, state);
+            // В очередь под той же блокировкой: порядок изменений в очереди совпадает с порядком в памяти
+            changes.add(new Change(groupChatId, userId, member, now));
+        }
+        changesCounter.increment();
+    }
+
+    @Override
+    public void removeGroup(Long groupChatId) {
+        if (groupChatId == null) {
+            return;
+        }
+        int removed;
+        synchronized (table) {
+            removed = table.removeGroup(groupChatId);
+            changes.add(new Change(groupChatId, null, false, 0));
+        }
+        changesCounter.increment();
+        log.info("Membership index: group {} removed ({} entries)", groupChatId, removed);
+    }
+
+    @Override
+    public List<GroupMembership> findByUser(Long userId) {
+        if (userId == null) {
+            return List.of();
+        }
+        long[] groups;
+        synchronized (table) {
+            groups = table.get(userId).clone();
+        }
+        List<GroupMembership> result = new ArrayList<>(groups.length / 2);
+        for (int i = 0; i < groups.length; i += 2) {
+            long state = groups[i + 1];
+            result.add(new GroupMembership(groups[i], userId,
+                    UserGroupTable.isMember(state), UserGroupTable.confirmedAt(state)));
+        }
+        return result;
+    }
+
+    /**
+     * Удаляет из памяти записи о выходе старше negativeTtlMs и пользователей без записей;
+     * из БД они удаляются при следующем flush().
+     */
+    @Scheduled(fixedDelayString = "${telegram.membership.index.evict-interval-ms:600000}",
+            initialDelayString = "${telegram.membership.index.evict-interval-ms:600000}")
+    public void evictStale() {
+        long evictBefore = System.currentTimeMillis() - negativeTtlMs;
+        int removed;
+        int users;
+        synchronized (table) {
+            removed = table.evictNotMembers(evictBefore);
+            users = table.users();
+        }
+        synchronized (this) {
+            pendingEvictBefore = Math.max(pendingEvictBefore, evictBefore);
+        }
+        log.debug("Membership index evicted {} stale entries, {} users left", removed, users);
+    }
+
+    /**
+     * Записывает накопленные изменения. Удаление группы отменяет более ранние изменения ее записей,
+     * поэтому удаления выполняются до вставок. Удаление устаревших записей о выходе не затрагивает
+     * вставки: они подтверждены позже границы удаления. При ошибке изменения остаются до следующей попытки.
+     */
+    @Scheduled(fixedDelayString = "${telegram.membership.index.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Change change;
+        while ((change = changes.poll()) != null) {
+            if (change.userId() == null) {
+                Long groupChatId = change.groupChatId();
+                pendingUpserts.keySet().removeIf(key -> key.groupChatId() == groupChatId);
+                pendingRemovals.add(groupChatId);
+            } else {
+                pendingUpserts.put(new Key(change.groupChatId(), change.userId()), change);
+            }
+        }
+
+        if (pendingUpserts.isEmpty() && pendingRemovals.isEmpty() && pendingEvictBefore == 0) {
+            return;
+        }
+
+        try {
+            for (Iterator<Long> it = pendingRemovals.iterator(); it.hasNext(); ) {
+                jdbcTemplate.update(DELETE_GROUP_SQL, it.next());
+                it.remove();
+            }
+
+            if (pendingEvictBefore != 0) {
+                int deleted = jdbcTemplate.update(DELETE_STALE_SQL, pendingEvictBefore);
+                log.debug("Membership index deleted {} stale rows", deleted);
+                pendingEvictBefore = 0;
+            }
+
+            if (!pendingUpserts.isEmpty()) {
+                List<Object[]> args = new ArrayList<>(pendingUpserts.size());
+                for (Change pending : pendingUpserts.values()) {
+                    args.add(new Object[]{pending.groupChatId(), pending.userId(), pending.member(), pending.at()});
+                }
+                jdbcTemplate.batchUpdate(UPSERT_SQL, args, UPSERT_TYPES);
+                log.debug("Membership index persisted {} entries", args.size());
+                pendingUpserts.clear();
+            }
+        } catch (Exception e) {
+            log.error("Failed to persist membership index ({} upserts, {} group removals pending)",
+                    pendingUpserts.size(), pendingRemovals.size(), e);
+        }
+    }
+
+    public int getUserCount() {
+        synchronized (table) {
+            return table.users();
+        }
+    }
+
+    public int getEntryCount() {
+        synchronized (table) {
+            return table.entries();
+        }
+    }
+
+    /**
+     * Изменение для записи в БД; userId == null - удаление всей группы
+     */
+    private record Change(Long groupChatId, Long userId, boolean member, long at) {
+    }
+
+    private record Key(long groupChatId, long userId) {
+    }
+}
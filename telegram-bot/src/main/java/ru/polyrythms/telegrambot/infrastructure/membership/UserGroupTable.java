@@ -0,0 +1,201 @@
+package ru.polyrythms.telegrambot.infrastructure.membership;
+
+import java.util.Arrays;
+
+/**
+ * Изменяемая хэш-таблица userId -> набор групп на примитивных массивах (открытая адресация).
+ * <p>
+ * Записи пользователя хранятся в одном long[] парами [groupChatId, state], где
+ * state = confirmedAtMs << 1 | member. У пользователя обычно несколько групп, поэтому
+ * линейный поиск по паре массивов дешевле отдельных объектов на каждую запись.
+ * Ключ 0 не используется (такого userId в Telegram нет) и служит маркером пустой ячейки.
+ * Класс не потокобезопасен - синхронизация выполняется в {@link PersistentGroupMembershipIndex}.
+ */
+final class UserGroupTable {
+
+    private static final long[] NO_GROUPS = new long[0];
+
+    private long[] keys;
+    private long[][] values;
+    private int mask;
+    private int size;
+    private int entries;
+
+    UserGroupTable(int expectedUsers) {
+        int capacity = Integer.highestOneBit(Math.max(expectedUsers * 2, 16) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new long[capacity][];
+        this.mask = capacity - 1;
+    }
+
+    static long state(boolean member, long confirmedAtMs) {
+        return confirmedAtMs << 1 | (member ? 1 : 0);
+    }
+
+    static boolean isMember(long state) {
+        return (state & 1) != 0;
+    }
+
+    static long confirmedAt(long state) {
+        return state >>> 1;
+    }
+
+    /**
+     * @return пары [groupChatId, state] пользователя; массив нельзя менять
+     */
+    long[] get(long userId) {
+        int index = find(userId);
+        return index >= 0 ? values[index] : NO_GROUPS;
+    }
+
+    /**
+     * @return предыдущее состояние записи или -1, если ее не было
+     */
+    long put(long userId, long groupChatId, long state) {
+        int index = find(userId);
+        if (index < 0) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            index = insertionSlot(userId);
+            keys[index] = userId;
+            values[index] = new long[]{groupChatId, state};
+            size++;
+            entries++;
+            return -1;
+        }
+
+        long[] groups = values[index];
+        for (int i = 0; i < groups.length; i += 2) {
+            if (groups[i] == groupChatId) {
+                long previous = groups[i + 1];
+                groups[i + 1] = state;
+                return previous;
+            }
+        }
+        long[] extended = Arrays.copyOf(groups, groups.length + 2);
+        extended[groups.length] = groupChatId;
+        extended[groups.length + 1] = state;
+        values[index] = extended;
+        entries++;
+        return -1;
+    }
+
+    /**
+     * Удаляет группу из наборов всех пользователей (полный проход, выполняется редко).
+     *
+     * @return количество удаленных записей
+     */
+    int removeGroup(long groupChatId) {
+        int removed = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            long[] groups = values[slot];
+            if (keys[slot] == 0 || groups.length == 0) {
+                continue;
+            }
+            for (int i = 0; i < groups.length; i += 2) {
+                if (groups[i] == groupChatId) {
+                    long[] shrunk = new long[groups.length - 2];
+                    System.arraycopy(groups, 0, shrunk, 0, i);
+                    System.arraycopy(groups, i + 2, shrunk, i, groups.length - i - 2);
+                    // Пустой набор остается до очистки - пользователь может снова появиться в группе
+                    values[slot] = shrunk.length == 0 ? NO_GROUPS : shrunk;
+                    removed++;
+                    break;
+                }
+            }
+        }
+        entries -= removed;
+        return removed;
+    }
+
+    /**
+     * Удаляет записи о выходе, подтвержденные раньше confirmedBefore, и пользователей без записей.
+     * Полный проход с перестроением таблицы той же емкости (удаление из открытой адресации
+     * разорвало бы цепочки проб), выполняется редко.
+     *
+     * @return количество удаленных записей
+     */
+    int evictNotMembers(long confirmedBefore) {
+        long[] oldKeys = keys;
+        long[][] oldValues = values;
+        keys = new long[oldKeys.length];
+        values = new long[oldKeys.length][];
+        size = 0;
+
+        int removed = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] == 0) {
+                continue;
+            }
+            long[] groups = oldValues[slot];
+            long[] kept = new long[groups.length];
+            int length = 0;
+            for (int i = 0; i < groups.length; i += 2) {
+                long state = groups[i + 1];
+                if (isMember(state) || confirmedAt(state) >= confirmedBefore) {
+                    kept[length++] = groups[i];
+                    kept[length++] = state;
+                }
+            }
+            removed += (groups.length - length) / 2;
+            if (length == 0) {
+                continue;
+            }
+            int index = insertionSlot(oldKeys[slot]);
+            keys[index] = oldKeys[slot];
+            values[index] = length == groups.length ? groups : Arrays.copyOf(kept, length);
+            size++;
+        }
+        entries -= removed;
+        return removed;
+    }
+
+    int users() {
+        return size;
+    }
+
+    int entries() {
+        return entries;
+    }
+
+    private int find(long userId) {
+        int index = indexOf(userId, mask);
+        long current;
+        while ((current = keys[index]) != 0) {
+            if (current == userId) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insertionSlot(long userId) {
+        int index = indexOf(userId, mask);
+        while (keys[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[][] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity][];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = insertionSlot(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int indexOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -1,9 +1,14 @@
 package ru.polyrythms.telegrambot.infrastructure.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.infrastructure.ratelimit.UpdateType;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 @Component
 public class BotMetrics {
@@ -18,6 +23,10 @@ public class BotMetrics {
     private final Counter authInitSuccess;
     private final Counter authInitFailure;
     private final Timer processingTime;
+    private final DistributionSummary updatesBatchSize;
+    private final DistributionSummary updatesPerTask;
+    private final Map<UpdateType, Counter> userThrottled = new EnumMap<>(UpdateType.class);
+    private final Map<UpdateType, Counter> chatThrottled = new EnumMap<>(UpdateType.class);
 
     public BotMetrics(MeterRegistry meterRegistry) {
         this.messagesReceived = Counter.builder("telegram.messages.received")
@@ -48,6 +57,14 @@ public class BotMetrics {
                 .description("Message processing time")
                 .register(meterRegistry);
 
+        this.updatesBatchSize = DistributionSummary.builder("telegram.updates.batch.size")
+                .description("Number of updates received in one getUpdates response")
+                .register(meterRegistry);
+
+        this.updatesPerTask = DistributionSummary.builder("telegram.updates.per.task")
+                .description("Average number of updates grouped into one inbound task per batch")
+                .register(meterRegistry);
+
         this.authInitAttempt = Counter.builder("telegram.auth.init.attempt")
                 .description("Number of /auth/init attempts")
                 .register(meterRegistry);
@@ -59,6 +76,19 @@ public class BotMetrics {
         this.authInitFailure = Counter.builder("telegram.auth.init.failure")
                 .description("Number of failed /auth/init")
                 .register(meterRegistry);
+
+        for (UpdateType type : UpdateType.values()) {
+            userThrottled.put(type, throttledCounter(meterRegistry, type, "user"));
+            chatThrottled.put(type, throttledCounter(meterRegistry, type, "chat"));
+        }
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, UpdateType type, String scope) {
+        return Counter.builder("telegram.ratelimit.throttled")
+                .description("Number of updates rejected by the inbound rate limiter")
+                .tag("type", type.name().toLowerCase())
+                .tag("scope", scope)
+                .register(meterRegistry);
     }
 
     public void recordMessage() {
@@ -85,6 +115,21 @@ public class BotMetrics {
         tasksRejected.increment();
     }
 
+    public void recordUserThrottled(UpdateType type) {
+        userThrottled.get(type).increment();
+    }
+
+    public void recordChatThrottled(UpdateType type) {
+        chatThrottled.get(type).increment();
+    }
+
+    public void recordUpdatesBatch(int received, int admitted, int tasks) {
+        updatesBatchSize.record(received);
+        if (tasks > 0) {
+            updatesPerTask.record((double) admitted / tasks);
+        }
+    }
+
     public Timer.Sample startTimer() {
         return Timer.start();
     }
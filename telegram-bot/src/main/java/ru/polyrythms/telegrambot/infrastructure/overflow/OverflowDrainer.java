@@ -0,0 +1,115 @@
+package ru.polyrythms.telegrambot.infrastructure.overflow;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
+import ru.polyrythms.telegrambot.application.port.input.TelegramInboundPort;
+import ru.polyrythms.telegrambot.application.port.output.MessageSender;
+import ru.polyrythms.telegrambot.infrastructure.admission.AdmissionController;
+import ru.polyrythms.telegrambot.infrastructure.task.VoiceMessageTask;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Возвращает обновления из {@link OverflowJournal} в inbound пул,
+ * когда в его очереди появляется свободное место.
+ * <p>
+ * Запись удаляется из журнала только после передачи в пул (или уведомления о просрочке):
+ * если сборка задачи или передача завершились исключением, запись остается первой в журнале
+ * до следующего запуска. Если пул снова заполнен, обработчик отклонения дописывает задачу
+ * в конец журнала, и исходная запись тоже удаляется - дубликата не остается.
+ */
+@Slf4j
+@Component
+public class OverflowDrainer {
+
+    private final OverflowJournal journal;
+    private final ThreadPoolExecutor inboundExecutor;
+    private final TelegramInboundPort inboundPort;
+    private final MessageSender messageSender;
+    private final AdmissionController admissionController;
+    private final long ttlMs;
+
+    private final Counter drainedCounter;
+    private final Counter expiredCounter;
+
+    public OverflowDrainer(
+            OverflowJournal journal,
+            @Qualifier("telegramInboundExecutor") ThreadPoolExecutor inboundExecutor,
+            TelegramInboundPort inboundPort,
+            MessageSender messageSender,
+            AdmissionController admissionController,
+            @Value("${telegram.overflow.ttl-ms:600000}") long ttlMs,
+            MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.inboundExecutor = inboundExecutor;
+        this.inboundPort = inboundPort;
+        this.messageSender = messageSender;
+        this.admissionController = admissionController;
+        this.ttlMs = ttlMs;
+
+        this.drainedCounter = Counter.builder("telegram.overflow.drained")
+                .description("Number of updates returned from the overflow journal to the inbound pool")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("telegram.overflow.expired")
+                .description("Number of updates expired in the overflow journal")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.overflow.drain-interval-ms:200}")
+    public void drain() {
+        if (journal.isEmpty() || inboundExecutor.isShutdown()) {
+            return;
+        }
+        // Пока очередь стоячая, возврат из журнала только увеличит задержку
+        if (!admissionController.admitsDeferred()) {
+            return;
+        }
+
+        int drained = 0;
+        // Оставляем в очереди пула место для новых обновлений из long polling
+        while (inboundExecutor.getQueue().remainingCapacity() > 1) {
+            OverflowJournal.Entry entry = journal.peek();
+            if (entry == null) {
+                break;
+            }
+
+            TelegramUpdateDto update;
+            try {
+                update = entry.toUpdate();
+            } catch (RuntimeException e) {
+                // Поврежденная запись не декодируется и при повторе - иначе она заблокировала бы журнал
+                log.error("Discarding undecodable overflow journal record ({} bytes)", entry.payload().length, e);
+                journal.remove();
+                continue;
+            }
+            VoiceMessageTask task = new VoiceMessageTask(update.getChatId(), List.of(update), inboundPort, messageSender,
+                    admissionController, journal);
+
+            if (System.currentTimeMillis() - entry.enqueuedAt() > ttlMs) {
+                journal.remove();
+                expiredCounter.increment();
+                log.warn("Overflow update for chatId {} expired after {} ms", update.getChatId(),
+                        System.currentTimeMillis() - entry.enqueuedAt());
+                task.sendOverloadNotification();
+                continue;
+            }
+
+            // Не бросает: отклоненную задачу обработчик отклонения дописывает в журнал
+            inboundExecutor.execute(task);
+            journal.remove();
+            drainedCounter.increment();
+            drained++;
+        }
+
+        if (drained > 0) {
+            log.debug("Drained {} updates from overflow journal, {} still pending", drained, journal.getPendingRecords());
+        }
+    }
+}
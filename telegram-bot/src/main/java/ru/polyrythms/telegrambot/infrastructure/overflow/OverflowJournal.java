@@ -0,0 +1,302 @@
+package ru.polyrythms.telegrambot.infrastructure.overflow;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Персистентная очередь переполнения для входящих обновлений.
+ * <p>
+ * Когда очередь inbound пула заполнена, отклоненные обновления не отбрасываются,
+ * а дописываются в журнал из отображенных в память сегментов (append-only).
+ * {@link OverflowDrainer} возвращает их в пул, как только освобождается емкость.
+ * <p>
+ * Ограничения:
+ * - размер сегмента и максимальное количество сегментов (общий объем на диске)
+ * - TTL записи: просроченные записи не выполняются, пользователь получает уведомление
+ */
+@Slf4j
+@Component
+public class OverflowJournal {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final Deque<OverflowSegment> segments = new ArrayDeque<>();
+    private long nextSequence;
+    private long pendingRecords;
+    private long pendingBytes;
+
+    private final Counter spilledCounter;
+    private final Counter droppedCounter;
+
+    public OverflowJournal(
+            @Value("${telegram.overflow.enabled:true}") boolean enabled,
+            @Value("${telegram.overflow.directory:${java.io.tmpdir}/telegram-bot-overflow}") String directory,
+            @Value("${telegram.overflow.segment-size-bytes:4194304}") int segmentSize,
+            @Value("${telegram.overflow.max-segments:16}") int maxSegments,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+
+        this.spilledCounter = Counter.builder("telegram.overflow.spilled")
+                .description("Number of rejected updates spilled to the overflow journal")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("telegram.overflow.dropped")
+                .description("Number of updates dropped because the overflow journal is full")
+                .register(meterRegistry);
+        Gauge.builder("telegram.overflow.pending", this, OverflowJournal::getPendingRecords)
+                .description("Number of updates waiting in the overflow journal")
+                .register(meterRegistry);
+        Gauge.builder("telegram.overflow.pending.bytes", this, OverflowJournal::getPendingBytes)
+                .description("Bytes occupied by pending updates in the overflow journal")
+                .register(meterRegistry);
+        Gauge.builder("telegram.overflow.segments", this, OverflowJournal::getSegmentCount)
+                .description("Number of mapped overflow journal segments")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void init() throws IOException {
+        if (!enabled) {
+            log.info("Overflow journal is disabled");
+            return;
+        }
+
+        Files.createDirectories(directory);
+        recoverSegments();
+
+        log.info("Overflow journal initialized in {}: segment size {} bytes, max segments {}, recovered {} pending updates",
+                directory, segmentSize, maxSegments, pendingRecords);
+    }
+
+    private void recoverSegments() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                    .filter(p -> parseSequence(p) >= 0)
+                    .sorted(Comparator.comparingLong(OverflowJournal::parseSequence))
+                    .toList();
+        }
+
+        for (Path file : files) {
+            long sequence = parseSequence(file);
+            OverflowSegment segment = OverflowSegment.open(file, sequence);
+            if (segment == null) {
+                log.warn("Discarding corrupted overflow segment: {}", file);
+                Files.deleteIfExists(file);
+                continue;
+            }
+            // countUnread обрезает сегмент по поврежденной записи - до подсчета занятого объема
+            int unread = segment.countUnread();
+            if (unread == 0) {
+                segment.delete();
+                continue;
+            }
+            segments.addLast(segment);
+            pendingRecords += unread;
+            pendingBytes += segment.usedBytes();
+            nextSequence = sequence + 1;
+        }
+    }
+
+    /**
+     * Дописывает обновление в журнал.
+     *
+     * @return false, если журнал выключен или достигнут лимит по объему
+     */
+    public synchronized boolean append(TelegramUpdateDto update) {
+        if (!enabled) {
+            return false;
+        }
+
+        byte[] payload = TelegramUpdateCodec.encode(update);
+        if (OverflowSegment.HEADER_SIZE + OverflowSegment.RECORD_HEADER_SIZE + payload.length > segmentSize) {
+            log.warn("Update for chatId {} is too large for overflow journal: {} bytes", update.getChatId(), payload.length);
+            droppedCounter.increment();
+            return false;
+        }
+
+        try {
+            OverflowSegment tail = segments.peekLast();
+            if (tail == null || !tail.hasRoomFor(payload.length)) {
+                if (segments.size() >= maxSegments) {
+                    droppedCounter.increment();
+                    return false;
+                }
+                tail = OverflowSegment.create(segmentPath(nextSequence), nextSequence, segmentSize);
+                nextSequence++;
+                segments.addLast(tail);
+            }
+
+            tail.append(payload, System.currentTimeMillis());
+            pendingRecords++;
+            pendingBytes += OverflowSegment.RECORD_HEADER_SIZE + payload.length;
+            spilledCounter.increment();
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to append update to overflow journal", e);
+            droppedCounter.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает самую старую запись журнала, не удаляя ее: запись удаляется через {@link #remove()}
+     * только после того, как ее обработка принята, поэтому сбой между чтением и передачей в пул
+     * не теряет обновление. Журнал читает один поток ({@link OverflowDrainer}).
+     *
+     * @return запись или null, если журнал пуст
+     */
+    public synchronized Entry peek() {
+        OverflowSegment head;
+        while ((head = readableHead()) != null) {
+            Entry entry = head.peek();
+            if (entry != null) {
+                return entry;
+            }
+            onTruncated(head);
+        }
+        return null;
+    }
+
+    /**
+     * Удаляет самую старую запись журнала - ту, что вернул предыдущий {@link #peek()}.
+     */
+    public synchronized void remove() {
+        OverflowSegment head = readableHead();
+        if (head == null) {
+            return;
+        }
+        int length = head.skip();
+        if (length < 0) {
+            onTruncated(head);
+            return;
+        }
+        pendingRecords--;
+        pendingBytes -= OverflowSegment.RECORD_HEADER_SIZE + length;
+        if (!head.hasUnread()) {
+            releaseSegment(head);
+        }
+    }
+
+    /**
+     * Сегмент обрезан по поврежденной записи - счетчики пересчитываются по оставшимся записям.
+     */
+    private void onTruncated(OverflowSegment segment) {
+        log.warn("Overflow segment {} is corrupted, discarding its remaining records", segment.getSequence());
+        droppedCounter.increment();
+        pendingRecords = 0;
+        pendingBytes = 0;
+        for (OverflowSegment s : segments) {
+            pendingRecords += s.countUnread();
+            pendingBytes += s.usedBytes();
+        }
+    }
+
+    /**
+     * Первый сегмент с непрочитанными записями; полностью прочитанные сегменты перед ним освобождаются.
+     */
+    private OverflowSegment readableHead() {
+        while (!segments.isEmpty()) {
+            OverflowSegment head = segments.peekFirst();
+            if (head.hasUnread()) {
+                return head;
+            }
+            if (segments.size() == 1) {
+                return null;
+            }
+            releaseSegment(head);
+        }
+        return null;
+    }
+
+    private void releaseSegment(OverflowSegment segment) {
+        if (segments.size() == 1) {
+            // Последний сегмент не удаляем, а переиспользуем
+            segment.reset();
+            return;
+        }
+        segments.pollFirst();
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            log.warn("Failed to delete overflow segment {}, it will be deleted on restart", segment.getSequence(), e);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+
+    public synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (OverflowSegment segment : new ArrayList<>(segments)) {
+            segment.force();
+        }
+        if (pendingRecords > 0) {
+            log.info("Overflow journal closed with {} pending updates, they will be replayed on restart", pendingRecords);
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static long parseSequence(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Запись журнала: сериализованное обновление и время попадания в журнал.
+     */
+    public record Entry(byte[] payload, long enqueuedAt) {
+
+        public TelegramUpdateDto toUpdate() {
+            return TelegramUpdateCodec.decode(payload);
+        }
+    }
+}
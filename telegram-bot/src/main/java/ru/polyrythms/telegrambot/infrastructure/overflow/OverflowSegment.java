@@ -0,0 +1,202 @@
+package ru.polyrythms.telegrambot.infrastructure.overflow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Сегмент журнала переполнения: файл фиксированного размера, отображенный в память.
+ * <p>
+ * Формат сегмента:
+ * <pre>
+ * [int magic][int readPosition][int writePosition][int reserved]
+ * [int length][long enqueuedAt][byte[length] payload] ...
+ * </pre>
+ * Позиции чтения и записи хранятся в заголовке, поэтому после рестарта
+ * непрочитанные записи восстанавливаются без сканирования. Запись с недопустимой длиной
+ * (поврежденный файл) обрезает сегмент: она и все записи после нее отбрасываются.
+ * Класс не потокобезопасен - синхронизация выполняется в {@link OverflowJournal}.
+ */
+class OverflowSegment {
+
+    static final int MAGIC = 0x4F56464C; // "OVFL"
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private static final int READ_POSITION_OFFSET = 4;
+    private static final int WRITE_POSITION_OFFSET = 8;
+
+    private final long sequence;
+    private final Path path;
+    private MappedByteBuffer buffer;
+    private int readPosition;
+    private int writePosition;
+
+    private OverflowSegment(long sequence, Path path, MappedByteBuffer buffer, int readPosition, int writePosition) {
+        this.sequence = sequence;
+        this.path = path;
+        this.buffer = buffer;
+        this.readPosition = readPosition;
+        this.writePosition = writePosition;
+    }
+
+    static OverflowSegment create(Path path, long sequence, int size) throws IOException {
+        MappedByteBuffer buffer = map(path, size, true);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(READ_POSITION_OFFSET, HEADER_SIZE);
+        buffer.putInt(WRITE_POSITION_OFFSET, HEADER_SIZE);
+        return new OverflowSegment(sequence, path, buffer, HEADER_SIZE, HEADER_SIZE);
+    }
+
+    /**
+     * Открывает существующий сегмент. Возвращает null, если файл поврежден
+     * (заголовок проверяется до отображения - поврежденный файл не отображается в память).
+     */
+    static OverflowSegment open(Path path, long sequence) throws IOException {
+        long size = Files.size(path);
+        if (size <= HEADER_SIZE || size > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // читаем заголовок целиком
+            }
+        }
+        int readPosition = header.getInt(READ_POSITION_OFFSET);
+        int writePosition = header.getInt(WRITE_POSITION_OFFSET);
+        if (header.hasRemaining()
+                || header.getInt(0) != MAGIC
+                || readPosition < HEADER_SIZE
+                || writePosition < readPosition
+                || writePosition > size) {
+            return null;
+        }
+        return new OverflowSegment(sequence, path, map(path, (int) size, false), readPosition, writePosition);
+    }
+
+    private static MappedByteBuffer map(Path path, int size, boolean create) throws IOException {
+        StandardOpenOption[] options = create
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    boolean hasRoomFor(int payloadLength) {
+        return buffer.capacity() - writePosition >= RECORD_HEADER_SIZE + payloadLength;
+    }
+
+    void append(byte[] payload, long enqueuedAt) {
+        buffer.putInt(writePosition, payload.length);
+        buffer.putLong(writePosition + Integer.BYTES, enqueuedAt);
+        buffer.put(writePosition + RECORD_HEADER_SIZE, payload);
+        writePosition += RECORD_HEADER_SIZE + payload.length;
+        buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+    }
+
+    boolean hasUnread() {
+        return readPosition < writePosition;
+    }
+
+    /**
+     * Читает первую непрочитанную запись, не сдвигая позицию чтения.
+     *
+     * @return запись или null, если непрочитанных записей нет или первая из них повреждена (сегмент обрезан)
+     */
+    OverflowJournal.Entry peek() {
+        if (!hasUnread() || !isValidRecord(readPosition)) {
+            return null;
+        }
+        int length = buffer.getInt(readPosition);
+        long enqueuedAt = buffer.getLong(readPosition + Integer.BYTES);
+        byte[] payload = new byte[length];
+        buffer.get(readPosition + RECORD_HEADER_SIZE, payload);
+        return new OverflowJournal.Entry(payload, enqueuedAt);
+    }
+
+    /**
+     * Пропускает первую непрочитанную запись.
+     *
+     * @return длина payload пропущенной записи или -1, если запись повреждена (сегмент обрезан)
+     */
+    int skip() {
+        if (!hasUnread() || !isValidRecord(readPosition)) {
+            return -1;
+        }
+        int length = buffer.getInt(readPosition);
+        readPosition += RECORD_HEADER_SIZE + length;
+        buffer.putInt(READ_POSITION_OFFSET, readPosition);
+        return length;
+    }
+
+    /**
+     * Количество непрочитанных записей (сканирует заголовки записей, используется при восстановлении).
+     * Сегмент обрезается по первой поврежденной записи.
+     */
+    int countUnread() {
+        int count = 0;
+        int position = readPosition;
+        while (position < writePosition && isValidRecord(position)) {
+            position += RECORD_HEADER_SIZE + buffer.getInt(position);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Проверяет, что запись на позиции целиком лежит до позиции записи. Если нет, сегмент
+     * обрезается по этой позиции: длины следующих записей все равно нельзя прочитать надежно.
+     */
+    private boolean isValidRecord(int position) {
+        int available = writePosition - position - RECORD_HEADER_SIZE;
+        if (available >= 0) {
+            int length = buffer.getInt(position);
+            if (length > 0 && length <= available) {
+                return true;
+            }
+        }
+        writePosition = position;
+        buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+        return false;
+    }
+
+    /**
+     * Сбрасывает полностью прочитанный сегмент для повторного использования.
+     */
+    void reset() {
+        readPosition = HEADER_SIZE;
+        writePosition = HEADER_SIZE;
+        buffer.putInt(READ_POSITION_OFFSET, readPosition);
+        buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+    }
+
+    int usedBytes() {
+        return writePosition - readPosition;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Удаляет файл сегмента. Отображение освобождается только сборщиком мусора, поэтому
+     * сначала сбрасывается ссылка на буфер (канал закрыт сразу после отображения). Если ОС
+     * не дает удалить еще отображенный файл, сегмент остается полностью прочитанным
+     * и удаляется при следующем запуске.
+     */
+    void delete() throws IOException {
+        buffer = null;
+        Files.deleteIfExists(path);
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+}
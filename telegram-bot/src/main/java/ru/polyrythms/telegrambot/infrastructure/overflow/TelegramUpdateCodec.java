@@ -0,0 +1,134 @@
+package ru.polyrythms.telegrambot.infrastructure.overflow;
+
+import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Компактная бинарная сериализация {@link TelegramUpdateDto} для журнала переполнения.
+ * Первый байт - версия формата, при изменении DTO версия увеличивается.
+ * Записи предыдущей версии (без полей callback_query) по-прежнему читаются.
+ */
+final class TelegramUpdateCodec {
+
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_CALLBACK = 1;
+
+    private TelegramUpdateCodec() {
+    }
+
+    static byte[] encode(TelegramUpdateDto update) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeLong(out, update.getChatId());
+            writeLong(out, update.getUserId());
+            writeString(out, update.getUsername());
+            writeString(out, update.getFirstName());
+            writeString(out, update.getLastName());
+            out.writeBoolean(update.isGroupChat());
+            writeLong(out, update.getGroupChatId());
+
+            writeString(out, update.getText());
+            out.writeBoolean(update.isHasText());
+            out.writeBoolean(update.isCommand());
+            writeString(out, update.getCommandName());
+            String[] args = update.getCommandArgs();
+            out.writeInt(args == null ? -1 : args.length);
+            if (args != null) {
+                for (String arg : args) {
+                    writeString(out, arg);
+                }
+            }
+
+            writeString(out, update.getFileId());
+            writeString(out, update.getFileUniqueId());
+            out.writeInt(update.getDuration() == null ? -1 : update.getDuration());
+            out.writeBoolean(update.isHasVoice());
+
+            writeString(out, update.getCallbackQueryId());
+            writeString(out, update.getCallbackData());
+            out.writeInt(update.getCallbackMessageId() == null ? -1 : update.getCallbackMessageId());
+            out.writeBoolean(update.isHasCallback());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static TelegramUpdateDto decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version != VERSION && version != VERSION_WITHOUT_CALLBACK) {
+                throw new IllegalStateException("Unsupported overflow record version: " + version);
+            }
+
+            TelegramUpdateDto.TelegramUpdateDtoBuilder builder = TelegramUpdateDto.builder()
+                    .chatId(readLong(in))
+                    .userId(readLong(in))
+                    .username(readString(in))
+                    .firstName(readString(in))
+                    .lastName(readString(in))
+                    .isGroupChat(in.readBoolean())
+                    .groupChatId(readLong(in))
+                    .text(readString(in))
+                    .hasText(in.readBoolean())
+                    .isCommand(in.readBoolean())
+                    .commandName(readString(in));
+
+            int argsLength = in.readInt();
+            if (argsLength >= 0) {
+                String[] args = new String[argsLength];
+                for (int i = 0; i < argsLength; i++) {
+                    args[i] = readString(in);
+                }
+                builder.commandArgs(args);
+            }
+
+            builder.fileId(readString(in))
+                    .fileUniqueId(readString(in));
+            int duration = in.readInt();
+            builder.duration(duration < 0 ? null : duration)
+                    .hasVoice(in.readBoolean());
+
+            if (version >= VERSION) {
+                builder.callbackQueryId(readString(in))
+                        .callbackData(readString(in));
+                int callbackMessageId = in.readInt();
+                builder.callbackMessageId(callbackMessageId < 0 ? null : callbackMessageId)
+                        .hasCallback(in.readBoolean());
+            }
+
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
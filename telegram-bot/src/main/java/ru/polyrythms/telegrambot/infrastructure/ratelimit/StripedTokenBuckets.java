@@ -0,0 +1,214 @@
+package ru.polyrythms.telegrambot.infrastructure.ratelimit;
+
+import java.util.Arrays;
+
+/**
+ * Набор token bucket'ов, индексированных ключом long (userId или chatId).
+ * <p>
+ * Таблица разбита на сегменты (stripes) со своей блокировкой. Внутри сегмента -
+ * открытая адресация с линейным пробированием по примитивным массивам,
+ * поэтому проверка лимита не создает объектов.
+ * <p>
+ * Время передается снаружи в наносекундах ({@link System#nanoTime()}).
+ */
+final class StripedTokenBuckets {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * @param capacity        максимальное количество токенов (размер всплеска)
+     * @param tokensPerMinute скорость пополнения
+     * @param stripes         количество сегментов, степень двойки
+     */
+    StripedTokenBuckets(int capacity, int tokensPerMinute, int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripes must be a power of two: " + stripes);
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerMinute / 60_000_000_000.0;
+        this.stripes = new Stripe[stripes];
+        this.stripeMask = stripes - 1;
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Пытается взять один токен из bucket'а ключа.
+     */
+    boolean tryAcquire(long key, long nowNanos) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        synchronized (stripe) {
+            return stripe.tryAcquire(key, (int) hash, nowNanos);
+        }
+    }
+
+    /**
+     * Возвращает токен, взятый {@link #tryAcquire}, если запрос все же не был выполнен.
+     * Bucket'у, удаленному за это время, возвращать нечего - он и так полный.
+     */
+    void refund(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        synchronized (stripe) {
+            stripe.refund(key, (int) hash);
+        }
+    }
+
+    /**
+     * Удаляет bucket'ы, которые не использовались дольше idleNanos и успели
+     * полностью пополниться - их удаление не меняет поведение лимитера.
+     *
+     * @return количество удаленных bucket'ов
+     */
+    int evictIdle(long nowNanos, long idleNanos) {
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                evicted += stripe.evictIdle(nowNanos, idleNanos);
+            }
+        }
+        return evicted;
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private final class Stripe {
+
+        private long[] keys;
+        private double[] tokens;
+        private long[] lastRefill;
+        private int size;
+
+        Stripe() {
+            allocate(INITIAL_STRIPE_CAPACITY);
+        }
+
+        private void allocate(int tableSize) {
+            keys = new long[tableSize];
+            tokens = new double[tableSize];
+            lastRefill = new long[tableSize];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        boolean tryAcquire(long key, int hash, long now) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            if (keys[slot] == EMPTY) {
+                if ((size + 1) * 2 > keys.length) {
+                    resize(keys.length * 2);
+                    return tryAcquire(key, hash, now);
+                }
+                keys[slot] = key;
+                tokens[slot] = capacity - 1;
+                lastRefill[slot] = now;
+                size++;
+                return true;
+            }
+
+            double available = Math.min(capacity, tokens[slot] + (now - lastRefill[slot]) * tokensPerNano);
+            lastRefill[slot] = now;
+            if (available >= 1) {
+                tokens[slot] = available - 1;
+                return true;
+            }
+            tokens[slot] = available;
+            return false;
+        }
+
+        void refund(long key, int hash) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    tokens[slot] = Math.min(capacity, tokens[slot] + 1);
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        int evictIdle(long now, long idleNanos) {
+            int before = size;
+            long[] oldKeys = keys;
+            double[] oldTokens = tokens;
+            long[] oldLastRefill = lastRefill;
+
+            int alive = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY && !isIdle(oldTokens[i], oldLastRefill[i], now, idleNanos)) {
+                    alive++;
+                }
+            }
+            if (alive == before) {
+                return 0;
+            }
+
+            int tableSize = INITIAL_STRIPE_CAPACITY;
+            while (alive * 2 > tableSize) {
+                tableSize *= 2;
+            }
+            allocate(tableSize);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY && !isIdle(oldTokens[i], oldLastRefill[i], now, idleNanos)) {
+                    insert(oldKeys[i], oldTokens[i], oldLastRefill[i]);
+                }
+            }
+            return before - size;
+        }
+
+        private boolean isIdle(double bucketTokens, long bucketLastRefill, long now, long idleNanos) {
+            long idle = now - bucketLastRefill;
+            return idle > idleNanos && bucketTokens + idle * tokensPerNano >= capacity;
+        }
+
+        private void resize(int tableSize) {
+            long[] oldKeys = keys;
+            double[] oldTokens = tokens;
+            long[] oldLastRefill = lastRefill;
+            allocate(tableSize);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    insert(oldKeys[i], oldTokens[i], oldLastRefill[i]);
+                }
+            }
+        }
+
+        private void insert(long key, double bucketTokens, long bucketLastRefill) {
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            tokens[slot] = bucketTokens;
+            lastRefill[slot] = bucketLastRefill;
+            size++;
+        }
+    }
+}
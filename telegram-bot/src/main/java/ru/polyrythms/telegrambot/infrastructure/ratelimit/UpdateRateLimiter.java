@@ -0,0 +1,125 @@
+package ru.polyrythms.telegrambot.infrastructure.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
+import ru.polyrythms.telegrambot.infrastructure.metrics.BotMetrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты входящих обновлений по пользователю и по чату.
+ * <p>
+ * Для каждого типа обновления ({@link UpdateType}) заводятся два набора token bucket'ов:
+ * по userId и по chatId (только для групп - в личном чате chatId совпадает с userId).
+ * Лимиты задаются в application.yml:
+ * <pre>
+ * telegram.rate-limit.&lt;voice|command|text&gt;.user-capacity / user-per-minute
+ * telegram.rate-limit.&lt;voice|command|text&gt;.chat-capacity / chat-per-minute
+ * </pre>
+ * Проверка выполняется до постановки задачи в inbound пул. Обновление, отклоненное лимитом чата,
+ * возвращает токен пользователя и не расходует его лимит. Отклонения считаются в {@link BotMetrics}.
+ */
+@Slf4j
+@Component
+public class UpdateRateLimiter {
+
+    private static final String PREFIX = "telegram.rate-limit.";
+
+    private final boolean enabled;
+    private final long idleNanos;
+
+    private final Map<UpdateType, StripedTokenBuckets> userBuckets = new EnumMap<>(UpdateType.class);
+    private final Map<UpdateType, StripedTokenBuckets> chatBuckets = new EnumMap<>(UpdateType.class);
+    private final BotMetrics botMetrics;
+
+    public UpdateRateLimiter(
+            @Value("${telegram.rate-limit.enabled:true}") boolean enabled,
+            @Value("${telegram.rate-limit.stripes:16}") int stripes,
+            @Value("${telegram.rate-limit.idle-eviction-ms:600000}") long idleEvictionMs,
+            Environment environment,
+            BotMetrics botMetrics,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.botMetrics = botMetrics;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+
+        for (UpdateType type : UpdateType.values()) {
+            String typePrefix = PREFIX + type.propertyName() + ".";
+            int userCapacity = environment.getProperty(typePrefix + "user-capacity", Integer.class, 10);
+            int userPerMinute = environment.getProperty(typePrefix + "user-per-minute", Integer.class, 30);
+            int chatCapacity = environment.getProperty(typePrefix + "chat-capacity", Integer.class, 30);
+            int chatPerMinute = environment.getProperty(typePrefix + "chat-per-minute", Integer.class, 60);
+
+            userBuckets.put(type, new StripedTokenBuckets(userCapacity, userPerMinute, stripes));
+            chatBuckets.put(type, new StripedTokenBuckets(chatCapacity, chatPerMinute, stripes));
+
+            log.info("Rate limit for {}: user {} burst / {} per min, chat {} burst / {} per min",
+                    type, userCapacity, userPerMinute, chatCapacity, chatPerMinute);
+        }
+
+        Gauge.builder("telegram.ratelimit.buckets", this, UpdateRateLimiter::bucketCount)
+                .description("Number of active rate limit buckets")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true, если обновление укладывается в лимиты
+     */
+    public boolean tryAcquire(TelegramUpdateDto update) {
+        if (!enabled) {
+            return true;
+        }
+
+        UpdateType type = UpdateType.of(update);
+        long now = System.nanoTime();
+        StripedTokenBuckets users = userBuckets.get(type);
+        StripedTokenBuckets chats = chatBuckets.get(type);
+        boolean checkUser = update.getUserId() != null;
+        boolean checkChat = update.isGroupChat();
+
+        if (checkUser && !users.tryAcquire(update.getUserId(), now)) {
+            botMetrics.recordUserThrottled(type);
+            log.debug("Update {} from userId {} throttled by user limit", type, update.getUserId());
+            return false;
+        }
+        if (checkChat && !chats.tryAcquire(update.getChatId(), now)) {
+            // Отклонено лимитом чата - токен пользователя возвращается
+            if (checkUser) {
+                users.refund(update.getUserId());
+            }
+            botMetrics.recordChatThrottled(type);
+            log.debug("Update {} in chatId {} throttled by chat limit", type, update.getChatId());
+            return false;
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (UpdateType type : UpdateType.values()) {
+            evicted += userBuckets.get(type).evictIdle(now, idleNanos);
+            evicted += chatBuckets.get(type).evictIdle(now, idleNanos);
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    private int bucketCount() {
+        int count = 0;
+        for (UpdateType type : UpdateType.values()) {
+            count += userBuckets.get(type).size() + chatBuckets.get(type).size();
+        }
+        return count;
+    }
+}
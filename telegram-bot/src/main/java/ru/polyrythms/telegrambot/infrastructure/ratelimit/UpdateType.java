@@ -0,0 +1,27 @@
+package ru.polyrythms.telegrambot.infrastructure.ratelimit;
+
+import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
+
+/**
+ * Тип обновления для выбора лимита.
+ */
+public enum UpdateType {
+    VOICE,
+    COMMAND,
+    TEXT;
+
+    public static UpdateType of(TelegramUpdateDto update) {
+        if (update.isHasVoice()) {
+            return VOICE;
+        }
+        // Нажатия inline-кнопок расходуют лимит команд
+        if (update.isCommand() || update.isHasCallback()) {
+            return COMMAND;
+        }
+        return TEXT;
+    }
+
+    String propertyName() {
+        return name().toLowerCase();
+    }
+}
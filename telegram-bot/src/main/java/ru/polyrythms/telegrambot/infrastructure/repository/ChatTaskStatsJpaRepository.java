@@ -0,0 +1,7 @@
+package ru.polyrythms.telegrambot.infrastructure.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.polyrythms.telegrambot.infrastructure.entity.ChatTaskStatsEntity;
+
+public interface ChatTaskStatsJpaRepository extends JpaRepository<ChatTaskStatsEntity, Long> {
+}
@@ -11,16 +11,13 @@ import java.util.Optional;
 @Repository
 public interface TelegramGroupJpaRepository extends JpaRepository<TelegramGroupEntity, Long> {
 
-    Optional<TelegramGroupEntity> findByChatId(Long chatId);
-
-    List<TelegramGroupEntity> findByIsActiveTrue();
-
-    List<TelegramGroupEntity> findByAddedBy(Long addedBy);
+    String WITH_USERNAME_SELECT = "SELECT new ru.polyrythms.telegrambot.infrastructure.repository.TelegramGroupWithUsername("
+            + "g.id, g.chatId, g.title, g.isActive, g.addedBy, g.createdAt, g.updatedAt, a.username) "
+            + "FROM TelegramGroupEntity g LEFT JOIN AdminUserEntity a ON a.userId = g.addedBy";
 
-    boolean existsByChatId(Long chatId);
+    // Группы вместе с username администратора - один запрос вместо 1+N
+    @Query(WITH_USERNAME_SELECT)
+    List<TelegramGroupWithUsername> findAllWithUsername();
 
-    long countByIsActiveTrue();
-
-    @Query("SELECT COUNT(g) FROM TelegramGroupEntity g WHERE g.addedBy = :userId")
-    long countByAddedBy(Long userId);
+    Optional<TelegramGroupEntity> findByChatId(Long chatId);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package ru.polyrythms.telegrambot.infrastructure.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция группы вместе с username добавившего ее администратора (LEFT JOIN admin_users).
+ */
+public record TelegramGroupWithUsername(
+        Long id,
+        Long chatId,
+        String title,
+        Boolean isActive,
+        Long addedBy,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        String addedByUsername) {
+}
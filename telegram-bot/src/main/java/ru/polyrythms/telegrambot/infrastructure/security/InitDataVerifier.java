@@ -0,0 +1,299 @@
+package ru.polyrythms.telegrambot.infrastructure.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Проверка подписи initData Telegram Mini App.
+ * <p>
+ * secret_key = HMAC-SHA256(key = "WebAppData", message = bot_token),
+ * hash = hex(HMAC-SHA256(key = secret_key, message = data_check_string)),
+ * где data_check_string - все поля, кроме hash, отсортированные по ключу, в виде key=value через '\n'
+ * (значения URL-декодированы). Строка с повторяющимся ключом отклоняется: Telegram таких не присылает,
+ * а при повторе подписанным и прочитанным могли бы оказаться разные копии поля.
+ * <p>
+ * Ключ вычисляется один раз при создании. Mac и буферы переиспользуются в пределах потока:
+ * разбор строки выполняется за один проход по индексам без split, Map и промежуточных строк,
+ * data_check_string собирается сразу в байтах, хэши сравниваются как байты за постоянное время.
+ */
+@Component
+public class InitDataVerifier {
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final byte[] WEB_APP_DATA = "WebAppData".getBytes(StandardCharsets.UTF_8);
+    private static final int HASH_BYTES = 32;
+    private static final String HASH_KEY = "hash";
+
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<Scratch> scratch;
+
+    public InitDataVerifier(@Value("${telegram.bot.token}") String botToken) {
+        this.secretKey = new SecretKeySpec(hmacSha256(WEB_APP_DATA, botToken.getBytes(StandardCharsets.UTF_8)), HMAC_SHA256);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(secretKey));
+    }
+
+    /**
+     * @return true, если hash в initData совпадает с подписью остальных полей
+     */
+    public boolean verify(String initData) {
+        if (initData == null || initData.isEmpty()) {
+            return false;
+        }
+        Scratch s = scratch.get();
+        try {
+            return s.verify(initData);
+        } catch (IllegalArgumentException e) {
+            // Некорректная %-последовательность
+            return false;
+        }
+    }
+
+    /**
+     * Проверяет подпись и возвращает поля initData (URL-декодированные, без hash).
+     * Вызывающий код должен брать данные только отсюда, а не разбирать исходную строку повторно.
+     *
+     * @return поля в порядке следования или пустой Optional, если подпись неверна
+     */
+    public Optional<Map<String, String>> verifyAndParse(String initData) {
+        if (!verify(initData)) {
+            return Optional.empty();
+        }
+        return Optional.of(scratch.get().fields(initData));
+    }
+
+    private static byte[] hmacSha256(byte[] key, byte[] message) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(key, HMAC_SHA256));
+            return mac.doFinal(message);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Состояние одного потока. Границы пар хранятся в массивах индексов исходной строки:
+     * [keyStart, keyEnd, valueStart, valueEnd] для каждой пары.
+     */
+    private static final class Scratch {
+        private final Mac mac;
+        private final byte[] expected = new byte[HASH_BYTES];
+        private final byte[] computed = new byte[HASH_BYTES];
+        private int[] bounds = new int[16 * 4];
+        private int[] order = new int[16];
+        private byte[] buffer = new byte[1024];
+
+        Scratch(SecretKeySpec secretKey) {
+            try {
+                mac = Mac.getInstance(HMAC_SHA256);
+                mac.init(secretKey);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        }
+
+        boolean verify(String data) {
+            int pairs = parse(data);
+
+            // Сортировка вставками по ключу: пар немного
+            for (int i = 1; i < pairs; i++) {
+                int current = order[i];
+                int j = i - 1;
+                while (j >= 0 && compareKeys(data, order[j], current) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = current;
+            }
+
+            int hashPair = -1;
+            int length = 0;
+            boolean first = true;
+            for (int i = 0; i < pairs; i++) {
+                int pair = order[i];
+                if (i + 1 < pairs && compareKeys(data, pair, order[i + 1]) == 0) {
+                    return false;
+                }
+                if (isKey(data, pair, HASH_KEY)) {
+                    hashPair = pair;
+                    continue;
+                }
+                if (!first) {
+                    length = put(length, (byte) '\n');
+                }
+                first = false;
+                length = appendDecoded(data, bounds[pair * 4], bounds[pair * 4 + 1], length);
+                length = put(length, (byte) '=');
+                length = appendDecoded(data, bounds[pair * 4 + 2], bounds[pair * 4 + 3], length);
+            }
+
+            if (hashPair < 0 || !decodeHex(data, bounds[hashPair * 4 + 2], bounds[hashPair * 4 + 3])) {
+                return false;
+            }
+
+            mac.update(buffer, 0, length);
+            try {
+                mac.doFinal(computed, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            return MessageDigest.isEqual(expected, computed);
+        }
+
+        /**
+         * Поля уже проверенной строки; буфер свободен после вычисления подписи.
+         */
+        Map<String, String> fields(String data) {
+            int pairs = parse(data);
+            Map<String, String> fields = new LinkedHashMap<>(pairs * 2);
+            for (int pair = 0; pair < pairs; pair++) {
+                if (isKey(data, pair, HASH_KEY)) {
+                    continue;
+                }
+                int keyLength = appendDecoded(data, bounds[pair * 4], bounds[pair * 4 + 1], 0);
+                int length = appendDecoded(data, bounds[pair * 4 + 2], bounds[pair * 4 + 3], keyLength);
+                fields.put(new String(buffer, 0, keyLength, StandardCharsets.UTF_8),
+                        new String(buffer, keyLength, length - keyLength, StandardCharsets.UTF_8));
+            }
+            return fields;
+        }
+
+        /**
+         * Один проход по строке: пары без '=' или с пустым ключом пропускаются.
+         *
+         * @return количество пар
+         */
+        private int parse(String data) {
+            int pairs = 0;
+            int start = 0;
+            int length = data.length();
+            while (start <= length) {
+                int end = data.indexOf('&', start);
+                if (end < 0) {
+                    end = length;
+                }
+                int eq = data.indexOf('=', start);
+                if (eq > start && eq < end) {
+                    if (pairs == order.length) {
+                        order = Arrays.copyOf(order, pairs * 2);
+                        bounds = Arrays.copyOf(bounds, pairs * 8);
+                    }
+                    int base = pairs * 4;
+                    bounds[base] = start;
+                    bounds[base + 1] = eq;
+                    bounds[base + 2] = eq + 1;
+                    bounds[base + 3] = end;
+                    order[pairs] = pairs;
+                    pairs++;
+                }
+                start = end + 1;
+            }
+            return pairs;
+        }
+
+        private int compareKeys(String data, int left, int right) {
+            int leftStart = bounds[left * 4];
+            int leftLength = bounds[left * 4 + 1] - leftStart;
+            int rightStart = bounds[right * 4];
+            int rightLength = bounds[right * 4 + 1] - rightStart;
+            int min = Math.min(leftLength, rightLength);
+            for (int i = 0; i < min; i++) {
+                int diff = data.charAt(leftStart + i) - data.charAt(rightStart + i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return leftLength - rightLength;
+        }
+
+        private boolean isKey(String data, int pair, String key) {
+            int start = bounds[pair * 4];
+            return bounds[pair * 4 + 1] - start == key.length() && data.startsWith(key, start);
+        }
+
+        /**
+         * URL-декодирование (как {@link java.net.URLDecoder}: '+' - пробел, %XX - байт)
+         * сразу в UTF-8 байты буфера.
+         */
+        private int appendDecoded(String data, int from, int to, int length) {
+            int i = from;
+            while (i < to) {
+                char c = data.charAt(i);
+                if (c == '%') {
+                    if (i + 2 >= to) {
+                        throw new IllegalArgumentException("Incomplete escape sequence");
+                    }
+                    int high = Character.digit(data.charAt(i + 1), 16);
+                    int low = Character.digit(data.charAt(i + 2), 16);
+                    if (high < 0 || low < 0) {
+                        throw new IllegalArgumentException("Illegal hex characters in escape sequence");
+                    }
+                    length = put(length, (byte) (high << 4 | low));
+                    i += 3;
+                } else if (c == '+') {
+                    length = put(length, (byte) ' ');
+                    i++;
+                } else if (c < 0x80) {
+                    length = put(length, (byte) c);
+                    i++;
+                } else {
+                    int codePoint = data.codePointAt(i);
+                    length = putUtf8(length, codePoint);
+                    i += Character.charCount(codePoint);
+                }
+            }
+            return length;
+        }
+
+        private int putUtf8(int length, int codePoint) {
+            if (codePoint < 0x800) {
+                length = put(length, (byte) (0xC0 | codePoint >> 6));
+            } else if (codePoint < 0x10000) {
+                length = put(length, (byte) (0xE0 | codePoint >> 12));
+                length = put(length, (byte) (0x80 | codePoint >> 6 & 0x3F));
+            } else {
+                length = put(length, (byte) (0xF0 | codePoint >> 18));
+                length = put(length, (byte) (0x80 | codePoint >> 12 & 0x3F));
+                length = put(length, (byte) (0x80 | codePoint >> 6 & 0x3F));
+            }
+            return put(length, (byte) (0x80 | codePoint & 0x3F));
+        }
+
+        private int put(int length, byte b) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[length] = b;
+            return length + 1;
+        }
+
+        /**
+         * Разбирает hex значение hash в expected; false, если это не 64 hex символа
+         */
+        private boolean decodeHex(String data, int from, int to) {
+            if (to - from != HASH_BYTES * 2) {
+                return false;
+            }
+            for (int i = 0; i < HASH_BYTES; i++) {
+                int high = Character.digit(data.charAt(from + i * 2), 16);
+                int low = Character.digit(data.charAt(from + i * 2 + 1), 16);
+                if (high < 0 || low < 0) {
+                    return false;
+                }
+                expected[i] = (byte) (high << 4 | low);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.polyrythms.telegrambot.infrastructure.stats;
+
+import ru.polyrythms.telegrambot.domain.model.TaskCounts;
+import ru.polyrythms.telegrambot.domain.model.TaskStatisticsSummary;
+
+import java.util.Arrays;
+
+/**
+ * Счетчики заданий одного чата: накопительные итоги и окна "последний час" (60 корзин по минуте)
+ * и "последние сутки" (24 корзины по часу).
+ */
+final class ChatTaskCounters {
+
+    enum Event {
+        CREATED, COMPLETED, FAILED
+    }
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+
+    private final long[] totals = new long[Event.values().length];
+    private final RollingWindowCounter[] lastHour = new RollingWindowCounter[Event.values().length];
+    private final RollingWindowCounter[] lastDay = new RollingWindowCounter[Event.values().length];
+
+    // Приращения итогов, еще не сохраненные в БД
+    private final long[] pending = new long[Event.values().length];
+    private boolean dirty;
+
+    ChatTaskCounters() {
+        for (Event event : Event.values()) {
+            lastHour[event.ordinal()] = new RollingWindowCounter(60, MINUTE_MS);
+            lastDay[event.ordinal()] = new RollingWindowCounter(24, HOUR_MS);
+        }
+    }
+
+    /**
+     * Итоги, восстановленные из БД при старте. Окна начинают заполняться заново.
+     */
+    synchronized void restoreTotals(long created, long completed, long failed) {
+        totals[Event.CREATED.ordinal()] += created;
+        totals[Event.COMPLETED.ordinal()] += completed;
+        totals[Event.FAILED.ordinal()] += failed;
+    }
+
+    synchronized void record(Event event, long now) {
+        totals[event.ordinal()]++;
+        pending[event.ordinal()]++;
+        lastHour[event.ordinal()].increment(now);
+        lastDay[event.ordinal()].increment(now);
+        dirty = true;
+    }
+
+    synchronized TaskStatisticsSummary summary(long now) {
+        return TaskStatisticsSummary.builder()
+                .total(new TaskCounts(
+                        totals[Event.CREATED.ordinal()],
+                        totals[Event.COMPLETED.ordinal()],
+                        totals[Event.FAILED.ordinal()]))
+                .lastHour(windowCounts(lastHour, now))
+                .lastDay(windowCounts(lastDay, now))
+                .build();
+    }
+
+    /**
+     * Приращения итогов с прошлого сохранения; приращения обнуляются.
+     *
+     * @return null, если сохранять нечего
+     */
+    synchronized TaskCounts takePendingDeltas() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+        TaskCounts deltas = new TaskCounts(
+                pending[Event.CREATED.ordinal()],
+                pending[Event.COMPLETED.ordinal()],
+                pending[Event.FAILED.ordinal()]);
+        Arrays.fill(pending, 0);
+        return deltas;
+    }
+
+    /**
+     * Возвращает приращения, которые не удалось сохранить, - они уйдут со следующим сохранением.
+     */
+    synchronized void restorePendingDeltas(TaskCounts deltas) {
+        pending[Event.CREATED.ordinal()] += deltas.getCreated();
+        pending[Event.COMPLETED.ordinal()] += deltas.getCompleted();
+        pending[Event.FAILED.ordinal()] += deltas.getFailed();
+        dirty = true;
+    }
+
+    private static TaskCounts windowCounts(RollingWindowCounter[] window, long now) {
+        return new TaskCounts(
+                window[Event.CREATED.ordinal()].sum(now),
+                window[Event.COMPLETED.ordinal()].sum(now),
+                window[Event.FAILED.ordinal()].sum(now));
+    }
+}
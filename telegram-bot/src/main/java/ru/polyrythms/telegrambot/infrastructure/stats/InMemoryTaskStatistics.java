@@ -0,0 +1,160 @@
+package ru.polyrythms.telegrambot.infrastructure.stats;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polyrythms.telegrambot.application.port.output.TaskStatistics;
+import ru.polyrythms.telegrambot.domain.model.TaskCounts;
+import ru.polyrythms.telegrambot.domain.model.TaskStatisticsSummary;
+import ru.polyrythms.telegrambot.infrastructure.entity.ChatTaskStatsEntity;
+import ru.polyrythms.telegrambot.infrastructure.repository.ChatTaskStatsJpaRepository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Статистика заданий в памяти с периодическим сохранением итогов в таблицу chat_task_stats.
+ * <p>
+ * События конвейера обновляют счетчики чата и общие счетчики без обращений к БД,
+ * /stats читает готовые значения. Скользящие окна (час, сутки) живут только в памяти
+ * и после рестарта заполняются заново, накопительные итоги восстанавливаются из БД.
+ * <p>
+ * В БД пишутся не итоги, а приращения с прошлого сохранения (MERGE с прибавлением к строке):
+ * несколько экземпляров и рестарт во время сохранения не перезаписывают чужие счетчики.
+ */
+@Slf4j
+@Component
+public class InMemoryTaskStatistics implements TaskStatistics {
+
+    private static final String ADD_DELTAS_SQL = """
+            MERGE INTO chat_task_stats t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT),
+                           CAST(? AS TIMESTAMP)))
+                AS d (chat_id, tasks_created, tasks_completed, tasks_failed, updated_at)
+            ON t.chat_id = d.chat_id
+            WHEN MATCHED THEN UPDATE SET
+                tasks_created = t.tasks_created + d.tasks_created,
+                tasks_completed = t.tasks_completed + d.tasks_completed,
+                tasks_failed = t.tasks_failed + d.tasks_failed,
+                updated_at = d.updated_at
+            WHEN NOT MATCHED THEN INSERT (chat_id, tasks_created, tasks_completed, tasks_failed, updated_at)
+                VALUES (d.chat_id, d.tasks_created, d.tasks_completed, d.tasks_failed, d.updated_at)
+            """;
+    private static final int[] ADD_DELTAS_TYPES = {Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.TIMESTAMP};
+
+    private final ChatTaskStatsJpaRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, ChatTaskCounters> countersByChat = new ConcurrentHashMap<>();
+    private final ChatTaskCounters globalCounters = new ChatTaskCounters();
+
+    public InMemoryTaskStatistics(ChatTaskStatsJpaRepository repository, JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+
+        Gauge.builder("telegram.stats.chats", countersByChat, Map::size)
+                .description("Number of chats with task statistics in memory")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        for (ChatTaskStatsEntity entity : repository.findAll()) {
+            countersFor(entity.getChatId())
+                    .restoreTotals(entity.getTasksCreated(), entity.getTasksCompleted(), entity.getTasksFailed());
+            globalCounters.restoreTotals(entity.getTasksCreated(), entity.getTasksCompleted(), entity.getTasksFailed());
+        }
+        log.info("Task statistics restored for {} chats", countersByChat.size());
+    }
+
+    @Override
+    public void recordTaskCreated(Long chatId) {
+        record(chatId, ChatTaskCounters.Event.CREATED);
+    }
+
+    @Override
+    public void recordTaskCompleted(Long chatId) {
+        record(chatId, ChatTaskCounters.Event.COMPLETED);
+    }
+
+    @Override
+    public void recordTaskFailed(Long chatId) {
+        record(chatId, ChatTaskCounters.Event.FAILED);
+    }
+
+    @Override
+    public TaskStatisticsSummary getSummary() {
+        return globalCounters.summary(System.currentTimeMillis());
+    }
+
+    @Override
+    public TaskStatisticsSummary getSummary(Long chatId) {
+        ChatTaskCounters counters = chatId != null ? countersByChat.get(chatId) : null;
+        return counters != null ? counters.summary(System.currentTimeMillis()) : TaskStatisticsSummary.EMPTY;
+    }
+
+    private void record(Long chatId, ChatTaskCounters.Event event) {
+        if (chatId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        countersFor(chatId).record(event, now);
+        globalCounters.record(event, now);
+    }
+
+    private ChatTaskCounters countersFor(Long chatId) {
+        return countersByChat.computeIfAbsent(chatId, id -> new ChatTaskCounters());
+    }
+
+    /**
+     * Прибавляет к строкам чатов приращения с прошлого сохранения одним пакетом.
+     */
+    @Scheduled(fixedDelayString = "${telegram.stats.flush-interval-ms:60000}",
+            initialDelayString = "${telegram.stats.flush-interval-ms:60000}")
+    @PreDestroy
+    public void flush() {
+        List<ChatTaskCounters> flushed = new ArrayList<>();
+        List<TaskCounts> deltas = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        countersByChat.forEach((chatId, counters) -> {
+            TaskCounts delta = counters.takePendingDeltas();
+            if (delta != null) {
+                args.add(new Object[]{chatId, delta.getCreated(), delta.getCompleted(), delta.getFailed(), now});
+                deltas.add(delta);
+                flushed.add(counters);
+            }
+        });
+
+        if (args.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(ADD_DELTAS_SQL, args, ADD_DELTAS_TYPES));
+            log.debug("Task statistics persisted for {} chats", args.size());
+        } catch (Exception e) {
+            // Пакет выполняется в одной транзакции - приращения вернутся и уйдут при следующей попытке
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).restorePendingDeltas(deltas.get(i));
+            }
+            log.error("Failed to persist task statistics for {} chats", args.size(), e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.polyrythms.telegrambot.infrastructure.stats;
+
+import java.util.Arrays;
+
+/**
+ * Счетчик событий за скользящее окно на кольцевом буфере.
+ * <p>
+ * Окно делится на bucketCount корзин длиной bucketMillis. Корзина хранит номер интервала,
+ * к которому относится ее значение: устаревшая корзина обнуляется при следующей записи
+ * и не учитывается при чтении, поэтому фоновая очистка не нужна.
+ * Класс не потокобезопасен - синхронизация выполняется в {@link ChatTaskCounters}.
+ */
+final class RollingWindowCounter {
+
+    private final long bucketMillis;
+    private final long[] counts;
+    private final long[] bucketIds;
+
+    RollingWindowCounter(int bucketCount, long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+        this.counts = new long[bucketCount];
+        this.bucketIds = new long[bucketCount];
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+    }
+
+    void increment(long now) {
+        long bucketId = now / bucketMillis;
+        int index = (int) (bucketId % counts.length);
+        if (bucketIds[index] != bucketId) {
+            bucketIds[index] = bucketId;
+            counts[index] = 0;
+        }
+        counts[index]++;
+    }
+
+    long sum(long now) {
+        long oldestBucketId = now / bucketMillis - counts.length;
+        long sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (bucketIds[i] > oldestBucketId) {
+                sum += counts[i];
+            }
+        }
+        return sum;
+    }
+}
@@ -5,34 +5,80 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.polyrythms.telegrambot.application.dto.TelegramUpdateDto;
 import ru.polyrythms.telegrambot.application.port.input.TelegramInboundPort;
+import ru.polyrythms.telegrambot.application.port.output.MessagePriority;
 import ru.polyrythms.telegrambot.application.port.output.MessageSender;
+import ru.polyrythms.telegrambot.domain.exception.PipelineBusyException;
+import ru.polyrythms.telegrambot.infrastructure.admission.AdmissionController;
+import ru.polyrythms.telegrambot.infrastructure.overflow.OverflowJournal;
 
+import java.util.List;
+
+/**
+ * Задача inbound пула: обновления одного чата из одного опроса getUpdates,
+ * обрабатываются последовательно в порядке получения.
+ * Обновление, для которого конвейер так и не освободился, возвращается в {@link OverflowJournal}.
+ */
 @Slf4j
 @RequiredArgsConstructor
 public class VoiceMessageTask implements Runnable {
 
     @Getter
     private final Long chatId;
-    private final TelegramUpdateDto update;
+    @Getter
+    private final List<TelegramUpdateDto> updates;
     private final TelegramInboundPort inboundPort;
     private final MessageSender messageSender;
+    private final AdmissionController admissionController;
+    private final OverflowJournal overflowJournal;
     private final long createdAt = System.currentTimeMillis();
 
     @Override
     public void run() {
         long waitTime = System.currentTimeMillis() - createdAt;
+        admissionController.recordSojourn(waitTime);
         if (waitTime > 5000) {
             log.warn("Task started after {} ms wait time for chatId: {}", waitTime, chatId);
         }
 
-        try {
-            inboundPort.handleUpdate(update);
-        } catch (Exception e) {
-            log.error("Error processing voice message for chatId: {}", chatId, e);
-            sendErrorMessage();
+        for (TelegramUpdateDto update : updates) {
+            try {
+                inboundPort.handleUpdate(update);
+            } catch (PipelineBusyException e) {
+                defer(update);
+            } catch (Exception e) {
+                log.error("Error processing voice message for chatId: {}", chatId, e);
+                sendErrorMessage();
+            }
         }
     }
 
+    private void defer(TelegramUpdateDto update) {
+        if (overflowJournal.append(update)) {
+            log.debug("Update from chatId {} deferred to overflow journal: pipeline is full", chatId);
+        } else {
+            sendOverloadNotification();
+        }
+    }
+
+    /**
+     * Уведомление о части обновлений задачи, которые не удалось принять: остальные будут обработаны,
+     * и пользователь не должен отправлять их повторно.
+     */
+    public void sendOverloadNotification(int rejectedUpdates) {
+        if (rejectedUpdates >= updates.size()) {
+            sendOverloadNotification();
+            return;
+        }
+        String message = """
+                ⚠️ *Сервер перегружен*
+                
+                Часть ваших сообщений (%d из %d) не может быть обработана сейчас.
+                Остальные приняты и будут обработаны - отправлять их повторно не нужно."""
+                .formatted(rejectedUpdates, updates.size());
+
+        messageSender.sendMessageAsync(chatId, message, MessagePriority.LOW);
+    }
+
     public void sendOverloadNotification() {
         String message = """
                 ⚠️ *Сервер перегружен*
@@ -42,7 +88,7 @@ public class VoiceMessageTask implements Runnable {
                 
                 Приносим извинения за неудобства.""";
 
-        messageSender.sendMessageAsync(chatId, message);
+        messageSender.sendMessageAsync(chatId, message, MessagePriority.LOW);
     }
 
     private void sendErrorMessage() {
@@ -54,4 +100,4 @@ public class VoiceMessageTask implements Runnable {
 
         messageSender.sendMessageAsync(chatId, message);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Локальный fake сервер Telegram Bot API для офлайн бенчмарков исходящей отправки.
+ * <p>
+ * Отвечает на любой метод {@code /bot<token>/<method>} успешным ответом с объектом Message,
+ * задержка ответа имитирует сетевой RTT до api.telegram.org.
+ * Запуск отдельно: {@code java FakeBotApiServer [port] [latencyMs]},
+ * бот направляется на него через {@code telegram.api.base-url=http://localhost:<port>}.
+ */
+public class FakeBotApiServer implements AutoCloseable {
+
+    private static final Pattern CHAT_ID = Pattern.compile("\"chat_id\"\\s*:\\s*\"?(-?\\d+)");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long latencyMs;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    public FakeBotApiServer(int port, long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public FakeBotApiServer start() {
+        server.start();
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            String request = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            requests.incrementAndGet();
+
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+
+            Matcher matcher = CHAT_ID.matcher(request);
+            String chatId = matcher.find() ? matcher.group(1) : "1";
+            String response = "{\"ok\":true,\"result\":{\"message_id\":" + messageIds.incrementAndGet()
+                    + ",\"date\":" + System.currentTimeMillis() / 1000
+                    + ",\"chat\":{\"id\":" + chatId + ",\"type\":\"private\"},\"text\":\"ok\"}}";
+
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8081;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        FakeBotApiServer server = new FakeBotApiServer(port, latencyMs).start();
+        System.out.printf("Fake Bot API listening on %s (latency %d ms)%n", server.getBaseUrl(), latencyMs);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.polyrythms.telegrambot.infrastructure.adapter.output.telegram;
+
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Сравнение пропускной способности транспортов Bot API на {@link FakeBotApiServer}.
+ * <p>
+ * Лимиты Telegram здесь не применяются - измеряется только транспорт.
+ * Аргументы: [сообщений] [одновременных запросов] [задержка сервера, мс] [потоков outbound пула]
+ */
+public class OutboundThroughputBenchmark {
+
+    private static final String TOKEN = "123456:benchmark";
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        long latencyMs = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        try (FakeBotApiServer server = new FakeBotApiServer(0, latencyMs).start()) {
+            System.out.printf("Fake server %s, %d messages, %d in flight, latency %d ms, %d pool threads%n",
+                    server.getBaseUrl(), messages, inFlight, latencyMs, threads);
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                DefaultBotOptions options = new DefaultBotOptions();
+                options.setBaseUrl(server.getBaseUrl() + "/bot");
+                DefaultAbsSender bot = new DefaultAbsSender(options, TOKEN) {
+                };
+
+                run("blocking", new BlockingBotApiTransport(bot, pool), messages, inFlight);
+                HttpClientBotApiTransport http = new HttpClientBotApiTransport(server.getBaseUrl(), TOKEN, Duration.ofSeconds(30));
+                run("http", http, messages, inFlight);
+                http.close();
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static void run(String name, BotApiTransport transport, int messages, int inFlight) throws Exception {
+        // Прогрев
+        send(transport, Math.min(messages, 500), inFlight);
+
+        long start = System.nanoTime();
+        int failed = send(transport, messages, inFlight);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-8s %8.0f msg/s  (%d messages in %.2f s, %d failed)%n",
+                name, messages / seconds, messages, seconds, failed);
+    }
+
+    private static int send(BotApiTransport transport, int messages, int inFlight) throws InterruptedException {
+        Semaphore window = new Semaphore(inFlight);
+        int[] failed = new int[1];
+
+        for (int i = 0; i < messages; i++) {
+            window.acquire();
+            SendMessage message = new SendMessage(String.valueOf(1000 + i % 500), "benchmark " + i);
+            CompletableFuture<?> future = transport.execute(message);
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    synchronized (failed) {
+                        failed[0]++;
+                    }
+                }
+                window.release();
+            });
+        }
+
+        window.acquire(inFlight);
+        return failed[0];
+    }
+}
@@ -0,0 +1,128 @@
+package ru.polyrythms.telegrambot.infrastructure.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Проверок initData в секунду: прежний алгоритм WeatherUserService.verifyInitData
+ * (split + URLDecoder + LinkedHashMap + stream сортировка + String.format hex, ключ на каждый вызов)
+ * против {@link InitDataVerifier}.
+ * <p>
+ * Прежний алгоритм воспроизведен без INFO логирования хэшей и с правильным порядком аргументов
+ * HMAC для ключа, чтобы обе реализации проверяли одну и ту же валидную строку.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InitDataVerifierBenchmark {
+
+    private static final String TOKEN = "123456:benchmark-token";
+
+    private String initData;
+    private InitDataVerifier verifier;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(InitDataVerifierBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<String, String> fields = new TreeMap<>();
+        fields.put("query_id", "AAHdF6IQAAAAAN0XohDhrOrc");
+        fields.put("user", "{\"id\":279058397,\"first_name\":\"Vladislav\",\"last_name\":\"Kibenko\","
+                + "\"username\":\"vdkfrost\",\"language_code\":\"ru\",\"is_premium\":true,\"allows_write_to_pm\":true}");
+        fields.put("auth_date", "1662771648");
+        fields.put("signature", "SignaturePlaceholderValue_0123456789abcdefABCDEF-_0123456789abcdef");
+
+        String dataCheckString = fields.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining("\n"));
+        byte[] secretKey = hmacSha256("WebAppData".getBytes(StandardCharsets.UTF_8), TOKEN.getBytes(StandardCharsets.UTF_8));
+        String hash = bytesToHex(hmacSha256(secretKey, dataCheckString.getBytes(StandardCharsets.UTF_8)));
+
+        initData = fields.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&")) + "&hash=" + hash;
+        verifier = new InitDataVerifier(TOKEN);
+
+        if (!legacyVerify(initData) || !verifier.verify(initData)) {
+            throw new IllegalStateException("Benchmark initData does not verify");
+        }
+    }
+
+    @Benchmark
+    public boolean legacy() throws Exception {
+        return legacyVerify(initData);
+    }
+
+    @Benchmark
+    public boolean verifier() {
+        return verifier.verify(initData);
+    }
+
+    private static boolean legacyVerify(String initData) throws Exception {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String pair : initData.split("&")) {
+            int idx = pair.indexOf("=");
+            if (idx > 0) {
+                params.put(pair.substring(0, idx), URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8.name()));
+            }
+        }
+        String receivedHash = params.remove("hash");
+        if (receivedHash == null) {
+            return false;
+        }
+
+        String dataCheckString = params.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining("\n"));
+
+        byte[] secretKeyBytes = hmacSha256("WebAppData".getBytes(StandardCharsets.UTF_8), TOKEN.getBytes(StandardCharsets.UTF_8));
+        Mac hmac = Mac.getInstance("HmacSHA256");
+        hmac.init(new SecretKeySpec(secretKeyBytes, "HmacSHA256"));
+        String calculatedHash = bytesToHex(hmac.doFinal(dataCheckString.getBytes(StandardCharsets.UTF_8)));
+        return calculatedHash.equals(receivedHash);
+    }
+
+    private static byte[] hmacSha256(byte[] key, byte[] message) throws Exception {
+        Mac hmac = Mac.getInstance("HmacSHA256");
+        hmac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return hmac.doFinal(message);
+    }
+
+    private static String bytesToHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
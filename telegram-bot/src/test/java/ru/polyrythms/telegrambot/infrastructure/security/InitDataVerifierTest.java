@@ -0,0 +1,76 @@
+package ru.polyrythms.telegrambot.infrastructure.security;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InitDataVerifierTest {
+
+    private static final String TOKEN = "123456:test-token";
+    private static final String USER = "{\"id\":279058397,\"first_name\":\"Денис 🎵\"}";
+
+    private final InitDataVerifier verifier = new InitDataVerifier(TOKEN);
+
+    @Test
+    void acceptsSignedInitDataAndReturnsDecodedFields() throws Exception {
+        String initData = sign(Map.of("auth_date", "1662771648", "signature", "sig", "user", USER));
+
+        assertThat(verifier.verify(initData)).isTrue();
+        assertThat(verifier.verifyAndParse(initData)).hasValueSatisfying(fields -> assertThat(fields)
+                .containsExactlyInAnyOrderEntriesOf(Map.of("auth_date", "1662771648", "signature", "sig", "user", USER)));
+    }
+
+    @Test
+    void rejectsTamperedField() throws Exception {
+        String initData = sign(Map.of("auth_date", "1662771648", "user", USER));
+
+        assertThat(verifier.verify(initData.replace("1662771648", "1662771649"))).isFalse();
+    }
+
+    @Test
+    void rejectsDuplicateKeyPrependedToSignedInitData() throws Exception {
+        String initData = sign(Map.of("auth_date", "1662771648", "user", USER));
+        String forged = "user=" + URLEncoder.encode("{\"id\":1}", StandardCharsets.UTF_8) + "&" + initData;
+
+        assertThat(verifier.verify(forged)).isFalse();
+        assertThat(verifier.verifyAndParse(forged)).isEmpty();
+        assertThat(verifier.verify(initData + "&user=" + URLEncoder.encode("{\"id\":1}", StandardCharsets.UTF_8)))
+                .isFalse();
+    }
+
+    @Test
+    void rejectsMissingHashAndBrokenEscape() throws Exception {
+        String initData = sign(Map.of("auth_date", "1662771648", "user", USER));
+
+        assertThat(verifier.verify(initData.substring(0, initData.indexOf("&hash=")))).isFalse();
+        assertThat(verifier.verify("user=%zz&" + initData.substring(initData.indexOf("hash=")))).isFalse();
+        assertThat(verifier.verify(null)).isFalse();
+    }
+
+    private static String sign(Map<String, String> fields) throws Exception {
+        Map<String, String> sorted = new TreeMap<>(fields);
+        String dataCheckString = sorted.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining("\n"));
+        byte[] secretKey = hmacSha256("WebAppData".getBytes(StandardCharsets.UTF_8), TOKEN.getBytes(StandardCharsets.UTF_8));
+        String hash = HexFormat.of().formatHex(hmacSha256(secretKey, dataCheckString.getBytes(StandardCharsets.UTF_8)));
+        return sorted.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&")) + "&hash=" + hash;
+    }
+
+    private static byte[] hmacSha256(byte[] key, byte[] message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(message);
+    }
+}